@@ -0,0 +1,114 @@
+package com.github.fluxw42.thistothat;
+
+import com.github.fluxw42.thistothat.converter.Converter;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * A handle on the conversion of a single source file, allowing other threads to cancel it when the
+ * source was deleted or changed during the conversion.
+ * <p>
+ * Date: 10/18/26 - 7:12 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConversionJob {
+
+    /**
+     * The file being converted
+     */
+    private final File source;
+
+    /**
+     * The name of the worker running the conversion
+     */
+    private final String workerName;
+
+    /**
+     * The converter doing the conversion, or 'null' when the conversion didn't start yet
+     */
+    private Converter converter = null;
+
+    /**
+     * Indicates if the conversion was cancelled
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Create a new job handle
+     *
+     * @param source     The file being converted, cannot be 'null'
+     * @param workerName The name of the worker running the conversion, cannot be 'null'
+     */
+    public ConversionJob(final File source, final String workerName) {
+        this.source = Objects.requireNonNull(source);
+        this.workerName = Objects.requireNonNull(workerName);
+    }
+
+    /**
+     * Get the file being converted
+     *
+     * @return The source file
+     */
+    public final File getSource() {
+        return this.source;
+    }
+
+    /**
+     * Get the name of the worker running the conversion
+     *
+     * @return The worker name
+     */
+    public final String getWorkerName() {
+        return this.workerName;
+    }
+
+    /**
+     * Attach the converter that is about to start the conversion, so it can be cancelled
+     *
+     * @param converter The converter, cannot be 'null'
+     * @return <tt>true</tt> when the conversion can start, <tt>false</tt> when the job was cancelled
+     * before and the converter was cancelled right away
+     */
+    public final synchronized boolean attach(final Converter converter) {
+        this.converter = Objects.requireNonNull(converter);
+        if (this.cancelled) {
+            converter.cancel();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cancel the conversion. When the conversion didn't start yet, it will not start at all.
+     * Cancelling a job more than once has no influence.
+     */
+    public final synchronized void cancel() {
+        if (this.cancelled) {
+            return;
+        }
+        this.cancelled = true;
+        if (this.converter != null) {
+            this.converter.cancel();
+        }
+    }
+
+    /**
+     * Indicates if the conversion was cancelled
+     *
+     * @return <tt>true</tt> when cancelled, <tt>false</tt> if not
+     */
+    public final boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConversionJob{source=" + source + ", workerName='" + workerName + "', cancelled=" + cancelled + "}";
+    }
+
+}
@@ -20,12 +20,33 @@ public class ConversionTask implements Delayed {
     /**
      * The reference
      */
-    private long reference;
+    private volatile long reference;
 
     /**
-     * The initial delay in nano seconds
+     * The delay in nano seconds
      */
-    private final long nanoDelay;
+    private volatile long nanoDelay;
+
+    /**
+     * The moment this task was created, in nano seconds as given by {@link System#nanoTime()}
+     */
+    private final long creationTime = System.nanoTime();
+
+    /**
+     * The moment the conversion of this task should be finished, in nano seconds as given by
+     * {@link System#nanoTime()}. Only relevant when {@link #hasDueTime} is set
+     */
+    private volatile long dueTime = 0;
+
+    /**
+     * Indicates if the conversion of this task should be finished before {@link #dueTime}
+     */
+    private volatile boolean hasDueTime = false;
+
+    /**
+     * The duration of the source media in milliseconds, or a negative value when unknown
+     */
+    private volatile long duration = -1;
 
     /**
      * Create a new conversion task. This {@link Delayed} instance is used to buffer multiple file
@@ -52,6 +73,15 @@ public class ConversionTask implements Delayed {
         return unit.convert(left, TimeUnit.NANOSECONDS);
     }
 
+    /**
+     * Get the moment this task expires, in nano seconds as given by {@link System#nanoTime()}
+     *
+     * @return The deadline of this task
+     */
+    public final long getDeadline() {
+        return this.reference + this.nanoDelay;
+    }
+
     /**
      * Get the file this task is converting
      *
@@ -61,6 +91,64 @@ public class ConversionTask implements Delayed {
         return file;
     }
 
+    /**
+     * Get the duration of the source media, when it was probed before
+     *
+     * @return The duration in milliseconds, or a negative value when unknown
+     */
+    public final long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Set the duration of the source media
+     *
+     * @param duration The duration in milliseconds, or a negative value when unknown
+     */
+    public final void setDuration(final long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Get the moment this task was created, which is the moment the first file system event for
+     * the file was received
+     *
+     * @return The creation time in nano seconds as given by {@link System#nanoTime()}
+     */
+    public final long getCreationTime() {
+        return this.creationTime;
+    }
+
+    /**
+     * Get the moment the conversion of this task should be finished
+     *
+     * @return The due time in nano seconds as given by {@link System#nanoTime()}, only relevant
+     * when {@link #hasDueTime()}
+     */
+    public final long getDueTime() {
+        return this.dueTime;
+    }
+
+    /**
+     * Indicates if the conversion of this task should be finished before a given moment
+     *
+     * @return <tt>true</tt> when this task has a due time, <tt>false</tt> if not
+     * @see #getDueTime()
+     */
+    public final boolean hasDueTime() {
+        return this.hasDueTime;
+    }
+
+    /**
+     * Set the moment the conversion of this task should be finished
+     *
+     * @param dueTime The due time in nano seconds as given by {@link System#nanoTime()}
+     */
+    public final void setDueTime(final long dueTime) {
+        this.dueTime = dueTime;
+        this.hasDueTime = true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -70,6 +158,10 @@ public class ConversionTask implements Delayed {
             return 1;
         } else if (o == this) {
             return 0;
+        } else if (o instanceof ConversionTask) {
+            // Both tasks are relative to the same clock, so there's no need to read it
+            final long difference = getDeadline() - ((ConversionTask) o).getDeadline();
+            return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
         } else {
             final long thisDelay = getDelay(TimeUnit.NANOSECONDS);
             final long otherDelay = o.getDelay(TimeUnit.NANOSECONDS);
@@ -84,6 +176,17 @@ public class ConversionTask implements Delayed {
         this.reference = System.nanoTime();
     }
 
+    /**
+     * Reset the delay to the given value, starting from now
+     *
+     * @param delay     The time to wait after the last file system event
+     * @param delayUnit The unit of the delay, cannot be 'null'
+     */
+    public final void reset(final long delay, final TimeUnit delayUnit) {
+        this.nanoDelay = Objects.requireNonNull(delayUnit).toNanos(delay);
+        reset();
+    }
+
     /**
      * Indicates if the task's delay has expired
      *
@@ -1,8 +1,13 @@
 package com.github.fluxw42.thistothat;
 
 import com.github.fluxw42.thistothat.conf.ConfigurationImpl;
+import com.github.fluxw42.thistothat.jave.Encoder;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Date: 2/2/16 - 11:51 PM
@@ -11,6 +16,11 @@ import java.io.File;
  */
 public class Main {
 
+    /**
+     * The logger for class Main
+     */
+    private static final Logger logger = Logger.getLogger(Main.class.getName());
+
     /**
      * The default config file
      */
@@ -22,6 +32,21 @@ public class Main {
 
         final ConfigurationImpl config = new ConfigurationImpl(configFile);
         final ThisToThat thisToThat = new ThisToThat(config);
+
+        // Give running conversions the chance to finish when the jvm is stopped, instead of killing
+        // their ffmpeg process right away
+        final long drainTimeout = config.getDrainTimeout();
+        Encoder.setShutdownGracePeriod(drainTimeout + TimeUnit.SECONDS.toMillis(5));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                thisToThat.stop(drainTimeout, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.SEVERE)) {
+                    logger.log(Level.SEVERE, "Failed to stop This-to-That : " + e.getMessage(), e);
+                }
+            }
+        }, "this-to-that-shutdown"));
+
         thisToThat.start();
     }
 
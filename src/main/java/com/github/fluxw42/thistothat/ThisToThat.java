@@ -1,20 +1,57 @@
 package com.github.fluxw42.thistothat;
 
 import com.github.fluxw42.thistothat.conf.Configuration;
+import com.github.fluxw42.thistothat.conf.WatchRoot;
 import com.github.fluxw42.thistothat.converter.ConversionException;
+import com.github.fluxw42.thistothat.converter.ConversionProgressListener;
 import com.github.fluxw42.thistothat.converter.audio.AudioConverter;
 import com.github.fluxw42.thistothat.converter.audio.AudioFormat;
+import com.github.fluxw42.thistothat.filesystem.ContentSniffer;
+import com.github.fluxw42.thistothat.filesystem.DirectoryScanner;
+import com.github.fluxw42.thistothat.filesystem.DirectoryWatchBatchListener;
+import com.github.fluxw42.thistothat.filesystem.DirectoryWatchEvent;
 import com.github.fluxw42.thistothat.filesystem.DirectoryWatchService;
 import com.github.fluxw42.thistothat.filesystem.DirectoryWatchServiceImpl;
+import com.github.fluxw42.thistothat.filesystem.PollingDirectoryWatchService;
 import com.github.fluxw42.thistothat.filesystem.EventType;
+import com.github.fluxw42.thistothat.filesystem.FileIdentity;
+import com.github.fluxw42.thistothat.filesystem.FormatCompletenessCheck;
+import com.github.fluxw42.thistothat.filesystem.OpenWriterDetector;
+import com.github.fluxw42.thistothat.filesystem.WatchFilter;
+import com.github.fluxw42.thistothat.jave.Encoder;
+import com.github.fluxw42.thistothat.jave.EncoderException;
+import com.github.fluxw42.thistothat.scheduler.AdaptiveConcurrencyController;
+import com.github.fluxw42.thistothat.scheduler.AdmissionController;
+import com.github.fluxw42.thistothat.scheduler.ArrivalProtocol;
+import com.github.fluxw42.thistothat.scheduler.Checkpoint;
+import com.github.fluxw42.thistothat.scheduler.ConcurrencyLimiter;
+import com.github.fluxw42.thistothat.scheduler.ConversionHistory;
+import com.github.fluxw42.thistothat.scheduler.DebounceScheduler;
+import com.github.fluxw42.thistothat.scheduler.FairShareTaskScheduler;
+import com.github.fluxw42.thistothat.scheduler.SchedulingPolicy;
+import com.github.fluxw42.thistothat.scheduler.StabilityDetector;
+import com.github.fluxw42.thistothat.scheduler.TaskScheduler;
+import com.github.fluxw42.thistothat.scheduler.ThreadBudget;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.DelayQueue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,20 +67,156 @@ public class ThisToThat {
      */
     private static final Logger logger = Logger.getLogger(ThisToThat.class.getName());
 
+    /**
+     * The interval in milliseconds between two checks of a file which is still opened for writing,
+     * or which is structurally incomplete
+     */
+    private static final long WRITER_CHECK_MILLIS = 100;
+
+    /**
+     * The maximum time in milliseconds between the deletion of a temporary file and the creation of
+     * the file it was renamed to
+     */
+    private static final long RENAME_WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
     /**
      * The configuration
      */
     private final Configuration config;
 
     /**
-     * The task executor, responsible for
+     * The task executor, responsible for running the conversion workers
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of conversion workers in the {@link #executor}
+     */
+    private final int workerCount;
+
+    /**
+     * Limits the number of workers converting at the same time
+     */
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * The controller adapting the concurrency limit, or 'null' when the concurrency is fixed
+     */
+    private final AdaptiveConcurrencyController concurrencyController;
+
+    /**
+     * Divides the threads between the concurrent ffmpeg processes
+     */
+    private final ThreadBudget threadBudget;
+
+    /**
+     * Decides how long each pending file should be quiet before it's converted
+     */
+    private final StabilityDetector stability;
+
+    /**
+     * Detects the files which are still opened for writing, or 'null' when the writers aren't
+     * checked
+     */
+    private final OpenWriterDetector writers;
+
+    /**
+     * Checks if the files are structurally complete, or 'null' when their format isn't checked
+     */
+    private final FormatCompletenessCheck formats;
+
+    /**
+     * Recognizes the format of the files before they're converted, or 'null' when their content
+     * isn't checked
+     */
+    private final ContentSniffer sniffer;
+
+    /**
+     * Recognizes the files which are complete when they appear, following the arrival protocol of
+     * the uploaders
+     */
+    private final ArrivalProtocol arrival;
+
+    /**
+     * The scheduler buffering file system events until a file is quiet, holding the pending tasks
+     */
+    private final DebounceScheduler scheduler;
+
+    /**
+     * The tasks which are ready to be converted, deciding the order in which they're converted
      */
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final TaskScheduler queue;
 
     /**
-     * The queue with pending tasks
+     * The executor sniffing the content of ready tasks, and probing their duration when required by
+     * the {@link #queue}
      */
-    private final BlockingQueue<ConversionTask> queue = new DelayQueue<>();
+    private final ExecutorService probeExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The executor inspecting the pending files once they're quiet, sampling them and checking
+     * their writers and their format, so the ticker of the {@link #scheduler} never waits for the
+     * file system
+     */
+    private final ExecutorService inspectionExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The inspections in progress, indexed by file. An inspection only applies its result when it's
+     * still the current inspection of the file, so a file written during its inspection isn't
+     * handed over.
+     */
+    private final Map<File, Object> inspections = new ConcurrentHashMap<>();
+
+    /**
+     * Bounds the number of pending tasks, spilling new files to disk when there are too many
+     */
+    private final AdmissionController admission;
+
+    /**
+     * The executor running periodic maintenance, like re-admitting spilled files
+     */
+    private final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * The number of conversions that finished after the due time of their task
+     */
+    private final AtomicLong deadlineMisses = new AtomicLong();
+
+    /**
+     * The number of files rejected because their content isn't media
+     */
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * The conversions in progress, indexed by source file
+     */
+    private final Map<File, ConversionJob> running = new ConcurrentHashMap<>();
+
+    /**
+     * The files waiting to be converted when this instance stopped
+     */
+    private final Checkpoint checkpoint;
+
+    /**
+     * Remembers the converted files by their identity, or 'null' when only their path is used
+     */
+    private final ConversionHistory history;
+
+    /**
+     * The services watching the input directories, empty when not started
+     */
+    private volatile List<DirectoryWatchService> directoryWatchServices = Collections.emptyList();
+
+    /**
+     * The scanner looking for files which were already present at startup, or 'null' when there's
+     * no startup scan
+     */
+    private volatile DirectoryScanner scanner = null;
+
+    /**
+     * Indicates if this instance is stopping, and should no longer accept new files
+     */
+    private volatile boolean stopping = false;
 
     /**
      * Create a new {@link ThisToThat} instance using the given configuration
@@ -55,21 +228,85 @@ public class ThisToThat {
             throw new IllegalArgumentException("ThisToThat needs a config, but config was 'null'!");
         }
         this.config = config;
+        final SchedulingPolicy policy = SchedulingPolicy.fromName(config.getSchedulingPolicy());
+        final List<WatchRoot> roots = config.getWatchRoots();
+        if (roots.size() > 1) {
+            this.queue = new FairShareTaskScheduler(roots, () -> policy.create(config));
+        } else {
+            this.queue = policy.create(config);
+        }
+
+        if (config.isAdaptiveConcurrency()) {
+            final int minCount = config.getMinWorkerCount();
+            final int maxCount = config.getMaxWorkerCount();
+            this.workerCount = maxCount;
+            this.limiter = new ConcurrencyLimiter(Math.max(minCount, Math.min(maxCount, config.getWorkerCount())));
+            this.concurrencyController = new AdaptiveConcurrencyController(this.limiter, minCount, maxCount, this.queue::size, this.running::size);
+        } else {
+            this.workerCount = config.getWorkerCount();
+            this.limiter = new ConcurrencyLimiter(this.workerCount);
+            this.concurrencyController = null;
+        }
+        this.executor = Executors.newFixedThreadPool(this.workerCount);
+
+        final long quietTime = config.getFileSystemQuietTime();
+        if (config.isAdaptiveQuietTime()) {
+            this.stability = new StabilityDetector(Math.min(config.getMinQuietTime(), quietTime), quietTime,
+                    Math.max(config.getMaxQuietTime(), quietTime), TimeUnit.MILLISECONDS);
+        } else {
+            this.stability = new StabilityDetector(quietTime, quietTime, quietTime, TimeUnit.MILLISECONDS);
+        }
+
+        final OpenWriterDetector writers = config.isOpenWriterCheck() ? new OpenWriterDetector() : null;
+        if (writers != null && !writers.isSupported()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "The open files of the processes can't be inspected on this system. Only using the quiet time.");
+            }
+            this.writers = null;
+        } else {
+            this.writers = writers;
+        }
+        this.formats = config.isFormatCheck() ? new FormatCompletenessCheck() : null;
+        this.sniffer = config.isContentSniffing() ? new ContentSniffer() : null;
+        this.scheduler = new DebounceScheduler(this::ready, this::check);
+        this.arrival = new ArrivalProtocol(config.getArrivalTemporarySuffixes(), config.getArrivalMarkerSuffix(),
+                RENAME_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+        // Idle workers hold a permit while they wait for a task, so only the conversions which are
+        // actually running count. The current conversion is running already, and no longer queued.
+        this.threadBudget = new ThreadBudget(config.getThreadBudget(),
+                () -> Math.min(this.limiter.getLimit(), this.running.size() + this.queue.size()));
+
+        this.admission = new AdmissionController(config.getHighWatermark(), config.getLowWatermark(),
+                new File(config.getWorkDirectory(), "spill.dat"), () -> this.scheduler.size() + this.queue.size());
+        this.checkpoint = new Checkpoint(new File(config.getWorkDirectory(), "checkpoint.dat"));
+
+        if (config.isRenameTracking() && !FileIdentity.isSupported()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "The inodes of the files can't be read on this system. Only using the path of the converted files.");
+            }
+            this.history = null;
+        } else {
+            this.history = config.isRenameTracking() ? new ConversionHistory(new File(config.getWorkDirectory(), "history.dat")) : null;
+        }
     }
 
     /**
      * Start the service
      */
     public final void start() throws IOException {
-        final File inputDirectory = this.config.getInputDirectory();
-        if (!inputDirectory.exists()) {
-            if (logger.isLoggable(Level.WARNING)) {
-                logger.log(Level.WARNING, "Input directory [" + inputDirectory + "] doesn't exist. Creating path.");
-            }
+        final List<WatchRoot> roots = this.config.getWatchRoots();
+        for (final WatchRoot root : roots) {
+            final File inputDirectory = root.getDirectory();
+            if (!inputDirectory.exists()) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Input directory [" + inputDirectory + "] doesn't exist. Creating path.");
+                }
 
-            final boolean success = inputDirectory.mkdirs();
-            if (!success) {
-                throw new IOException("Failed to create input directory [" + inputDirectory + "]!");
+                final boolean success = inputDirectory.mkdirs();
+                if (!success) {
+                    throw new IOException("Failed to create input directory [" + inputDirectory + "]!");
+                }
             }
         }
 
@@ -85,15 +322,202 @@ public class ThisToThat {
             }
         }
 
-        final DirectoryWatchService directoryWatchService = new DirectoryWatchServiceImpl();
-        directoryWatchService.start();
-        directoryWatchService.addListener(inputDirectory, this::eventHandler);
-        this.executor.submit(this::taskHandler);
+        if (this.history != null) {
+            try {
+                this.history.load();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to load the conversion history : " + e.getMessage(), e);
+                }
+            }
+        }
+
+        this.scheduler.start();
+        restore();
+
+        final DirectoryWatchBatchListener listener = new DirectoryWatchBatchListener() {
+
+            @Override
+            public void updated(final List<DirectoryWatchEvent> events) {
+                for (final DirectoryWatchEvent event : events) {
+                    eventHandler(event.getFile(), event.getType());
+                }
+            }
+
+            @Override
+            public void updated(final File file, final EventType type) {
+                eventHandler(file, type);
+            }
+
+        };
+
+        // Events of other files, like partial uploads, are dropped by the watch services already,
+        // except for the temporary and marker files of the arrival protocol
+        final List<String> extensions = new ArrayList<>(this.config.getWatchedExtensions());
+        extensions.addAll(this.arrival.getSuffixes());
+        final WatchFilter filter = WatchFilter.extensions(extensions)
+                .withTypes(EventType.CREATED, EventType.MODIFIED, EventType.DELETED);
+
+        // Roots on network file systems are polled, the others use the file system notifications
+        final Map<Long, DirectoryWatchService> directoryWatchServices = new LinkedHashMap<>();
+        for (final WatchRoot root : roots) {
+            final long pollInterval = root.getPollInterval();
+            final DirectoryWatchService directoryWatchService = directoryWatchServices.computeIfAbsent(pollInterval, i -> i > 0
+                    ? new PollingDirectoryWatchService(i, TimeUnit.MILLISECONDS)
+                    : new DirectoryWatchServiceImpl(this.config.getFileSystemEventWindow(), TimeUnit.MILLISECONDS));
+            directoryWatchService.addListener(root.getDirectory(), listener, this.config.isRecursive(), filter);
+        }
+        for (final DirectoryWatchService directoryWatchService : directoryWatchServices.values()) {
+            directoryWatchService.start();
+        }
+        this.directoryWatchServices = new ArrayList<>(directoryWatchServices.values());
+
+        // Scan once the directories are watched, so no file is missed in between
+        final int scanThreads = this.config.getStartupScanThreads();
+        if (scanThreads > 0) {
+            final DirectoryScanner scanner = new DirectoryScanner(scanThreads);
+            for (final WatchRoot root : roots) {
+                scanner.scan(root.getDirectory(), this.config.isRecursive(), this::isUnconverted, this::catchUp).whenComplete((count, e) -> {
+                    if (e != null) {
+                        if (logger.isLoggable(Level.WARNING)) {
+                            logger.log(Level.WARNING, "Failed to scan input directory [" + root.getDirectory() + "] : " + e.getMessage(), e);
+                        }
+                    } else if (logger.isLoggable(Level.INFO)) {
+                        logger.log(Level.INFO, "Found [" + count + "] files to convert in input directory [" + root.getDirectory() + "].");
+                    }
+                });
+            }
+            this.scanner = scanner;
+        }
+
+        for (int i = 0; i < this.workerCount; i++) {
+            final String workerName = "worker-" + i;
+            this.executor.submit(() -> taskHandler(workerName));
+        }
+
+        this.maintenanceExecutor.scheduleWithFixedDelay(this::readmit, 1, 1, TimeUnit.SECONDS);
+        if (this.history != null) {
+            this.maintenanceExecutor.scheduleWithFixedDelay(this::saveHistory, 1, 1, TimeUnit.MINUTES);
+        }
+
+        if (this.concurrencyController != null) {
+            this.concurrencyController.start(this.config.getConcurrencyInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "Started This-to-That with [" + this.limiter.getLimit() + "] concurrent conversions.");
+        }
+
+    }
+
+    /**
+     * Stop the service. New files are no longer accepted, and the conversions in progress get the
+     * given time to finish. Conversions still running afterwards are cancelled. The files that
+     * were not converted, including the cancelled ones, are saved in a checkpoint and picked up
+     * again on the next {@link #start()} of a new instance. A stopped instance cannot be restarted.
+     *
+     * @param timeout     The time the conversions in progress get to finish
+     * @param timeoutUnit The unit of the timeout, cannot be 'null'
+     * @throws IOException When the checkpoint could not be saved
+     */
+    public final synchronized void stop(final long timeout, final TimeUnit timeoutUnit) throws IOException {
+        if (this.stopping) {
+            return;
+        }
+        this.stopping = true;
+        final long deadline = System.nanoTime() + timeoutUnit.toNanos(timeout);
 
         if (logger.isLoggable(Level.INFO)) {
-            logger.log(Level.INFO, "Started This-to-That.");
+            logger.log(Level.INFO, "Stopping This-to-That, waiting for [" + this.running.size() + "] conversions to finish.");
+        }
+
+        for (final DirectoryWatchService directoryWatchService : this.directoryWatchServices) {
+            directoryWatchService.stop();
+        }
+        final DirectoryScanner scanner = this.scanner;
+        if (scanner != null) {
+            scanner.stop();
+        }
+        this.maintenanceExecutor.shutdownNow();
+        if (this.concurrencyController != null) {
+            this.concurrencyController.stop();
+        }
+        // Once the ticker and the inspections are stopped, no more ready tasks are offered to the
+        // queue drained below
+        this.scheduler.stop();
+        this.inspectionExecutor.shutdown();
+        this.probeExecutor.shutdown();
+
+        // Idle workers stop right away, the others once their conversion is finished
+        this.executor.shutdownNow();
+
+        final Set<File> remaining = new LinkedHashSet<>();
+        try {
+            if (!this.executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                for (final ConversionJob job : this.running.values()) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Cancelling the conversion of [" + job.getSource() + "], it didn't finish in time.");
+                    }
+                    remaining.add(job.getSource());
+                    job.cancel();
+                }
+                this.executor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            this.inspectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            this.probeExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
 
+        remaining.addAll(this.running.keySet());
+        ConversionTask task;
+        while ((task = this.queue.poll()) != null) {
+            remaining.add(task.getFile());
+        }
+        remaining.addAll(this.scheduler.drain());
+
+        // Spilled files remain in the spill file, and are re-admitted after the next start
+        this.admission.close();
+        saveHistory();
+        this.checkpoint.save(remaining);
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "Stopped This-to-That, saved [" + remaining.size() + "] files waiting to be converted.");
+        }
+    }
+
+    /**
+     * Get a snapshot of the conversions in progress, giving the source file each worker is
+     * currently converting. Idle workers are not part of the result.
+     *
+     * @return The unmodifiable map of source files, indexed by worker name
+     */
+    public final Map<String, File> getRunningConversions() {
+        final Map<String, File> conversions = new HashMap<>();
+        this.running.forEach((source, job) -> conversions.put(job.getWorkerName(), source));
+        return Collections.unmodifiableMap(conversions);
+    }
+
+    /**
+     * Get the number of conversions that finished after their deadline, as configured by the
+     * service level of the watched directory
+     *
+     * @return The number of missed deadlines since the start of this instance
+     * @see Configuration#getServiceLevel(File)
+     */
+    public final long getDeadlineMisses() {
+        return this.deadlineMisses.get();
+    }
+
+    /**
+     * Get the number of files which were not converted, because their content doesn't look like
+     * media even though they have the extension of a media format
+     *
+     * @return The number of rejected files since the start of this instance
+     * @see Configuration#isContentSniffing()
+     */
+    public final long getRejectedFiles() {
+        return this.rejections.get();
     }
 
     /**
@@ -104,80 +528,642 @@ public class ThisToThat {
             return;
         }
 
-        if (eventType != EventType.CREATED && eventType != EventType.MODIFIED) {
+        if (this.stopping) {
             return;
         }
 
+        if (this.arrival.isEnabled()) {
+            final File target = this.arrival.getTarget(file);
+            if (target != null && this.config.isWatched(target)) {
+                arrived(file, target, eventType);
+                return;
+            }
+        }
+
         if (!this.config.isWatched(file)) {
             return;
         }
 
+        if (eventType == EventType.DELETED) {
+            cancel(file);
+            return;
+        }
+
+        if (eventType != EventType.CREATED && eventType != EventType.MODIFIED) {
+            return;
+        }
+        if (eventType == EventType.CREATED && !this.scheduler.isPending(file) && reuse(file, getDestination(file), false)) {
+            return; // Renamed after it was converted
+        }
+
+        final ConversionJob job = this.running.get(file);
+        if (job != null && !job.isCancelled()) {
+            // The source is still being written, so the conversion would be incomplete anyway
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, "Source [" + file + "] changed during its conversion. Restarting when it's quiet again.");
+            }
+            job.cancel();
+        }
+
+        if (!this.scheduler.isPending(file) && !this.admission.admit(file)) {
+            return; // Spilled, sampled once it's re-admitted
+        }
+        this.stability.touched(file);
+        this.inspections.remove(file);
+
+        final boolean created = this.scheduler.schedule(file, getQuietTime(file), TimeUnit.MILLISECONDS);
+        if (created) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Successfully scheduled task for [" + file + "]");
+            }
+        }
+
+        if (this.arrival.isEnabled() && this.arrival.isArrived(file) && this.scheduler.release(file)) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Source [" + file + "] arrived complete, converting it right away");
+            }
+        }
+    }
+
+    /**
+     * Handle an event for a temporary or marker file of the arrival protocol. Deleting a temporary
+     * file, by renaming it, or creating a marker file means that the final file is complete.
+     *
+     * @param file      The temporary or marker file
+     * @param target    The final file
+     * @param eventType The type of the event
+     */
+    private void arrived(final File file, final File target, final EventType eventType) {
+        final boolean marker = this.arrival.isMarker(file);
+        if (marker ? eventType == EventType.DELETED : eventType != EventType.DELETED) {
+            return;
+        }
+
+        if (!marker) {
+            // Recorded before releasing, so the event of the final file can't slip in between. When
+            // it was handled already, releasing it again on a later event is harmless.
+            this.arrival.deleted(file);
+        }
+        if (this.scheduler.release(target)) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Source [" + target + "] arrived complete, converting it right away");
+            }
+        }
+    }
+
+    /**
+     * Forget about the given source file, because it was deleted. Its pending and queued tasks are
+     * removed, and its conversion is cancelled when it's in progress.
+     *
+     * @param file The deleted source file
+     */
+    private void cancel(final File file) {
+        final boolean pending = this.scheduler.cancel(file);
+        final boolean queued = this.queue.remove(file);
+        this.stability.forget(file);
+        this.inspections.remove(file);
+        final ConversionJob job = this.running.get(file);
+        if (job != null) {
+            job.cancel();
+        }
 
-        final ConversionTask task = new ConversionTask(file, this.config.getFileSystemQuietTime(), TimeUnit.MILLISECONDS);
-        final boolean updated = this.queue.remove(task);
+        if ((pending || queued || job != null) && logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "Source [" + file + "] was deleted. Cancelled its conversion.");
+        }
+    }
+
+    /**
+     * Schedule the files saved in the checkpoint when the previous instance stopped
+     */
+    private void restore() {
+        final List<File> files;
+        try {
+            files = this.checkpoint.load();
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to load checkpoint : " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        int restored = 0;
+        for (final File file : files) {
+            if (file.isFile() && this.config.isWatched(file) && this.admission.admit(file)) {
+                this.scheduler.schedule(file, getQuietTime(file), TimeUnit.MILLISECONDS);
+                restored++;
+            }
+        }
+        this.checkpoint.delete();
+
+        if (!files.isEmpty() && logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, "Restored [" + restored + "] of [" + files.size() + "] files saved when stopping.");
+        }
+    }
+
+    /**
+     * Indicates if the given file, found by the startup scan, still has to be converted
+     *
+     * @param file The file
+     * @return <tt>true</tt> when the file is watched and has no output yet, <tt>false</tt> if not
+     */
+    private boolean isUnconverted(final File file) {
+        return !this.stopping && this.config.isWatched(file) && !getDestination(file).exists();
+    }
+
+    /**
+     * Schedule a file found by the startup scan, unless it's handled already because of a file
+     * system event or the checkpoint
+     *
+     * @param file The file without output
+     */
+    private void catchUp(final File file) {
+        if (this.scheduler.isPending(file) || this.running.containsKey(file) || !this.admission.admit(file)) {
+            return;
+        }
+        this.scheduler.schedule(file, getQuietTime(file), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedule the files that were spilled by the {@link AdmissionController}, once there's room
+     * for them again
+     */
+    private void readmit() {
+        List<File> files;
+        while (!(files = this.admission.readmit()).isEmpty()) {
+            for (final File file : files) {
+                if (file.isFile() && this.config.isWatched(file)) {
+                    this.scheduler.schedule(file, getQuietTime(file), TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the conversion history when it changed, so it survives a crash as well
+     */
+    private void saveHistory() {
+        if (this.history == null || !this.history.isChanged()) {
+            return;
+        }
+
+        try {
+            this.history.save();
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to save the conversion history : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Method used by the {@link DebounceScheduler} to hand over a task which is ready to be converted
+     *
+     * @param task The task which was quiet long enough
+     */
+    private void ready(final ConversionTask task) {
+        final File directory = task.getFile().getParentFile();
+        final long serviceLevel = this.config.getServiceLevel(directory);
+        if (serviceLevel > 0) {
+            task.setDueTime(task.getCreationTime() + TimeUnit.MILLISECONDS.toNanos(serviceLevel));
+        }
+
+        // Reading the file is left to the probe executor, so the caller never waits for it
+        final boolean sniff = this.sniffer != null && ContentSniffer.getExpectedFormat(task.getFile()) != null;
+        final boolean probe = this.queue.isDurationRequired() && task.getDuration() < 0;
+        if ((sniff || probe) && !this.stopping) {
+            try {
+                this.probeExecutor.submit(() -> {
+                    if (!this.stopping) {
+                        if (sniff && !isMedia(task.getFile())) {
+                            reject(task);
+                            return;
+                        }
+                        if (probe) {
+                            task.setDuration(probeDuration(task.getFile()));
+                        }
+                    }
+                    offer(task);
+                });
+            } catch (RejectedExecutionException e) {
+                offer(task); // Stopped in the mean time, so the task is saved in the checkpoint
+            }
+        } else {
+            offer(task);
+        }
+    }
+
+    /**
+     * Skip a ready task, because its content is not a media file
+     *
+     * @param task The rejected task
+     */
+    private void reject(final ConversionTask task) {
+        this.stability.forget(task.getFile());
+        final long rejected = this.rejections.incrementAndGet();
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, "Skipping [" + task.getFile() + "], its content is not a media file " +
+                    "(" + rejected + " rejected files in total)");
+        }
+    }
+
+    /**
+     * Check if the content of the given file looks like media, before starting ffmpeg for it. A
+     * file in another media format than its extension is accepted, since ffmpeg recognizes the
+     * format by the content as well.
+     *
+     * @param file The file which is ready to be converted
+     * @return <tt>false</tt> when the file has the extension of a known media format, but its
+     * content doesn't match any, <tt>true</tt> otherwise
+     */
+    private boolean isMedia(final File file) {
+        final ContentSniffer.Format expected = this.sniffer != null ? ContentSniffer.getExpectedFormat(file) : null;
+        if (expected == null) {
+            return true;
+        }
+
+        final ContentSniffer.Format format;
+        try {
+            format = this.sniffer.sniff(file);
+        } catch (IOException e) {
+            return true; // Leave it to ffmpeg to report the problem
+        }
+        if (format != null && format != expected && logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "The content of [" + file + "] is " + format + " instead of " + expected);
+        }
+        return format != null;
+    }
+
+    /**
+     * Probe the duration of the given media file
+     *
+     * @param file The media file
+     * @return The duration of the media in milliseconds, or a negative value when unknown
+     */
+    private static long probeDuration(final File file) {
+        try {
+            return new Encoder().getInfo(file).getDuration();
+        } catch (EncoderException e) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Failed to probe duration of [" + file + "] : " + e.getMessage(), e);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Put the given task on the queue of ready tasks
+     *
+     * @param task The task which is ready to be converted
+     */
+    private void offer(final ConversionTask task) {
         final boolean success = this.queue.offer(task);
         if (!success) {
             if (logger.isLoggable(Level.WARNING)) {
                 logger.log(Level.WARNING, "Failed to add task [" + task + "] to queue!");
             }
-        } else if (!updated) {
-            if (logger.isLoggable(Level.WARNING)) {
-                logger.log(Level.WARNING, "Successfully added task [" + task + "] to queue!");
-            }
         }
     }
 
     /**
-     * Method used to handle tasks in the {@link ExecutorService}
+     * Method used to handle tasks in the {@link ExecutorService}. Multiple workers run this method
+     * concurrently, all of them taking tasks from the same queue.
+     *
+     * @param workerName The name of the worker running this handler
      */
-    private void taskHandler() {
+    private void taskHandler(final String workerName) {
         try {
             while (!Thread.currentThread().isInterrupted()) {
-                final ConversionTask task = queue.take();
-                final File source = task.getFile();
-                final File destination = new File(config.getOutputDirectory(), source.getName() + ".mp3");
-                if (destination.exists()) {
-                    if (logger.isLoggable(Level.WARNING)) {
-                        logger.log(Level.WARNING, "Destination [" + destination + "] already exists. Skipping.");
+                this.limiter.acquire();
+                try {
+                    final ConversionTask task = queue.take();
+                    if (this.stopping) {
+                        offer(task); // Saved in the checkpoint
+                        break;
                     }
-                    continue;
-                }
 
-                try {
-                    if (logger.isLoggable(Level.INFO)) {
-                        logger.log(Level.INFO, "Starting to convert [" + source + "] to [" + destination + "]");
+                    final File source = task.getFile();
+                    final ConversionJob job = new ConversionJob(source, workerName);
+                    if (this.running.putIfAbsent(source, job) != null) {
+                        // The source changed while another worker is converting it. Try again later,
+                        // so the same source is never converted twice in parallel.
+                        this.scheduler.schedule(source, getQuietTime(source), TimeUnit.MILLISECONDS);
+                        continue;
                     }
 
-                    final AudioConverter converter = new AudioConverter(source, destination, AudioFormat.MP3);
-                    final boolean[] success = new boolean[1];
-                    converter.convert(p -> {
-                        if (logger.isLoggable(Level.INFO)) {
-                            logger.log(Level.INFO, source + " -> " + destination + "    " + p);
-                        }
-                        success[0] = (p == 1000);
-                    });
+                    final boolean converted;
+                    try {
+                        converted = convert(job);
+                    } finally {
+                        this.running.remove(source, job);
+                    }
+                    if (!job.isCancelled()) {
+                        this.stability.forget(source);
+                    }
 
-                    if (success[0]) {
-                        if (logger.isLoggable(Level.INFO)) {
-                            logger.log(Level.INFO, "Successfully converted [" + source + "] to [" + destination + "]");
-                        }
-                    } else {
+                    if (converted && task.hasDueTime() && System.nanoTime() - task.getDueTime() > 0) {
+                        final long misses = this.deadlineMisses.incrementAndGet();
                         if (logger.isLoggable(Level.WARNING)) {
-                            logger.log(Level.WARNING, "Converting [" + source + "] to [" + destination + "] failed!");
+                            logger.log(Level.WARNING, "Missed the deadline of [" + source + "] by " +
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.getDueTime()) + "ms " +
+                                    "(" + misses + " missed deadlines in total)");
                         }
                     }
+                } finally {
+                    this.limiter.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, "Conversion task thread [" + workerName + "] stopped.");
+            }
+        }
+    }
 
-                } catch (ConversionException e) {
-                    if (logger.isLoggable(Level.WARNING)) {
-                        logger.log(Level.WARNING, "Failed to convert [" + source + "] : " + e.getMessage(), e);
+    /**
+     * Get the time a file should be quiet before it's checked for the first time. When it's known
+     * whether the file is still being written, or when its format tells if it's complete, it's
+     * checked right after its last change.
+     *
+     * @param file The pending file
+     * @return The quiet time in milliseconds
+     */
+    private long getQuietTime(final File file) {
+        final long quietTime = this.stability.getQuietTime(file);
+        return isWriterChecked(file) || this.formats != null ? Math.min(quietTime, WRITER_CHECK_MILLIS) : quietTime;
+    }
+
+    /**
+     * Check if a pending file is complete once it's quiet. Since that takes reading the file
+     * system, the file is inspected by the {@link #inspectionExecutor}, which hands the task over
+     * or postpones it with the result. In the meantime the task is checked again regularly, in case
+     * the inspection fails.
+     *
+     * @param file The pending file
+     * @return The time in milliseconds after which the file should be checked again, unless the
+     * inspection decides before
+     */
+    private long check(final File file) {
+        final Object inspection = new Object();
+        if (this.inspections.putIfAbsent(file, inspection) == null) {
+            try {
+                this.inspectionExecutor.execute(() -> inspect(file, inspection));
+            } catch (RejectedExecutionException e) {
+                this.inspections.remove(file, inspection); // Stopped, so the file is saved in the checkpoint
+            }
+        }
+        return WRITER_CHECK_MILLIS;
+    }
+
+    /**
+     * Inspect a pending file on the {@link #inspectionExecutor}, and hand its task over when it's
+     * complete or postpone it otherwise. Nothing happens when the file changed or was deleted in
+     * the meantime, since its task was re-armed or cancelled already.
+     *
+     * @param file       The pending file
+     * @param inspection The inspection, identifying this inspection of the file
+     */
+    private void inspect(final File file, final Object inspection) {
+        long delay;
+        try {
+            delay = getCompleteness(file);
+        } catch (RuntimeException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to inspect [" + file + "], checking it again later : " + e.getMessage(), e);
+            }
+            delay = WRITER_CHECK_MILLIS;
+        }
+
+        if (!this.inspections.remove(file, inspection) || this.stopping) {
+            return;
+        }
+        if (delay > 0) {
+            this.scheduler.postpone(file, delay, TimeUnit.MILLISECONDS);
+        } else if (this.scheduler.release(file) && logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Source [" + file + "] is complete, converting it right away");
+        }
+    }
+
+    /**
+     * Check if a pending file is complete. A file which is no longer opened for writing, or which
+     * holds everything its header announced, is complete right away, otherwise it should stay
+     * unchanged long enough.
+     *
+     * @param file The pending file
+     * @return <tt>0</tt> when the file is complete, or the time in milliseconds after which the
+     * file should be checked again
+     */
+    private long getCompleteness(final File file) {
+        if (isWriterChecked(file)) {
+            switch (this.writers.getState(file)) {
+                case OPEN:
+                    return WRITER_CHECK_MILLIS;
+                case CLOSED:
+                    return 0;
+                default:
+                    break; // Not all writers can be seen
+            }
+        }
+        if (this.formats != null) {
+            switch (this.formats.getState(file)) {
+                case COMPLETE:
+                    return 0;
+                case INCOMPLETE:
+                    // Check again soon, but never wait longer than the quiet time
+                    return Math.min(this.stability.check(file), WRITER_CHECK_MILLIS);
+                default:
+                    break; // Format not supported
+            }
+        }
+        return this.stability.check(file);
+    }
+
+    /**
+     * Indicates if the writers of the given file can be checked. Writers of files in polled roots,
+     * typically on network file systems, can be on other machines.
+     *
+     * @param file The file
+     * @return <tt>true</tt> when the writers are checked
+     */
+    private boolean isWriterChecked(final File file) {
+        if (this.writers == null || !this.writers.isEnabled()) {
+            return false;
+        }
+        final WatchRoot root = this.config.getWatchRoot(file);
+        return root != null && root.getPollInterval() == 0;
+    }
+
+    /**
+     * Get the destination of the given source file. The relative path of the source below its
+     * input directory is kept in the output directory. When several roots are watched, the output
+     * of each root goes to a sub directory named after the root, so files with the same relative
+     * path in different roots don't share their destination. Package private for testing.
+     *
+     * @param source The source file
+     * @return The destination file
+     */
+    final File getDestination(final File source) {
+        File directory = this.config.getOutputDirectory();
+        final WatchRoot root = this.config.getWatchRoot(source);
+        if (root != null && this.config.getWatchRoots().size() > 1) {
+            directory = new File(directory, root.getName());
+        }
+        final File parent = source.getAbsoluteFile().getParentFile();
+        if (root != null && parent != null) {
+            final Path relative = root.getDirectory().getAbsoluteFile().toPath().normalize().relativize(parent.toPath().normalize());
+            if (!relative.toString().isEmpty()) {
+                directory = new File(directory, relative.toString());
+            }
+        }
+        return new File(directory, source.getName() + ".mp3");
+    }
+
+    /**
+     * Reuse the output of a previous conversion of the same content under another path. When the
+     * previous source doesn't exist anymore it was renamed or moved, so its output is moved along.
+     * Otherwise the source is a second link to the same content, and the output is copied.
+     *
+     * @param source      The source file
+     * @param destination The destination of the source, which doesn't exist yet
+     * @param copy        <tt>true</tt> to copy the output of a linked source, <tt>false</tt> to
+     *                    only move the output of a renamed source
+     * @return <tt>true</tt> when the output was reused, <tt>false</tt> when the source should be
+     * converted
+     */
+    private boolean reuse(final File source, final File destination, final boolean copy) {
+        final FileIdentity identity = this.history != null ? FileIdentity.of(source) : null;
+        final ConversionHistory.Entry entry = identity != null ? this.history.get(identity) : null;
+        if (entry == null || entry.getSource().equals(source) || destination.exists()) {
+            return false;
+        }
+
+        final boolean renamed = !entry.getSource().exists();
+        if (!renamed && !copy) {
+            return false;
+        }
+        try {
+            final File directory = destination.getAbsoluteFile().getParentFile();
+            if (directory != null && !directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Failed to create directory [" + directory + "]");
+            }
+            if (renamed) {
+                Files.move(entry.getDestination().toPath(), destination.toPath());
+                this.history.record(identity, source, destination);
+            } else {
+                Files.copy(entry.getDestination().toPath(), destination.toPath());
+            }
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to reuse [" + entry.getDestination() + "] for [" + source + "] : " + e.getMessage(), e);
+            }
+            return false;
+        }
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, (renamed ? "Moved [" : "Copied [") + entry.getDestination() + "] to [" + destination + "], " +
+                    "since [" + source + "] was converted before as [" + entry.getSource() + "]");
+        }
+        return true;
+    }
+
+    /**
+     * Convert the source file of the given job to the output directory, unless it was converted
+     * before. When the job is cancelled during the conversion, the incomplete output is removed.
+     *
+     * @param job The job of the file that should be converted
+     * @return <tt>true</tt> when a conversion was attempted, <tt>false</tt> when it was skipped or
+     * cancelled
+     */
+    private boolean convert(final ConversionJob job) {
+        final File source = job.getSource();
+        if (!source.isFile()) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Source [" + source + "] doesn't exist anymore. Skipping.");
+            }
+            return false;
+        }
+
+        final File destination = getDestination(source);
+        if (destination.exists()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Destination [" + destination + "] already exists. Skipping.");
+            }
+            return false;
+        }
+        if (reuse(source, destination, true)) {
+            return false;
+        }
+        final FileIdentity identity = this.history != null ? FileIdentity.of(source) : null;
+
+        final int threads = this.threadBudget.acquire();
+        final AudioConverter converter = new AudioConverter(source, destination, AudioFormat.MP3, threads);
+        if (!job.attach(converter)) {
+            this.threadBudget.release(threads);
+            return false;
+        }
+
+        try {
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, "Starting to convert [" + source + "] to [" + destination + "] using [" + threads + "] threads");
+            }
+
+            final boolean[] success = new boolean[1];
+            converter.convert(new ConversionProgressListener() {
+
+                /**
+                 * The last reported position in the source, in milliseconds
+                 */
+                private long position = 0;
+
+                @Override
+                public void state(final int progress) {
+                    if (logger.isLoggable(Level.INFO)) {
+                        logger.log(Level.INFO, source + " -> " + destination + "    " + progress);
                     }
+                    success[0] = (progress == 1000);
                 }
 
+                @Override
+                public void position(final long millis) {
+                    if (concurrencyController != null) {
+                        concurrencyController.encoded(millis - this.position);
+                    }
+                    this.position = millis;
+                }
+
+            });
+
+            if (success[0]) {
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.log(Level.INFO, "Successfully converted [" + source + "] to [" + destination + "]");
+                }
+                if (identity != null && identity.equals(FileIdentity.of(source))) {
+                    this.history.record(identity, source, destination);
+                }
+            } else if (!job.isCancelled()) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Converting [" + source + "] to [" + destination + "] failed!");
+                }
+            }
+
+        } catch (ConversionException e) {
+            if (!job.isCancelled() && logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to convert [" + source + "] : " + e.getMessage(), e);
+            }
+        } finally {
+            this.threadBudget.release(threads);
+        }
+
+        if (job.isCancelled()) {
+            if (destination.exists() && !destination.delete()) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to delete incomplete destination [" + destination + "]");
+                }
             }
-        } catch (InterruptedException e) {
             if (logger.isLoggable(Level.INFO)) {
-                logger.log(Level.INFO, "Conversion task thread stopped.");
+                logger.log(Level.INFO, "Cancelled the conversion of [" + source + "]");
             }
+            return false;
         }
+        return true;
     }
 }
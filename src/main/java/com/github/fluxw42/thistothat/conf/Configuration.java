@@ -11,14 +11,34 @@ import java.util.List;
 public interface Configuration {
 
     /**
-     * The watched input directory. Default directory is "in"
+     * The watched input directory. Default directory is "in". This directory is only watched when
+     * no other roots are configured, see {@link #getWatchRoots()}
      *
      * @return The input directory
      */
     File getInputDirectory();
 
     /**
-     * The output directory for converted files. Default directory is "out"
+     * Get the watched input roots. Each root has its own directory, weight, service level and poll
+     * interval. When no roots are configured, the result contains a single root named 'default' for
+     * the {@link #getInputDirectory()}, with weight <tt>1</tt>.
+     *
+     * @return The unmodifiable list of watched roots, never empty
+     */
+    List<WatchRoot> getWatchRoots();
+
+    /**
+     * Get the watched root containing the given file. When roots are nested, the most specific
+     * root is returned.
+     *
+     * @param file The file
+     * @return The root containing the file, or 'null' when the file is not part of any root
+     */
+    WatchRoot getWatchRoot(final File file);
+
+    /**
+     * The output directory for converted files. Default directory is "out". When more than one
+     * root is watched, the output of each root is written to a sub directory named after the root.
      *
      * @return The output directory
      */
@@ -33,6 +53,96 @@ public interface Configuration {
      */
     long getFileSystemQuietTime();
 
+    /**
+     * Indicates if the quiet time adapts itself to the pauses between the writes of the files in
+     * each input directory, between {@link #getMinQuietTime()} and {@link #getMaxQuietTime()}. The
+     * {@link #getFileSystemQuietTime()} is used until enough files were seen. Disabled by default
+     *
+     * @return <tt>true</tt> when the quiet time is adaptive, <tt>false</tt> when it's fixed
+     */
+    boolean isAdaptiveQuietTime();
+
+    /**
+     * Get the shortest quiet time when it's adaptive. The default value is <tt>500</tt>
+     * milliseconds
+     *
+     * @return The minimum quiet time in milliseconds, never negative
+     */
+    long getMinQuietTime();
+
+    /**
+     * Get the longest quiet time when it's adaptive. The default value is <tt>60000</tt>
+     * milliseconds
+     *
+     * @return The maximum quiet time in milliseconds, never less than {@link #getMinQuietTime()}
+     */
+    long getMaxQuietTime();
+
+    /**
+     * Indicates if the files are released as soon as no process has them opened for writing
+     * anymore, instead of waiting for the quiet time. Only supported on Linux, for the processes
+     * this service is allowed to inspect, and not for polled roots. Disabled by default
+     *
+     * @return <tt>true</tt> when the writers of the files are checked, <tt>false</tt> if not
+     */
+    boolean isOpenWriterCheck();
+
+    /**
+     * Indicates if the files are released as soon as they're structurally complete, according to
+     * the header of their container format, instead of waiting for the quiet time. Only supported
+     * for RIFF (WAV), Ogg and ASF (WMA) files. Disabled by default
+     *
+     * @return <tt>true</tt> when the format of the files is checked, <tt>false</tt> if not
+     */
+    boolean isFormatCheck();
+
+    /**
+     * Indicates if the content of each file is checked before it's converted. A file with the
+     * extension of a known media format, which doesn't start with the signature of any media format,
+     * is rejected without starting ffmpeg. Disabled by default
+     *
+     * @return <tt>true</tt> when the content of the files is sniffed, <tt>false</tt> if not
+     */
+    boolean isContentSniffing();
+
+    /**
+     * Indicates if the converted files are recognized by their device, inode, size and
+     * modification time, instead of only by their path. A converted file which is renamed or moved
+     * within the same file system only has its output renamed, and a link to a converted file gets
+     * a copy of its output, instead of converting them again. Only supported on file systems with
+     * unix attributes. Disabled by default
+     *
+     * @return <tt>true</tt> when the identity of the converted files is tracked, <tt>false</tt> if not
+     */
+    boolean isRenameTracking();
+
+    /**
+     * Get the suffixes of the temporary files the uploaders write to, before renaming them to their
+     * final name. A file which is renamed from a temporary file is converted right away, instead
+     * of after its quiet time. Empty by default
+     *
+     * @return The unmodifiable list of temporary file suffixes, trimmed and without the leading dot
+     */
+    List<String> getArrivalTemporarySuffixes();
+
+    /**
+     * Get the suffix of the marker files the uploaders create next to a file once it's complete,
+     * like <tt>done</tt> for <tt>foo.wav.done</tt>. A file with a marker is converted right away,
+     * instead of after its quiet time. There's no marker by default
+     *
+     * @return The marker suffix without the leading dot, or 'null' when there are no markers
+     */
+    String getArrivalMarkerSuffix();
+
+    /**
+     * Get the time file system events are collected before they're handed over as a batch. Events
+     * for the same file within this window are coalesced into a single event. The default value is
+     * <tt>50</tt> milliseconds
+     *
+     * @return The coalescing window in milliseconds
+     */
+    long getFileSystemEventWindow();
+
     /**
      * Get the list of file extensions that should be converted. If a file in the input folder
      * doesn't match any of these extensions, the file is ignored
@@ -41,6 +151,26 @@ public interface Configuration {
      */
     List<String> getWatchedExtensions();
 
+    /**
+     * Indicates if the sub directories of the input directories are watched as well. The relative
+     * path of a file below its input directory is kept in the output directory. The default value
+     * is <tt>false</tt>
+     *
+     * @return <tt>true</tt> when the input directories are watched recursively, <tt>false</tt> if not
+     */
+    boolean isRecursive();
+
+    /**
+     * Get the number of threads scanning the input directories for files which are already present
+     * at startup, like the files dropped while the service was down. The files without output are
+     * converted as if they were just created. The default value is the number of available
+     * processors
+     *
+     * @return The number of scanning threads, or <tt>0</tt> when the input directories are not
+     * scanned at startup
+     */
+    int getStartupScanThreads();
+
     /**
      * Verify if the given file matches one of the watched extensions.
      *
@@ -49,4 +179,117 @@ public interface Configuration {
      */
     boolean isWatched(final File file);
 
+    /**
+     * Get the number of conversion workers, running concurrently. Each worker converts one file at
+     * a time. The default value is the number of available processors
+     *
+     * @return The number of conversion workers, always at least <tt>1</tt>
+     */
+    int getWorkerCount();
+
+    /**
+     * Indicates if the number of concurrent conversions adapts itself to the measured throughput
+     * and system load, between {@link #getMinWorkerCount()} and {@link #getMaxWorkerCount()}. When
+     * disabled, exactly {@link #getWorkerCount()} conversions run concurrently. Disabled by default
+     *
+     * @return <tt>true</tt> when the concurrency is adaptive, <tt>false</tt> when it's fixed
+     */
+    boolean isAdaptiveConcurrency();
+
+    /**
+     * Get the minimum number of concurrent conversions when the concurrency is adaptive. The
+     * default value is <tt>1</tt>
+     *
+     * @return The minimum number of concurrent conversions, always at least <tt>1</tt>
+     */
+    int getMinWorkerCount();
+
+    /**
+     * Get the maximum number of concurrent conversions when the concurrency is adaptive. The
+     * default value is twice the number of available processors
+     *
+     * @return The maximum number of concurrent conversions, never less than
+     * {@link #getMinWorkerCount()}
+     */
+    int getMaxWorkerCount();
+
+    /**
+     * Get the interval between two adjustments of the concurrency, when the concurrency is
+     * adaptive. The default value is <tt>10000</tt> milliseconds
+     *
+     * @return The adjustment interval in milliseconds
+     */
+    long getConcurrencyInterval();
+
+    /**
+     * Get the total number of threads all concurrent ffmpeg processes may use together. Each
+     * conversion gets a share of this budget when it starts. The default value is the number of
+     * available processors
+     *
+     * @return The thread budget, at least <tt>1</tt>
+     */
+    int getThreadBudget();
+
+    /**
+     * Get the time conversions in progress get to finish when the service stops. Conversions that
+     * are still running afterwards are cancelled, and converted again on the next start. The
+     * default value is <tt>30000</tt> milliseconds
+     *
+     * @return The drain timeout in milliseconds
+     */
+    long getDrainTimeout();
+
+    /**
+     * Get the name of the policy deciding in which order ready files are converted: 'fifo' to
+     * convert them in the order they became ready, 'sjf' to convert the shortest media first and
+     * 'edf' to convert the file with the earliest deadline first. The default policy is 'fifo'
+     *
+     * @return The name of the scheduling policy
+     */
+    String getSchedulingPolicy();
+
+    /**
+     * Get the aging factor of the 'sjf' scheduling policy: the number of milliseconds media
+     * duration credited to a waiting file, for each millisecond it waits. This prevents long files
+     * from waiting forever. The default value is <tt>10</tt>
+     *
+     * @return The aging factor, never negative
+     */
+    double getSchedulingAging();
+
+    /**
+     * Get the service level for files in the given watched directory: the maximum time between the
+     * first file system event for a file and the end of its conversion. This is the service level
+     * of the root containing the directory. The default value is <tt>0</tt>, meaning there's no
+     * deadline
+     *
+     * @param directory The watched directory
+     * @return The maximum time to convert a file in milliseconds, or <tt>0</tt> when there's none
+     */
+    long getServiceLevel(final File directory);
+
+    /**
+     * The directory used to keep the working files of the application. Default directory is "work"
+     *
+     * @return The work directory
+     */
+    File getWorkDirectory();
+
+    /**
+     * Get the number of pending files at which new files are no longer admitted, but spilled to
+     * disk until the number of pending files drops to the {@link #getLowWatermark()}. The default
+     * value is <tt>100000</tt>
+     *
+     * @return The high watermark
+     */
+    int getHighWatermark();
+
+    /**
+     * Get the number of pending files at which spilled files are admitted again. The default value
+     * is half the {@link #getHighWatermark()}
+     *
+     * @return The low watermark, always lower than the high watermark
+     */
+    int getLowWatermark();
+
 }
@@ -16,6 +16,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class ConfigurationImpl extends PropertiesConfig implements Configuration {
 
+    /**
+     * The watch roots, parsed once since they're looked up for every file
+     */
+    private final List<WatchRoot> watchRoots;
+
     /**
      * Create a new this-to-that {@link Configuration} using the given config file
      *
@@ -23,6 +28,7 @@ public class ConfigurationImpl extends PropertiesConfig implements Configuration
      */
     public ConfigurationImpl(final File configFile) {
         super(configFile);
+        this.watchRoots = parseWatchRoots();
     }
 
     /**
@@ -32,6 +38,7 @@ public class ConfigurationImpl extends PropertiesConfig implements Configuration
      */
     public ConfigurationImpl(final Properties properties) {
         super(properties);
+        this.watchRoots = parseWatchRoots();
     }
 
     /**
@@ -42,6 +49,59 @@ public class ConfigurationImpl extends PropertiesConfig implements Configuration
         return new File(getStringOption("in.directory", "in"));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WatchRoot> getWatchRoots() {
+        return this.watchRoots;
+    }
+
+    /**
+     * Parse the watch roots from the configuration
+     *
+     * @return The unmodifiable list of watch roots, never empty
+     */
+    private List<WatchRoot> parseWatchRoots() {
+        final long defaultServiceLevel = Math.max(0, getLongOption("sla.ms", 0));
+        final long defaultPollInterval = Math.max(0, getLongOption("fs.poll.interval", 0));
+        final List<WatchRoot> roots = new ArrayList<>();
+        for (final String name : getStringOption("in.roots", "").split(",")) {
+            final String cleanedName = name.trim();
+            if (cleanedName.isEmpty()) {
+                continue;
+            }
+
+            final String prefix = "in." + cleanedName + ".";
+            final File directory = new File(getStringOption(prefix + "directory", cleanedName));
+            final double weight = getDoubleOption(prefix + "weight", 1);
+            final long serviceLevel = getLongOption(prefix + "sla.ms", defaultServiceLevel);
+            final long pollInterval = getLongOption(prefix + "poll.interval", defaultPollInterval);
+            roots.add(new WatchRoot(cleanedName, directory, weight > 0 ? weight : 1, Math.max(0, serviceLevel), Math.max(0, pollInterval)));
+        }
+
+        if (roots.isEmpty()) {
+            roots.add(new WatchRoot("default", getInputDirectory(), 1, defaultServiceLevel, defaultPollInterval));
+        }
+        return Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WatchRoot getWatchRoot(final File file) {
+        WatchRoot match = null;
+        for (final WatchRoot root : this.watchRoots) {
+            if (root.contains(file)) {
+                if (match == null || match.contains(root.getDirectory())) {
+                    match = root;
+                }
+            }
+        }
+        return match;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -58,6 +118,112 @@ public class ConfigurationImpl extends PropertiesConfig implements Configuration
         return getLongOption("fs.quiet.time", TimeUnit.SECONDS.toMillis(5));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAdaptiveQuietTime() {
+        return getBooleanOption("fs.quiet.adaptive", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMinQuietTime() {
+        return Math.max(0, getLongOption("fs.quiet.min", 500));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxQuietTime() {
+        return Math.max(getMinQuietTime(), getLongOption("fs.quiet.max", TimeUnit.MINUTES.toMillis(1)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOpenWriterCheck() {
+        return getBooleanOption("fs.writer.check", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFormatCheck() {
+        return getBooleanOption("fs.format.check", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isContentSniffing() {
+        return getBooleanOption("fs.sniff.content", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRenameTracking() {
+        return getBooleanOption("fs.rename.tracking", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getArrivalTemporarySuffixes() {
+        final List<String> suffixes = new ArrayList<>();
+        for (final String suffix : getStringOption("fs.arrival.temp.suffixes", "").split(",")) {
+            final String cleanedSuffix = trimDot(suffix);
+            if (!cleanedSuffix.isEmpty()) {
+                suffixes.add(cleanedSuffix);
+            }
+        }
+        return Collections.unmodifiableList(suffixes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getArrivalMarkerSuffix() {
+        final String suffix = trimDot(getStringOption("fs.arrival.marker.suffix", ""));
+        return suffix.isEmpty() ? null : suffix;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFileSystemEventWindow() {
+        return Math.max(0, getLongOption("fs.event.window", 50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRecursive() {
+        return getBooleanOption("fs.recursive", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStartupScanThreads() {
+        final int defaultThreads = Runtime.getRuntime().availableProcessors();
+        final int threads = getIntOption("fs.scan.threads", defaultThreads);
+        return threads >= 0 ? threads : defaultThreads;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -91,4 +257,128 @@ public class ConfigurationImpl extends PropertiesConfig implements Configuration
         }
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWorkerCount() {
+        final int defaultCount = Runtime.getRuntime().availableProcessors();
+        final int workerCount = getIntOption("workers.count", defaultCount);
+        return workerCount > 0 ? workerCount : defaultCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAdaptiveConcurrency() {
+        return getBooleanOption("workers.adaptive", false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinWorkerCount() {
+        return Math.max(1, getIntOption("workers.min", 1));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxWorkerCount() {
+        final int maxCount = getIntOption("workers.max", 2 * Runtime.getRuntime().availableProcessors());
+        return Math.max(getMinWorkerCount(), maxCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getConcurrencyInterval() {
+        return getLongOption("workers.adaptive.interval", TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getThreadBudget() {
+        final int defaultBudget = Runtime.getRuntime().availableProcessors();
+        final int budget = getIntOption("workers.threads", defaultBudget);
+        return budget > 0 ? budget : defaultBudget;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDrainTimeout() {
+        return Math.max(0, getLongOption("shutdown.drain.timeout", TimeUnit.SECONDS.toMillis(30)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSchedulingPolicy() {
+        return getStringOption("scheduler.policy", "fifo").trim().toLowerCase();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getSchedulingAging() {
+        return Math.max(0, getDoubleOption("scheduler.sjf.aging", 10));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getServiceLevel(final File directory) {
+        final WatchRoot root = getWatchRoot(directory);
+        return root != null ? root.getServiceLevel() : Math.max(0, getLongOption("sla.ms", 0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File getWorkDirectory() {
+        return new File(getStringOption("work.directory", "work"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHighWatermark() {
+        return Math.max(1, getIntOption("queue.high.watermark", 100000));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLowWatermark() {
+        final int highWatermark = getHighWatermark();
+        final int lowWatermark = getIntOption("queue.low.watermark", highWatermark / 2);
+        return Math.max(0, Math.min(highWatermark - 1, lowWatermark));
+    }
+
+    /**
+     * Clean up a configured file name suffix
+     *
+     * @param suffix The suffix
+     * @return The trimmed and lowercase suffix, without the leading dot
+     */
+    private static String trimDot(final String suffix) {
+        final String trimmed = suffix.trim().toLowerCase();
+        return trimmed.startsWith(".") ? trimmed.substring(1).trim() : trimmed;
+    }
+
 }
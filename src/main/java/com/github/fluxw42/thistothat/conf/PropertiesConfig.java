@@ -120,6 +120,56 @@ public abstract class PropertiesConfig {
         }
     }
 
+    /**
+     * Get a configuration value as a double by name, or the default when the given key does not
+     * exist or contains an invalid value
+     *
+     * @param key          The keyName, cannot be 'null' or empty. Any leading and trailing
+     *                     whitespace is removed from the keyname before being used
+     * @param defaultValue The default double value in case the key doesn't exist, or when the
+     *                     value could not be parsed as a double
+     * @return The double config value or the default when not found
+     * @throws IllegalArgumentException When the key is 'null' or empty
+     */
+    protected final double getDoubleOption(final String key, final double defaultValue) throws IllegalArgumentException {
+        final String value = this.properties.getProperty(validateKey(key), String.valueOf(defaultValue));
+        try {
+            return Double.valueOf(value);
+        } catch (final NumberFormatException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Unable to parse config with key [" + key + "] and value [" + value + "] " +
+                        "as double. Using default [" + defaultValue + "]", e);
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a configuration value as a boolean by name, or the default when the given key does not
+     * exist or contains an invalid value. Only 'true' and 'false' are valid values, ignoring case
+     *
+     * @param key          The keyName, cannot be 'null' or empty. Any leading and trailing
+     *                     whitespace is removed from the keyname before being used
+     * @param defaultValue The default boolean value in case the key doesn't exist, or when the
+     *                     value could not be parsed as a boolean
+     * @return The boolean config value or the default when not found
+     * @throws IllegalArgumentException When the key is 'null' or empty
+     */
+    protected final boolean getBooleanOption(final String key, final boolean defaultValue) throws IllegalArgumentException {
+        final String value = this.properties.getProperty(validateKey(key), String.valueOf(defaultValue)).trim();
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        } else if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, "Unable to parse config with key [" + key + "] and value [" + value + "] " +
+                    "as boolean. Using default [" + defaultValue + "]");
+        }
+        return defaultValue;
+    }
+
     /**
      * Get a configuration value as a {@link String} by name, or the default when the given key does
      * not exist.
@@ -0,0 +1,184 @@
+package com.github.fluxw42.thistothat.conf;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A watched input directory, together with the rules for the files in it
+ * <p>
+ * Date: 10/18/26 - 6:10 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public final class WatchRoot {
+
+    /**
+     * The name of the root, as used in the configuration
+     */
+    private final String name;
+
+    /**
+     * The watched directory
+     */
+    private final File directory;
+
+    /**
+     * The absolute and normalized path of the watched directory
+     */
+    private final Path path;
+
+    /**
+     * The relative share of the conversion workers this root is entitled to
+     */
+    private final double weight;
+
+    /**
+     * The maximum time to convert a file in this root in milliseconds, or 0 when there's none
+     */
+    private final long serviceLevel;
+
+    /**
+     * The interval in milliseconds between polls of the directory, or 0 to use the watch service of
+     * the file system
+     */
+    private final long pollInterval;
+
+    /**
+     * Create a new watch root, watched using the watch service of the file system
+     *
+     * @param name         The name of the root, cannot be 'null'
+     * @param directory    The watched directory, cannot be 'null'
+     * @param weight       The relative share of the conversion workers this root is entitled to
+     * @param serviceLevel The maximum time to convert a file in milliseconds, or <tt>0</tt> when
+     *                     there's no deadline
+     * @throws IllegalArgumentException When the weight is not positive or the service level is
+     *                                  negative
+     */
+    public WatchRoot(final String name, final File directory, final double weight, final long serviceLevel) throws IllegalArgumentException {
+        this(name, directory, weight, serviceLevel, 0);
+    }
+
+    /**
+     * Create a new watch root
+     *
+     * @param name         The name of the root, cannot be 'null'
+     * @param directory    The watched directory, cannot be 'null'
+     * @param weight       The relative share of the conversion workers this root is entitled to
+     * @param serviceLevel The maximum time to convert a file in milliseconds, or <tt>0</tt> when
+     *                     there's no deadline
+     * @param pollInterval The interval between polls of the directory in milliseconds, or
+     *                     <tt>0</tt> to use the watch service of the file system
+     * @throws IllegalArgumentException When the weight is not positive, or the service level or poll
+     *                                  interval is negative
+     */
+    public WatchRoot(final String name, final File directory, final double weight, final long serviceLevel,
+                     final long pollInterval) throws IllegalArgumentException {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight of root [" + name + "] should be positive, but was [" + weight + "]");
+        }
+        if (serviceLevel < 0) {
+            throw new IllegalArgumentException("Service level of root [" + name + "] cannot be negative, but was [" + serviceLevel + "]");
+        }
+        if (pollInterval < 0) {
+            throw new IllegalArgumentException("Poll interval of root [" + name + "] cannot be negative, but was [" + pollInterval + "]");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.directory = Objects.requireNonNull(directory);
+        this.path = directory.getAbsoluteFile().toPath().normalize();
+        this.weight = weight;
+        this.serviceLevel = serviceLevel;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Get the name of the root, as used in the configuration
+     *
+     * @return The name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the watched directory
+     *
+     * @return The directory
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Get the relative share of the conversion workers this root is entitled to, when files of
+     * multiple roots are waiting to be converted
+     *
+     * @return The weight, always positive
+     */
+    public double getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Get the maximum time between the first file system event for a file in this root and the
+     * end of its conversion
+     *
+     * @return The service level in milliseconds, or <tt>0</tt> when there's no deadline
+     */
+    public long getServiceLevel() {
+        return this.serviceLevel;
+    }
+
+    /**
+     * Get the interval between polls of the directory. Polling is used for network file systems,
+     * where the watch service of the file system doesn't see changes made by other hosts.
+     *
+     * @return The poll interval in milliseconds, or <tt>0</tt> when the watch service of the file
+     * system is used
+     */
+    public long getPollInterval() {
+        return this.pollInterval;
+    }
+
+    /**
+     * Indicates if the given file is located in the directory of this root, or one of its
+     * sub directories
+     *
+     * @param file The file
+     * @return <tt>true</tt> when the file is part of this root, <tt>false</tt> if not
+     */
+    public boolean contains(final File file) {
+        if (file == null) {
+            return false;
+        }
+        return file.getAbsoluteFile().toPath().normalize().startsWith(this.path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WatchRoot)) return false;
+        WatchRoot that = (WatchRoot) o;
+        return Objects.equals(name, that.name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WatchRoot{name='" + name + "', directory=" + directory + ", weight=" + weight + ", serviceLevel=" + serviceLevel + ", pollInterval=" + pollInterval + "}";
+    }
+
+}
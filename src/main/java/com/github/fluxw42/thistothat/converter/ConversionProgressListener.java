@@ -9,4 +9,13 @@ public interface ConversionProgressListener {
 
     void state(final int progress);
 
+    /**
+     * Called each time the conversion advanced in the input file. Listeners only interested in
+     * the progress can ignore this.
+     *
+     * @param millis The position in the input media that was converted, in milliseconds
+     */
+    default void position(final long millis) {
+    }
+
 }
@@ -41,6 +41,13 @@ public abstract class Converter {
      */
     public abstract void convert(final ConversionProgressListener listener) throws ConversionException;
 
+    /**
+     * Cancel the conversion. When the conversion is in progress, it's stopped as soon as possible
+     * and {@link #convert(ConversionProgressListener)} fails with a {@link ConversionException}.
+     * A cancelled converter cannot be used anymore. This method can be called from any thread.
+     */
+    public abstract void cancel();
+
     /**
      * Get the input file
      *
@@ -31,6 +31,16 @@ public class AudioConverter extends Converter {
      */
     private final AudioFormat format;
 
+    /**
+     * The encoder doing the actual conversion
+     */
+    private final Encoder encoder = new Encoder();
+
+    /**
+     * The number of threads the conversion may use, or 0 when the encoder decides
+     */
+    private final int threads;
+
     /**
      * Create a new audio converter to convert the input file to the given {@link AudioFormat}
      *
@@ -39,8 +49,23 @@ public class AudioConverter extends Converter {
      * @param format     The expected output format
      */
     public AudioConverter(final File inputFile, final File outputFile, final AudioFormat format) {
+        this(inputFile, outputFile, format, 0);
+    }
+
+    /**
+     * Create a new audio converter to convert the input file to the given {@link AudioFormat},
+     * using at most the given number of threads
+     *
+     * @param inputFile  The input audio file
+     * @param outputFile The output audio file
+     * @param format     The expected output format
+     * @param threads    The number of threads the conversion may use, or <tt>0</tt> to let the
+     *                   encoder decide
+     */
+    public AudioConverter(final File inputFile, final File outputFile, final AudioFormat format, final int threads) {
         super(inputFile, outputFile);
         this.format = format;
+        this.threads = threads;
     }
 
     /**
@@ -51,9 +76,12 @@ public class AudioConverter extends Converter {
             final EncodingAttributes attributes = new EncodingAttributes();
             attributes.setAudioAttributes(new AudioAttributes());
             attributes.setFormat(this.format.getName());
+            if (this.threads > 0) {
+                attributes.setThreads(this.threads);
+                attributes.setFilterThreads(this.threads);
+            }
 
-            final Encoder encoder = new Encoder();
-            encoder.encode(
+            this.encoder.encode(
                     getInputFile(),
                     getOutputFile(),
                     attributes,
@@ -64,6 +92,14 @@ public class AudioConverter extends Converter {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancel() {
+        this.encoder.abort();
+    }
+
     /**
      * Map the given {@link ConversionProgressListener} to a JAVE {@link EncoderProgressListener}
      *
@@ -91,6 +127,15 @@ public class AudioConverter extends Converter {
                 }
             }
 
+            /**
+             * {@inheritDoc}
+             */
+            public final void position(long millis) {
+                if (listener != null) {
+                    listener.position(millis);
+                }
+            }
+
             /**
              * {@inheritDoc}
              */
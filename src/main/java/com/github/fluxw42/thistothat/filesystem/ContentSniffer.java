@@ -0,0 +1,241 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recognizes the media format of a file by the signature at the start of its content, without
+ * spawning an external process. A file which doesn't look like media at all, like a text file
+ * with a media extension, can be rejected before ffmpeg is started for it.
+ * <p>
+ * Only the first few kilobytes of a file are read, into a direct buffer which is reused by each
+ * thread sniffing files.
+ * <p>
+ * Date: 10/19/26 - 6:10 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ContentSniffer {
+
+    /**
+     * The number of bytes read from the start of each file
+     */
+    private static final int SNIFF_SIZE = 4096;
+
+    /**
+     * The size of the header of an ID3v2 tag
+     */
+    private static final int ID3_HEADER_SIZE = 10;
+
+    /**
+     * The media formats recognized by their signature
+     */
+    public enum Format {
+
+        /**
+         * RIFF, RIFX or RF64 wave files
+         */
+        WAV("wav"),
+
+        /**
+         * Audio interchange files, compressed or not
+         */
+        AIFF("aif", "aiff", "aifc"),
+
+        /**
+         * Ogg streams, like Vorbis, Opus or FLAC in Ogg
+         */
+        OGG("ogg", "oga", "opus", "spx"),
+
+        /**
+         * Advanced systems format files, like WMA
+         */
+        ASF("wma", "asf", "wmv"),
+
+        /**
+         * Native FLAC files
+         */
+        FLAC("flac"),
+
+        /**
+         * MPEG-4 files, like AAC or ALAC in MP4
+         */
+        MP4("m4a", "m4b", "mp4"),
+
+        /**
+         * Raw AAC streams with ADTS headers
+         */
+        AAC("aac"),
+
+        /**
+         * MPEG audio streams, like MP3
+         */
+        MP3("mp3", "mp2");
+
+        /**
+         * The extensions of the files in this format, in lower case
+         */
+        private final List<String> extensions;
+
+        /**
+         * Create a new {@link Format} instance with the given extensions
+         *
+         * @param extensions The extensions, in lower case and without the leading dot
+         */
+        Format(final String... extensions) {
+            this.extensions = Arrays.asList(extensions);
+        }
+
+        /**
+         * Get the extensions of the files in this format
+         *
+         * @return The extensions, in lower case and without the leading dot
+         */
+        public final List<String> getExtensions() {
+            return this.extensions;
+        }
+
+    }
+
+    /**
+     * The buffer of each thread, reused for every file sniffed by that thread
+     */
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(SNIFF_SIZE));
+
+    /**
+     * Get the format a file should have according to its extension
+     *
+     * @param file The file, cannot be 'null'
+     * @return The expected format, or 'null' when the extension isn't known
+     */
+    public static Format getExpectedFormat(final File file) {
+        final String name = file.getName();
+        final int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        final String extension = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        for (final Format format : Format.values()) {
+            if (format.extensions.contains(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recognize the format of the given file by its content
+     *
+     * @param file The file, cannot be 'null'
+     * @return The format of the content, or 'null' when the content doesn't look like media
+     * @throws IOException When the file could not be read
+     */
+    public final Format sniff(final File file) throws IOException {
+        final ByteBuffer buffer = this.buffers.get();
+        buffer.clear();
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        return sniff(buffer, 0);
+    }
+
+    /**
+     * Recognize the format of the content starting at the given offset
+     *
+     * @param buffer The start of the file
+     * @param offset The offset of the content
+     * @return The format of the content, or 'null' when the content doesn't look like media
+     */
+    private static Format sniff(final ByteBuffer buffer, final int offset) {
+        final int length = buffer.limit() - offset;
+        if (length >= 12) {
+            final String magic = FormatCompletenessCheck.ascii(buffer, offset);
+            final String type = FormatCompletenessCheck.ascii(buffer, offset + 8);
+            if ((magic.equals("RIFF") || magic.equals("RIFX") || magic.equals("RF64")) && type.equals("WAVE")) {
+                return Format.WAV;
+            }
+            if (magic.equals("FORM") && (type.equals("AIFF") || type.equals("AIFC"))) {
+                return Format.AIFF;
+            }
+            if (FormatCompletenessCheck.ascii(buffer, offset + 4).equals("ftyp")) {
+                return Format.MP4;
+            }
+        }
+        if (length >= 4) {
+            final String magic = FormatCompletenessCheck.ascii(buffer, offset);
+            if (magic.equals("OggS")) {
+                return Format.OGG;
+            }
+            if (magic.equals("fLaC")) {
+                return Format.FLAC;
+            }
+        }
+        if (FormatCompletenessCheck.matches(buffer, offset, FormatCompletenessCheck.ASF_HEADER)) {
+            return Format.ASF;
+        }
+
+        if (length >= ID3_HEADER_SIZE && FormatCompletenessCheck.ascii(buffer, offset).startsWith("ID3")) {
+            // Tagged stream, the actual content follows the tag
+            final int size = (buffer.get(offset + 6) & 0x7F) << 21 | (buffer.get(offset + 7) & 0x7F) << 14
+                    | (buffer.get(offset + 8) & 0x7F) << 7 | (buffer.get(offset + 9) & 0x7F);
+            final int content = offset + ID3_HEADER_SIZE + size;
+            if (content < 0 || content + 4 > buffer.limit()) {
+                return Format.MP3; // Tag larger than the sniffed part, assume the usual
+            }
+            final Format format = sniff(buffer, content);
+            return format != null ? format : Format.MP3;
+        }
+
+        // Untagged streams may start with some garbage before the first frame
+        for (int i = offset; i + 4 <= buffer.limit(); i++) {
+            if (isAdtsHeader(buffer, i)) {
+                return Format.AAC;
+            }
+            if (isMpegAudioHeader(buffer, i)) {
+                return Format.MP3;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if an AAC frame with an ADTS header starts at the given offset
+     *
+     * @param buffer The buffer
+     * @param offset The offset, with at least four bytes remaining
+     * @return <tt>true</tt> when the bytes are a valid ADTS header
+     */
+    private static boolean isAdtsHeader(final ByteBuffer buffer, final int offset) {
+        return (buffer.get(offset) & 0xFF) == 0xFF && (buffer.get(offset + 1) & 0xF6) == 0xF0
+                && (buffer.get(offset + 2) >> 2 & 0x0F) < 13;
+    }
+
+    /**
+     * Check if an MPEG audio frame starts at the given offset
+     *
+     * @param buffer The buffer
+     * @param offset The offset, with at least four bytes remaining
+     * @return <tt>true</tt> when the bytes are a valid MPEG audio frame header
+     */
+    private static boolean isMpegAudioHeader(final ByteBuffer buffer, final int offset) {
+        final int second = buffer.get(offset + 1) & 0xFF;
+        final int third = buffer.get(offset + 2) & 0xFF;
+        return (buffer.get(offset) & 0xFF) == 0xFF && (second & 0xE0) == 0xE0
+                && (second >> 3 & 0x03) != 0x01 // Reserved version
+                && (second >> 1 & 0x03) != 0x00 // Reserved layer
+                && (third >> 4) != 0x0F         // Bad bitrate
+                && (third >> 2 & 0x03) != 0x03; // Reserved sample rate
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finds the files which are already present in a directory tree, for instance the files dropped in
+ * an input directory while the service was down.
+ * <p>
+ * The tree is walked in parallel: each directory is listed by a fork join task, which forks a new
+ * task for each of its sub directories. The files passing the filter are handed to the consumer
+ * as soon as they're found, from the scanning threads, so they can be processed long before the
+ * scan of a large tree is finished.
+ * <p>
+ * Date: 10/18/26 - 11:48 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DirectoryScanner {
+
+    /**
+     * The logger for class DirectoryScanner
+     */
+    private static final Logger logger = Logger.getLogger(DirectoryScanner.class.getName());
+
+    /**
+     * The pool running the scan tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a new directory scanner
+     *
+     * @param parallelism The number of threads listing directories, at least <tt>1</tt>
+     * @throws IllegalArgumentException When the parallelism is less than <tt>1</tt>
+     */
+    public DirectoryScanner(final int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be at least 1, but was [" + parallelism + "]");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Scan the given directory in the background
+     *
+     * @param directory The directory to scan, cannot be 'null'
+     * @param recursive <tt>true</tt> to scan the whole tree below the directory, <tt>false</tt> to
+     *                  only scan the directory itself
+     * @param filter    Selects the files to hand over to the consumer, cannot be 'null'
+     * @param consumer  Receives the selected files as soon as they're found, possibly from multiple
+     *                  threads at the same time, cannot be 'null'
+     * @return The future number of files handed to the consumer, once the scan is finished
+     */
+    public final CompletableFuture<Long> scan(final File directory, final boolean recursive, final Predicate<File> filter,
+                                              final Consumer<File> consumer) {
+        final ScanTask task = new ScanTask(Objects.requireNonNull(directory).toPath(), recursive,
+                Objects.requireNonNull(filter), Objects.requireNonNull(consumer));
+        return CompletableFuture.supplyAsync(task::invoke, this.pool);
+    }
+
+    /**
+     * Stop the scans in progress. Directories which weren't listed yet are skipped.
+     */
+    public final void stop() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * The task listing a single directory, and forking a task for each of its sub directories
+     */
+    private final class ScanTask extends RecursiveTask<Long> {
+
+        /**
+         * The serial version UID needed because {@link RecursiveTask} implements {@link java.io.Serializable}
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The directory to list
+         */
+        private final Path directory;
+
+        /**
+         * Indicates if the sub directories should be scanned as well
+         */
+        private final boolean recursive;
+
+        /**
+         * Selects the files to hand over to the consumer
+         */
+        private final Predicate<File> filter;
+
+        /**
+         * Receives the selected files
+         */
+        private final Consumer<File> consumer;
+
+        /**
+         * Create a new scan task
+         *
+         * @param directory The directory to list
+         * @param recursive Indicates if the sub directories should be scanned as well
+         * @param filter    Selects the files to hand over to the consumer
+         * @param consumer  Receives the selected files
+         */
+        private ScanTask(final Path directory, final boolean recursive, final Predicate<File> filter, final Consumer<File> consumer) {
+            this.directory = directory;
+            this.recursive = recursive;
+            this.filter = filter;
+            this.consumer = consumer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Long compute() {
+            if (DirectoryScanner.this.pool.isShutdown()) {
+                return 0L;
+            }
+
+            long count = 0;
+            final List<ScanTask> subTasks = new ArrayList<>();
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+                for (final Path path : stream) {
+                    if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        if (this.recursive) {
+                            final ScanTask subTask = new ScanTask(path, true, this.filter, this.consumer);
+                            subTask.fork();
+                            subTasks.add(subTask);
+                        }
+                    } else {
+                        final File file = path.toFile();
+                        if (this.filter.test(file)) {
+                            this.consumer.accept(file);
+                            count++;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to scan directory [" + this.directory + "] : " + e.getMessage());
+                }
+            }
+
+            for (final ScanTask subTask : subTasks) {
+                try {
+                    count += subTask.join();
+                } catch (CancellationException e) {
+                    // The scanner was stopped before the sub directory was scanned
+                }
+            }
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,472 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable, compact record of the entries in a single directory: their name, size and last
+ * modification time. Comparing two snapshots of the same directory gives the entries that were
+ * created, modified or deleted in between.
+ * <p>
+ * Instead of a {@link java.io.File} per entry, the entries are stored in a few parallel arrays,
+ * sorted by the hash of their name. The names themselves are kept as UTF-8 in a single byte array.
+ * Known changes are applied with {@link #update(Map)}, which merges them into a new snapshot
+ * instead of listing the directory again.
+ * A snapshot of a million entries takes about 28 bytes per entry plus the length of its name,
+ * without any per entry object overhead.
+ * <p>
+ * Date: 10/18/26 - 9:41 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public final class DirectorySnapshot {
+
+    /**
+     * The size recorded for directories, which have no meaningful size
+     */
+    private static final long DIRECTORY = -1;
+
+    /**
+     * The size and modification time recorded for entries of which they are not known
+     */
+    private static final long UNKNOWN = -2;
+
+    /**
+     * The size marking a deleted entry while applying changes, never present in a snapshot
+     */
+    private static final long REMOVED = -3;
+
+    /**
+     * The snapshot of an empty directory
+     */
+    private static final DirectorySnapshot EMPTY = new DirectorySnapshot(0, new long[0], new long[0], new long[0], new int[1], new byte[0]);
+
+    /**
+     * The number of entries
+     */
+    private final int count;
+
+    /**
+     * The hashes of the entry names, sorted
+     */
+    private final long[] hashes;
+
+    /**
+     * The size of each entry, {@link #DIRECTORY} for directories or {@link #UNKNOWN}
+     */
+    private final long[] sizes;
+
+    /**
+     * The last modification time of each entry, in milliseconds since the epoch, or
+     * {@link #UNKNOWN}
+     */
+    private final long[] modified;
+
+    /**
+     * The offset of the name of each entry in {@link #names}, with the total length at the end
+     */
+    private final int[] offsets;
+
+    /**
+     * The UTF-8 encoded names of all entries
+     */
+    private final byte[] names;
+
+    /**
+     * Create a new snapshot
+     *
+     * @param count    The number of entries
+     * @param hashes   The sorted name hashes
+     * @param sizes    The entry sizes
+     * @param modified The last modification times
+     * @param offsets  The name offsets
+     * @param names    The UTF-8 encoded names
+     */
+    private DirectorySnapshot(final int count, final long[] hashes, final long[] sizes, final long[] modified, final int[] offsets,
+                              final byte[] names) {
+        this.count = count;
+        this.hashes = hashes;
+        this.sizes = sizes;
+        this.modified = modified;
+        this.offsets = offsets;
+        this.names = names;
+    }
+
+    /**
+     * Get the snapshot of an empty directory, to compare the first snapshot of a directory with
+     *
+     * @return The empty snapshot
+     */
+    public static DirectorySnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Take a snapshot of the entries currently in the given directory. Sub directories are
+     * recorded, but not their contents.
+     *
+     * @param directory The directory
+     * @return The snapshot
+     * @throws IOException When the directory could not be listed
+     */
+    public static DirectorySnapshot of(final Path directory) throws IOException {
+        final Builder builder = new Builder();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (final Path path : stream) {
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue; // Deleted while listing
+                }
+
+                final byte[] name = path.getFileName().toString().getBytes(StandardCharsets.UTF_8);
+                builder.add(name, 0, name.length, attributes.isDirectory() ? DIRECTORY : attributes.size(),
+                        attributes.lastModifiedTime().toMillis());
+            }
+        }
+        return builder.build(true);
+    }
+
+    /**
+     * Get a copy of this snapshot with the given changes applied, without listing the directory
+     * again. The size and modification time of a changed entry are unknown, so a later
+     * {@link #diff(DirectorySnapshot, BiConsumer)} doesn't report it as modified until it was
+     * listed again.
+     *
+     * @param changes The names of the changed entries, mapped to <tt>true</tt> when the entry
+     *                exists and to <tt>false</tt> when it was deleted
+     * @return The updated snapshot, or this snapshot when there are no changes
+     */
+    public DirectorySnapshot update(final Map<String, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+
+        final Builder builder = new Builder();
+        for (final Map.Entry<String, Boolean> change : changes.entrySet()) {
+            final byte[] name = change.getKey().getBytes(StandardCharsets.UTF_8);
+            builder.add(name, 0, name.length, change.getValue() ? UNKNOWN : REMOVED, UNKNOWN);
+        }
+        final DirectorySnapshot updates = builder.build(true);
+
+        // Merge the sorted entries with the sorted changes, which keeps the result sorted
+        final Builder merged = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < size() || j < updates.size()) {
+            final int result;
+            if (i == size()) {
+                result = 1;
+            } else if (j == updates.size()) {
+                result = -1;
+            } else {
+                result = compare(this, i, updates, j);
+            }
+
+            if (result < 0) {
+                merged.add(this, i);
+                i++;
+            } else {
+                if (updates.sizes[j] != REMOVED) {
+                    merged.add(updates, j);
+                }
+                if (result == 0) {
+                    i++;
+                }
+                j++;
+            }
+        }
+        return merged.build(false);
+    }
+
+    /**
+     * Get the number of entries in this snapshot
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Get the names of the sub directories in this snapshot
+     *
+     * @return The names of the directories
+     */
+    public List<String> getDirectories() {
+        final List<String> directories = new ArrayList<>();
+        for (int i = 0; i < this.count; i++) {
+            if (this.sizes[i] == DIRECTORY) {
+                directories.add(getName(i));
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Compare this snapshot with a newer snapshot of the same directory, and report the entries
+     * that were created, modified or deleted in between. An entry is modified when its size or
+     * last modification time changed, as far as both snapshots know them. Changes to the contents of
+     * sub directories are not reported.
+     *
+     * @param newer    The newer snapshot
+     * @param consumer Receives the name of each changed entry, with the type of change
+     */
+    public void diff(final DirectorySnapshot newer, final BiConsumer<String, EventType> consumer) {
+        int i = 0;
+        int j = 0;
+        while (i < size() || j < newer.size()) {
+            final int result;
+            if (i == size()) {
+                result = 1;
+            } else if (j == newer.size()) {
+                result = -1;
+            } else {
+                result = compare(this, i, newer, j);
+            }
+
+            if (result < 0) {
+                consumer.accept(getName(i), EventType.DELETED);
+                i++;
+            } else if (result > 0) {
+                consumer.accept(newer.getName(j), EventType.CREATED);
+                j++;
+            } else {
+                final boolean directory = this.sizes[i] == DIRECTORY && newer.sizes[j] == DIRECTORY;
+                final boolean unknown = this.modified[i] == UNKNOWN || newer.modified[j] == UNKNOWN;
+                if (!directory && !unknown && (this.sizes[i] != newer.sizes[j] || this.modified[i] != newer.modified[j])) {
+                    consumer.accept(newer.getName(j), EventType.MODIFIED);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Get the name of the entry at the given index
+     *
+     * @param index The index of the entry
+     * @return The name
+     */
+    private String getName(final int index) {
+        return new String(this.names, this.offsets[index], this.offsets[index + 1] - this.offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare an entry of one snapshot with an entry of another one. Entries are ordered by the hash
+     * of their name, and by name when the hashes collide.
+     *
+     * @param first       The first snapshot
+     * @param firstIndex  The index of the entry in the first snapshot
+     * @param second      The second snapshot
+     * @param secondIndex The index of the entry in the second snapshot
+     * @return A negative number, zero or a positive number when the first entry comes before, is the
+     * same as or comes after the second entry
+     */
+    private static int compare(final DirectorySnapshot first, final int firstIndex, final DirectorySnapshot second, final int secondIndex) {
+        final int result = Long.compare(first.hashes[firstIndex], second.hashes[secondIndex]);
+        if (result != 0) {
+            return result;
+        }
+        return compareNames(first.names, first.offsets[firstIndex], first.offsets[firstIndex + 1],
+                second.names, second.offsets[secondIndex], second.offsets[secondIndex + 1]);
+    }
+
+    /**
+     * Sort the given index of the entries of a snapshot, using a bottom up merge sort
+     *
+     * @param snapshot The snapshot, with its entries in any order
+     * @param order    The indexes of the entries, sorted in place
+     */
+    private static void sort(final DirectorySnapshot snapshot, final int[] order) {
+        int[] source = order;
+        int[] target = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int low = 0; low < order.length; low += 2 * width) {
+                final int middle = Math.min(low + width, order.length);
+                final int high = Math.min(low + 2 * width, order.length);
+                int left = low;
+                int right = middle;
+                for (int k = low; k < high; k++) {
+                    if (left < middle && (right >= high || compare(snapshot, source[left], snapshot, source[right]) <= 0)) {
+                        target[k] = source[left++];
+                    } else {
+                        target[k] = source[right++];
+                    }
+                }
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, order.length);
+        }
+    }
+
+    /**
+     * Compare two UTF-8 encoded names byte by byte
+     *
+     * @param a      The bytes containing the first name
+     * @param aStart The start of the first name
+     * @param aEnd   The end of the first name
+     * @param b      The bytes containing the second name
+     * @param bStart The start of the second name
+     * @param bEnd   The end of the second name
+     * @return A negative number, zero or a positive number when the first name comes before, is the
+     * same as or comes after the second name
+     */
+    private static int compareNames(final byte[] a, final int aStart, final int aEnd, final byte[] b, final int bStart, final int bEnd) {
+        final int length = Math.min(aEnd - aStart, bEnd - bStart);
+        for (int k = 0; k < length; k++) {
+            final int result = Integer.compare(a[aStart + k] & 0xff, b[bStart + k] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(aEnd - aStart, bEnd - bStart);
+    }
+
+    /**
+     * Calculate the 64 bit FNV-1a hash of the given name
+     *
+     * @param name  The bytes containing the UTF-8 encoded name
+     * @param start The start of the name
+     * @param end   The end of the name
+     * @return The hash
+     */
+    private static long hash(final byte[] name, final int start, final int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int k = start; k < end; k++) {
+            hash ^= name[k] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Collects the entries of a new snapshot, growing its arrays as needed
+     */
+    private static final class Builder {
+
+        /**
+         * The number of entries added so far
+         */
+        private int count = 0;
+
+        /**
+         * The hashes of the entry names, in the order they were added
+         */
+        private long[] hashes = new long[16];
+
+        /**
+         * The size of each entry
+         */
+        private long[] sizes = new long[16];
+
+        /**
+         * The last modification time of each entry
+         */
+        private long[] modified = new long[16];
+
+        /**
+         * The offset of the name of each entry in {@link #names}, with the total length at the end
+         */
+        private int[] offsets = new int[17];
+
+        /**
+         * The UTF-8 encoded names of the entries
+         */
+        private byte[] names = new byte[256];
+
+        /**
+         * Add a copy of an entry of another snapshot
+         *
+         * @param snapshot The snapshot
+         * @param index    The index of the entry in the snapshot
+         */
+        private void add(final DirectorySnapshot snapshot, final int index) {
+            add(snapshot.names, snapshot.offsets[index], snapshot.offsets[index + 1], snapshot.sizes[index], snapshot.modified[index]);
+        }
+
+        /**
+         * Add an entry
+         *
+         * @param name     The bytes containing the UTF-8 encoded name
+         * @param start    The start of the name
+         * @param end      The end of the name
+         * @param size     The size of the entry
+         * @param modified The last modification time of the entry
+         */
+        private void add(final byte[] name, final int start, final int end, final long size, final long modified) {
+            final int length = end - start;
+            if (this.count == this.hashes.length) {
+                this.hashes = Arrays.copyOf(this.hashes, this.count * 2);
+                this.sizes = Arrays.copyOf(this.sizes, this.count * 2);
+                this.modified = Arrays.copyOf(this.modified, this.count * 2);
+                this.offsets = Arrays.copyOf(this.offsets, this.count * 2 + 1);
+            }
+            if (this.offsets[this.count] + length > this.names.length) {
+                this.names = Arrays.copyOf(this.names, Math.max(this.names.length * 2, this.offsets[this.count] + length));
+            }
+
+            this.hashes[this.count] = hash(name, start, end);
+            this.sizes[this.count] = size;
+            this.modified[this.count] = modified;
+            System.arraycopy(name, start, this.names, this.offsets[this.count], length);
+            this.offsets[this.count + 1] = this.offsets[this.count] + length;
+            this.count++;
+        }
+
+        /**
+         * Build the snapshot, copying the entries to arrays of the exact size
+         *
+         * @param sort <tt>true</tt> to sort the entries, <tt>false</tt> when they were added in order
+         * @return The snapshot
+         */
+        private DirectorySnapshot build(final boolean sort) {
+            if (this.count == 0) {
+                return EMPTY;
+            }
+
+            final int[] order = new int[this.count];
+            for (int i = 0; i < this.count; i++) {
+                order[i] = i;
+            }
+            if (sort) {
+                sort(new DirectorySnapshot(this.count, this.hashes, this.sizes, this.modified, this.offsets, this.names), order);
+            }
+
+            final DirectorySnapshot sorted = new DirectorySnapshot(this.count, new long[this.count], new long[this.count],
+                    new long[this.count], new int[this.count + 1], new byte[this.offsets[this.count]]);
+            int offset = 0;
+            for (int i = 0; i < this.count; i++) {
+                final int index = order[i];
+                final int length = this.offsets[index + 1] - this.offsets[index];
+                sorted.hashes[i] = this.hashes[index];
+                sorted.sizes[i] = this.sizes[index];
+                sorted.modified[i] = this.modified[index];
+                sorted.offsets[i] = offset;
+                System.arraycopy(this.names, this.offsets[index], sorted.names, offset, length);
+                offset += length;
+            }
+            sorted.offsets[this.count] = offset;
+            return sorted;
+        }
+
+    }
+
+}
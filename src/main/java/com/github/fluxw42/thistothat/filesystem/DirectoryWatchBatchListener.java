@@ -0,0 +1,25 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.util.List;
+
+/**
+ * A {@link DirectoryWatchListener} receiving the changes in a watched folder in batches, instead
+ * of one call per change. When registered, the {@link DirectoryWatchService} calls
+ * {@link #updated(List)} instead of {@link #updated(java.io.File, EventType)}.
+ * <p>
+ * Date: 10/18/26 - 9:16 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public interface DirectoryWatchBatchListener extends DirectoryWatchListener {
+
+    /**
+     * This method gets called by the {@link DirectoryWatchService} with the files in a watched
+     * folder that got created, modified or deleted since the previous batch. Each file occurs at
+     * most once per batch, in the order of their first change.
+     *
+     * @param events The coalesced changes, never empty
+     */
+    void updated(final List<DirectoryWatchEvent> events);
+
+}
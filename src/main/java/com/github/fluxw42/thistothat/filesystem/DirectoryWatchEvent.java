@@ -0,0 +1,83 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * A change of a file in a watched directory. Multiple file system events for the same file, which
+ * happened shortly after each other, are coalesced into a single event. For example, a file being
+ * created and then written results in a single {@link EventType#CREATED} event.
+ * <p>
+ * Date: 10/18/26 - 9:12 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public final class DirectoryWatchEvent {
+
+    /**
+     * The changed file
+     */
+    private final File file;
+
+    /**
+     * The type of change
+     */
+    private final EventType type;
+
+    /**
+     * Create a new event
+     *
+     * @param file The changed file, cannot be 'null'
+     * @param type The type of change, cannot be 'null'
+     */
+    public DirectoryWatchEvent(final File file, final EventType type) {
+        this.file = Objects.requireNonNull(file);
+        this.type = Objects.requireNonNull(type);
+    }
+
+    /**
+     * Get the changed file
+     *
+     * @return The file
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Get the type of change
+     *
+     * @return The event type
+     */
+    public EventType getType() {
+        return this.type;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DirectoryWatchEvent)) return false;
+        DirectoryWatchEvent that = (DirectoryWatchEvent) o;
+        return Objects.equals(file, that.file) && type == that.type;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(file, type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DirectoryWatchEvent{file=" + file + ", type=" + type + "}";
+    }
+
+}
@@ -53,6 +53,43 @@ public interface DirectoryWatchService {
      */
     void addListener(final File directory, final DirectoryWatchListener listener) throws IllegalArgumentException, IOException;
 
+    /**
+     * Register a new listener for the given directory, optionally including all of its sub
+     * directories. When watching recursively, sub directories created later on are watched as
+     * well, and the files they contain when they're discovered are reported as created. Adding a
+     * listener which was registered on the same directory before only changes the recursion.
+     *
+     * @param directory The watched directory
+     * @param listener  The listener callback
+     * @param recursive <tt>true</tt> to watch the whole tree below the directory, <tt>false</tt> to
+     *                  only watch the directory itself
+     * @throws IllegalArgumentException When one of the parameters is 'null' or when the given
+     *                                  directory is invalid
+     * @throws IOException              When the given directory can't be watched due to an
+     *                                  IOException
+     * @see #addListener(File, DirectoryWatchListener)
+     */
+    void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive) throws IllegalArgumentException, IOException;
+
+    /**
+     * Register a new listener for the given directory, which is only notified of the events
+     * accepted by the given filter. The filter is evaluated before the events are collected, so
+     * the events no listener is interested in are dropped as soon as they're received.
+     *
+     * @param directory The watched directory
+     * @param listener  The listener callback
+     * @param recursive <tt>true</tt> to watch the whole tree below the directory, <tt>false</tt> to
+     *                  only watch the directory itself
+     * @param filter    The filter selecting the events for the listener
+     * @throws IllegalArgumentException When one of the parameters is 'null' or when the given
+     *                                  directory is invalid
+     * @throws IOException              When the given directory can't be watched due to an
+     *                                  IOException
+     * @see #addListener(File, DirectoryWatchListener, boolean)
+     */
+    void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive, final WatchFilter filter)
+            throws IllegalArgumentException, IOException;
+
     /**
      * Remove the given listener as watch from a specific directory. If a listener is registered
      * multiple times on different directories, the others are untouched.
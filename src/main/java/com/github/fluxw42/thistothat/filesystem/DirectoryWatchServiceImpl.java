@@ -2,22 +2,38 @@ package com.github.fluxw42.thistothat.filesystem;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,117 +49,507 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     private static final Logger logger = Logger.getLogger(DirectoryWatchServiceImpl.class.getName());
 
+    /**
+     * The default time to collect events before handing them over to the listeners
+     */
+    private static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    /**
+     * The maximum number of files in a single batch, to bound the memory used during event storms
+     */
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * The default number of threads handing the events over to the listeners
+     */
+    private static final int DEFAULT_DISPATCH_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of batches waiting in a single dispatch lane
+     */
+    private static final int DISPATCH_CAPACITY = 1024;
+
+    /**
+     * The time between checks for finished rescans while no events are pending, in milliseconds
+     */
+    private static final long RESCAN_POLL_MILLIS = 10;
+
+    /**
+     * The time to collect events before handing them over to the listeners, in nano seconds
+     */
+    private final long windowNanos;
+
+    /**
+     * The number of threads handing the events over to the listeners
+     */
+    private final int dispatchThreads;
+
     /**
      * Indicates if the service is started or not
      */
     private volatile boolean started = false;
 
     /**
-     * The lock used to protected concurrency of watch service
+     * The lock serializing the changes to the listeners, the watch keys and the snapshots. Reading
+     * them doesn't require the lock, so polling and dispatching events never wait for a listener
+     * being added or removed.
      */
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock lock = new ReentrantLock();
 
     /**
-     * The map of listeners, indexed by watched directory
+     * The unmodifiable map of listener registrations, indexed by watched directory. The map and its
+     * lists are never changed, but replaced by an updated copy.
      */
-    private final Map<File, List<DirectoryWatchListener>> listeners = new HashMap<>();
+    private volatile Map<File, List<Registration>> listeners = Collections.emptyMap();
 
     /**
-     * The registered watch keys for each directory
+     * The registered watch keys for each directory, including the sub directories of recursively
+     * watched directories
      */
-    private final Map<File, WatchKey> watchKeys = new HashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
 
     /**
-     * The watch service, used to watch the required directories
+     * The last known contents of each registered directory, used to find the events which were lost
+     * when the watch service overflowed
      */
-    private WatchService watchService = null;
+    private final Map<Path, TrackedSnapshot> snapshots = new ConcurrentHashMap<>();
 
     /**
-     * Scheduler used to poll the keys for changes
+     * The executor rescanning the directories of which events were lost, or 'null' when not started.
+     * A single thread, so the rescans never compete with each other for the disk.
      */
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private volatile ExecutorService rescanExecutor = null;
 
     /**
-     * Create a new instance of the {@link DirectoryWatchService}.
+     * The number of times events were lost because the watch service overflowed
+     */
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * The number of times a dispatch lane was full, and polling had to wait for the listeners
+     */
+    private final AtomicLong dispatchOverflows = new AtomicLong();
+
+    /**
+     * The dispatcher handing the events over to the listeners, or 'null' when not started
+     */
+    private volatile EventDispatcher dispatcher = null;
+
+    /**
+     * The time the most recently delivered batch waited in its dispatch lane, in nano seconds
+     */
+    private final AtomicLong dispatchLag = new AtomicLong();
+
+    /**
+     * The pollers of the watched file stores, each with its own watch service and thread. Empty
+     * when not started.
+     */
+    private final Map<FileStore, Poller> pollers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new instance of the {@link DirectoryWatchService}, coalescing the events of
+     * {@link #DEFAULT_WINDOW_MILLIS} milliseconds.
      */
     public DirectoryWatchServiceImpl() {
-        this.executorService.submit(this::pollEvents);
+        this(DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Poll for file system events
+     * Create a new instance of the {@link DirectoryWatchService}. The events of each window are
+     * coalesced per file, and handed to each listener as a single batch.
+     *
+     * @param window     The time to collect events after the first event of a batch, or <tt>0</tt>
+     *                   to hand over the events as soon as they're polled
+     * @param windowUnit The unit of the window, cannot be 'null'
+     * @throws IllegalArgumentException When the window is negative
      */
-    private void pollEvents() {
-        do {
-            if (!isStarted()) {
+    public DirectoryWatchServiceImpl(final long window, final TimeUnit windowUnit) throws IllegalArgumentException {
+        this(window, windowUnit, DEFAULT_DISPATCH_THREADS);
+    }
+
+    /**
+     * Create a new instance of the {@link DirectoryWatchService}. The events of each window are
+     * coalesced per file, and handed to the listeners by a fixed number of dispatch threads. The
+     * events of the same file are always handed over by the same thread, so each listener receives
+     * them in order.
+     *
+     * @param window          The time to collect events after the first event of a batch, or
+     *                        <tt>0</tt> to hand over the events as soon as they're polled
+     * @param windowUnit      The unit of the window, cannot be 'null'
+     * @param dispatchThreads The number of threads handing the events over to the listeners
+     * @throws IllegalArgumentException When the window is negative, or when there's less than one
+     *                                  dispatch thread
+     */
+    public DirectoryWatchServiceImpl(final long window, final TimeUnit windowUnit, final int dispatchThreads)
+            throws IllegalArgumentException {
+        if (window < 0) {
+            throw new IllegalArgumentException("Coalescing window cannot be negative, but was [" + window + "]");
+        }
+        if (dispatchThreads < 1) {
+            throw new IllegalArgumentException("Number of dispatch threads should be at least 1, but was [" + dispatchThreads + "]");
+        }
+        this.windowNanos = Objects.requireNonNull(windowUnit).toNanos(window);
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * Poll the watch service of the given poller for file system events, until it's closed. The
+     * events found by the rescans of the poller are added to the window in which they finished, so
+     * they're handed over in order with the events around them.
+     *
+     * @param poller The poller of one of the watched file stores
+     */
+    private void pollEvents(final Poller poller) {
+        final WatchService watchService = poller.watchService;
+        // The coalesced events of the current window, a 'null' type means the events cancelled out
+        final Map<Path, EventType> pending = new LinkedHashMap<>();
+        long windowEnd = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey watchKey;
+                if (pending.isEmpty()) {
+                    // A finished rescan is queued before it's no longer counted, so check in this order
+                    if (poller.rescans.get() == 0 && poller.rescanned.isEmpty()) {
+                        watchKey = watchService.take(); // Blocks until there are events, or until closed
+                    } else {
+                        watchKey = watchService.poll(RESCAN_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    windowEnd = System.nanoTime() + this.windowNanos;
+                } else {
+                    watchKey = watchService.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+
                 try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    if (watchKey != null && Path.class.isInstance(watchKey.watchable())) {
+                        collectEvents(watchKey, pending, poller);
+                    }
+
+                    Map<Path, EventType> rescanned;
+                    while ((rescanned = poller.rescanned.poll()) != null) {
+                        rescanned.forEach((path, type) -> {
+                            if (type != null) {
+                                coalesce(pending, path, type);
+                            }
+                        });
+                    }
+
+                    if (!pending.isEmpty() && (watchKey == null || System.nanoTime() - windowEnd >= 0 || pending.size() >= MAX_BATCH_SIZE)) {
+                        dispatch(pending);
+                        pending.clear();
+                    }
+                } catch (RuntimeException e) {
+                    // Don't let a single failure stop the polling, but drop the window instead of
+                    // failing on the same events over and over again
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Failed to handle the events of [" + pending.size() + "] files : " + e.getMessage(), e);
+                    }
+                    pending.clear();
                 }
             }
+        } catch (ClosedWatchServiceException e) {
+            return; // Stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-            try {
-                final WatchKey watchKey = DirectoryWatchServiceImpl.this.watchService.take();
-                if (watchKey == null) {
+        if (isStarted() && logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, "Event polling thread halted!");
+        }
+    }
+
+    /**
+     * Collect the events of the given watch key, coalescing them with the pending events. Each
+     * event is applied to the snapshot of the directory right away, without listing it, so a rescan
+     * only reports the events which were actually lost. When events were lost, the directory is
+     * rescanned in the background.
+     *
+     * @param watchKey The signalled watch key
+     * @param pending  The pending events of the current window
+     * @param poller   The poller of the watch key
+     */
+    private void collectEvents(final WatchKey watchKey, final Map<Path, EventType> pending, final Poller poller) {
+        final Path parent = (Path) watchKey.watchable();
+        final TrackedSnapshot snapshot = this.snapshots.get(parent);
+        final List<Path> createdDirectories = new ArrayList<>();
+        final List<Path> deletedDirectories = new ArrayList<>();
+        boolean valid = false;
+        boolean overflow = false;
+        final Map<File, List<Registration>> listeners = this.listeners;
+        final List<Registration> registrations = getListeners(listeners, parent);
+        // Only then the names of the created and deleted directories are needed, even if no
+        // listener is interested in their events
+        final boolean watchesSubDirectories = registrations.stream().anyMatch(r -> r.recursive);
+        try {
+            final List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
+            for (final WatchEvent<?> watchEvent : watchEvents) {
+                if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
                     continue;
                 }
 
-                if (!Path.class.isInstance(watchKey.watchable())) {
+                final EventType eventType = EventType.fromKind(watchEvent.kind());
+                if (eventType == null) {
                     continue;
                 }
 
-                try {
-                    lock.readLock().lock();
-                    final Path parent = (Path) watchKey.watchable();
-                    final List<DirectoryWatchListener> registeredListeners = this.listeners.get(parent.toFile());
-
-                    final List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
-                    for (final WatchEvent<?> watchEvent : watchEvents) {
-                        final EventType eventType = EventType.fromKind(watchEvent.kind());
-                        if (eventType == null) {
-                            continue;
-                        }
+                final Object context = watchEvent.context();
+                if (context == null) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Expected 'File' as event context but context was 'null' for event type [" + eventType + "]");
+                    }
+                    continue;
+                }
 
-                        final Object context = watchEvent.context();
-                        if (context == null) {
-                            if (logger.isLoggable(Level.WARNING)) {
-                                logger.log(Level.WARNING, "Expected 'File' as event context but context was 'null' for event type [" + eventType + "]");
-                            }
-                            continue;
-                        }
+                final Class<Path> expectedClass = Path.class;
+                if (!expectedClass.isInstance(context)) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Expected [" + expectedClass + "] as event context but was [" + context.getClass() + "] for event type [" + eventType + "]");
+                    }
+                    continue;
+                }
 
-                        final Class<Path> expectedClass = Path.class;
-                        if (!expectedClass.isInstance(context)) {
-                            if (logger.isLoggable(Level.WARNING)) {
-                                logger.log(Level.WARNING, "Expected [" + expectedClass + "] as event context but was [" + context.getClass() + "] for event type [" + eventType + "]");
-                            }
-                            continue;
-                        }
+                final Path name = (Path) context;
+                if (snapshot != null) {
+                    snapshot.changed(name.toString(), eventType != EventType.DELETED);
+                }
 
-                        final Path path = parent.resolve((Path) context);
-                        final File file = path.toFile();
-                        for (final DirectoryWatchListener listener : registeredListeners) {
-                            this.executorService.submit((Runnable) () -> listener.updated(file, eventType));
-                        }
+                final boolean accepted = accepts(registrations, name);
+                if (!accepted && !watchesSubDirectories) {
+                    continue;
+                }
+
+                final Path path = parent.resolve(name);
+                if (eventType == EventType.CREATED && isWatched(listeners, path) && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    createdDirectories.add(path);
+                } else if (eventType == EventType.DELETED && this.watchKeys.containsKey(path)) {
+                    deletedDirectories.add(path);
+                }
+                if (accepted) {
+                    coalesce(pending, path, eventType);
+                }
+            }
+        } finally {
+            valid = watchKey.reset();
+        }
+
+        if (overflow && valid) {
+            final long count = this.overflows.incrementAndGet();
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Events lost for directory [" + parent + "], rescanning it (overflow #" + count + ")");
+            }
+            rescan(parent, poller);
+        }
 
+        if (!valid || !createdDirectories.isEmpty() || !deletedDirectories.isEmpty()) {
+            for (final Path path : updateTree(parent, valid, createdDirectories, deletedDirectories)) {
+                coalesce(pending, path, EventType.CREATED);
+            }
+        }
+    }
+
+    /**
+     * Rescan the given directory in the background, and hand the events for the differences with
+     * its snapshot over to the poller, so they're dispatched with its next window
+     *
+     * @param directory The directory for which events were lost
+     * @param poller    The poller of the directory
+     */
+    private void rescan(final Path directory, final Poller poller) {
+        final ExecutorService executor = this.rescanExecutor;
+        if (executor == null) {
+            return; // Stopped
+        }
+
+        poller.rescans.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    final Map<Path, EventType> events = new LinkedHashMap<>();
+                    final List<Path> createdDirectories = new ArrayList<>();
+                    final List<Path> deletedDirectories = new ArrayList<>();
+                    reconcile(directory, events, createdDirectories, deletedDirectories);
+                    if (!createdDirectories.isEmpty() || !deletedDirectories.isEmpty()) {
+                        for (final Path path : updateTree(directory, true, createdDirectories, deletedDirectories)) {
+                            coalesce(events, path, EventType.CREATED);
+                        }
                     }
-                } finally {
-                    if (watchKey != null) {
-                        watchKey.reset();
+                    poller.rescanned.add(events);
+                } catch (RuntimeException e) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Failed to rescan directory [" + directory + "] : " + e.getMessage(), e);
                     }
-                    lock.readLock().unlock();
+                } finally {
+                    poller.rescans.decrementAndGet();
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            poller.rescans.decrementAndGet(); // Stopped in the mean time
+        }
+    }
 
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+    /**
+     * Get the current snapshot of the given watched directory, including the events applied to it.
+     * Only used for testing.
+     *
+     * @param directory The watched directory
+     * @return The snapshot, or 'null' when there's none
+     */
+    final DirectorySnapshot getSnapshot(final Path directory) {
+        final TrackedSnapshot snapshot = this.snapshots.get(directory);
+        return snapshot != null ? snapshot.get() : null;
+    }
+
+    /**
+     * Compare the current contents of a directory with its snapshot, and add the events for the
+     * differences to the pending events. Since the events are applied to the snapshot as they're
+     * read, only the lost events are reported, apart from the changes made while listing whose
+     * events weren't read yet. The snapshot is replaced by the listing, with the events read while
+     * listing applied to it.
+     *
+     * @param directory          The directory for which events were lost
+     * @param pending            The pending events
+     * @param createdDirectories The list to which the created sub directories are added
+     * @param deletedDirectories The list to which the deleted sub directories are added
+     */
+    private void reconcile(final Path directory, final Map<Path, EventType> pending, final List<Path> createdDirectories,
+                           final List<Path> deletedDirectories) {
+        final TrackedSnapshot snapshot = this.snapshots.get(directory);
+        if (snapshot == null) {
+            return; // No longer watched
+        }
+
+        final DirectorySnapshot previous = snapshot.startRescan();
+        final DirectorySnapshot current;
+        try {
+            current = DirectorySnapshot.of(directory);
+        } catch (IOException e) {
+            snapshot.finishRescan(null);
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to rescan directory [" + directory + "] : " + e.getMessage(), e);
             }
-        } while (!Thread.currentThread().isInterrupted());
+            return;
+        }
+        snapshot.finishRescan(current);
 
-        if (logger.isLoggable(Level.WARNING)) {
-            logger.log(Level.WARNING, "Event polling thread halted!");
+        final Map<File, List<Registration>> listeners = this.listeners;
+        previous.diff(current, (name, type) -> {
+            final Path path = directory.resolve(name);
+            if (type == EventType.CREATED && isWatched(listeners, path) && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                createdDirectories.add(path);
+            } else if (type == EventType.DELETED && this.watchKeys.containsKey(path)) {
+                deletedDirectories.add(path);
+            }
+            coalesce(pending, path, type);
+        });
+    }
+
+    /**
+     * Reconcile the given watched directory as if the watch service overflowed. Only used for
+     * testing, since an overflow cannot be triggered reliably.
+     *
+     * @param directory The watched directory
+     * @return The coalesced events for the differences with the snapshot of the directory
+     */
+    final Map<Path, EventType> reconcile(final Path directory) {
+        final Map<Path, EventType> pending = new LinkedHashMap<>();
+        reconcile(directory, pending, new ArrayList<>(), new ArrayList<>());
+        return pending;
+    }
+
+    /**
+     * Get the number of times the watch service overflowed for one of the watched directories. Each
+     * overflow is followed by a rescan of the directory, to recover the lost events.
+     *
+     * @return The number of overflows since the creation of this service
+     */
+    public final long getOverflowCount() {
+        return this.overflows.get();
+    }
+
+    /**
+     * Add an event to the pending events, coalescing it with the pending event of the same path.
+     * Creating and then modifying a file results in a single created event, while creating and
+     * then deleting a file within the same window cancels out.
+     *
+     * @param pending The pending events of the current window
+     * @param path    The path of the event
+     * @param type    The type of the event
+     */
+    private static void coalesce(final Map<Path, EventType> pending, final Path path, final EventType type) {
+        if (!pending.containsKey(path)) {
+            pending.put(path, type);
+            return;
+        }
+
+        final EventType previous = pending.get(path);
+        if (previous == EventType.CREATED && type == EventType.MODIFIED) {
+            return; // Still a new file
+        }
+        if (previous == EventType.CREATED && type == EventType.DELETED) {
+            pending.put(path, null); // Never seen by the listeners
+            return;
+        }
+        if (previous == EventType.DELETED && type == EventType.MODIFIED) {
+            pending.put(path, EventType.CREATED); // Re-created and written
+            return;
+        }
+        pending.put(path, type);
+    }
+
+    /**
+     * Hand the pending events over to the listeners, as a single batch per listener
+     *
+     * @param pending The coalesced events of the current window
+     */
+    private void dispatch(final Map<Path, EventType> pending) throws InterruptedException {
+        final Map<DirectoryWatchListener, List<DirectoryWatchEvent>> batches = new LinkedHashMap<>();
+        final Map<File, List<Registration>> listeners = this.listeners;
+        final Map<Path, List<Registration>> directoryListeners = new HashMap<>();
+        for (final Map.Entry<Path, EventType> entry : pending.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+
+            final Path path = entry.getKey();
+            DirectoryWatchEvent event = null;
+            for (final Registration registration : directoryListeners.computeIfAbsent(path.getParent(), d -> getListeners(listeners, d))) {
+                if (registration.filter.accepts(path.getFileName(), entry.getValue())) {
+                    if (event == null) {
+                        event = new DirectoryWatchEvent(path.toFile(), entry.getValue());
+                    }
+                    batches.computeIfAbsent(registration.listener, l -> new ArrayList<>()).add(event);
+                }
+            }
         }
 
+        final EventDispatcher dispatcher = this.dispatcher;
+        if (dispatcher == null) {
+            return; // Stopped in the meantime
+        }
+        for (final Map.Entry<DirectoryWatchListener, List<DirectoryWatchEvent>> batch : batches.entrySet()) {
+            dispatcher.dispatch(batch.getKey(), batch.getValue());
+        }
+    }
+
+    /**
+     * Get the number of times the events were handed over faster than the listeners could handle
+     * them. Each time, polling the watch service waits until the listeners caught up.
+     *
+     * @return The number of full dispatch lanes since the creation of this service
+     */
+    public final long getDispatchOverflowCount() {
+        return this.dispatchOverflows.get();
+    }
+
+    /**
+     * Get the time the most recently delivered batch waited in its dispatch lane, before it was
+     * handed over to its listener. A growing lag means the listeners can't keep up with the events.
+     *
+     * @param unit The unit of the result, cannot be 'null'
+     * @return The dispatch lag of the last batch
+     */
+    public final long getDispatchLag(final TimeUnit unit) {
+        return unit.convert(this.dispatchLag.get(), TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -151,7 +557,7 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final void start() throws IOException {
-        this.lock.writeLock().lock();
+        this.lock.lock();
         try {
             if (isStarted()) {
                 if (logger.isLoggable(Level.WARNING)) {
@@ -160,12 +566,22 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
                 return;
             }
 
-            this.watchService = FileSystems.getDefault().newWatchService();
-            updateListeners();
-
+            this.dispatcher = new EventDispatcher("watch-dispatch", this.dispatchThreads, DISPATCH_CAPACITY,
+                    this.dispatchOverflows, this.dispatchLag);
+            this.rescanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "watch-rescan");
+                thread.setDaemon(true);
+                return thread;
+            });
             this.started = true;
+            try {
+                updateListeners();
+            } catch (IOException | RuntimeException e) {
+                stop();
+                throw e;
+            }
         } finally {
-            this.lock.writeLock().unlock();
+            this.lock.unlock();
         }
     }
 
@@ -174,7 +590,7 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final void stop() {
-        this.lock.writeLock().lock();
+        this.lock.lock();
         try {
             if (!isStarted()) {
                 if (logger.isLoggable(Level.WARNING)) {
@@ -183,21 +599,24 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
                 return;
             }
 
+            this.started = false;
             this.watchKeys.values().forEach(WatchKey::cancel);
             this.watchKeys.clear();
+            this.snapshots.clear();
 
-            try {
-                this.watchService.close();
-            } catch (IOException e) {
-                if (logger.isLoggable(Level.WARNING)) {
-                    logger.log(Level.WARNING, "IOException while closing watch service : " + e.getMessage(), e);
-                }
-            }
-
-            this.started = false;
+            // Closing the watch services ends their polling threads
+            this.pollers.values().forEach(Poller::close);
+            this.pollers.clear();
         } finally {
-            this.watchService = null;
-            this.lock.writeLock().unlock();
+            if (this.dispatcher != null) {
+                this.dispatcher.shutdown();
+                this.dispatcher = null;
+            }
+            if (this.rescanExecutor != null) {
+                this.rescanExecutor.shutdownNow();
+                this.rescanExecutor = null;
+            }
+            this.lock.unlock();
         }
     }
 
@@ -206,12 +625,7 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final boolean isStarted() {
-        this.lock.writeLock().lock();
-        try {
-            return this.started;
-        } finally {
-            this.lock.writeLock().unlock();
-        }
+        return this.started;
     }
 
     /**
@@ -219,23 +633,41 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final void addListener(final File directory, final DirectoryWatchListener listener) throws IllegalArgumentException, IOException {
+        addListener(directory, listener, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive) throws IllegalArgumentException, IOException {
+        addListener(directory, listener, recursive, WatchFilter.ALL);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive, final WatchFilter filter)
+            throws IllegalArgumentException, IOException {
         verifyDirectoryArg(directory);
+        if (listener == null) {
+            throw new IllegalArgumentException("Expected a listener but received [null]");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Expected a filter but received [null]");
+        }
 
-        this.lock.writeLock().lock();
+        this.lock.lock();
         try {
-            if (this.listeners.containsKey(directory)) {
-                final List<DirectoryWatchListener> directoryWatchListeners = this.listeners.get(directory);
-                if (!directoryWatchListeners.contains(listener)) {
-                    directoryWatchListeners.add(listener);
-                }
-            } else {
-                final List<DirectoryWatchListener> watchListeners = new ArrayList<>();
-                watchListeners.add(listener);
-                this.listeners.put(directory, watchListeners);
-            }
-            updateListeners();
+            final List<Registration> registrations = new ArrayList<>(this.listeners.getOrDefault(directory, Collections.emptyList()));
+            registrations.removeIf(r -> r.listener.equals(listener));
+            registrations.add(new Registration(listener, recursive, filter));
+            final Map<File, List<Registration>> listeners = new HashMap<>(this.listeners);
+            listeners.put(directory, registrations);
+            updateListeners(listeners);
         } finally {
-            this.lock.writeLock().unlock();
+            this.lock.unlock();
         }
     }
 
@@ -246,12 +678,15 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
     public final void removeListener(final File directory, final DirectoryWatchListener listener) throws IllegalArgumentException, IOException {
         verifyDirectoryArg(directory);
 
-        this.lock.writeLock().lock();
+        this.lock.lock();
         try {
-            this.listeners.getOrDefault(directory, Collections.emptyList()).remove(listener);
-            updateListeners();
+            final List<Registration> registrations = new ArrayList<>(this.listeners.getOrDefault(directory, Collections.emptyList()));
+            registrations.removeIf(r -> r.listener.equals(listener));
+            final Map<File, List<Registration>> listeners = new HashMap<>(this.listeners);
+            listeners.put(directory, registrations);
+            updateListeners(listeners);
         } finally {
-            this.lock.writeLock().unlock();
+            this.lock.unlock();
         }
     }
 
@@ -260,12 +695,17 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final void removeListener(final DirectoryWatchListener listener) throws IOException {
-        this.lock.writeLock().lock();
+        this.lock.lock();
         try {
-            this.listeners.values().forEach(l -> l.remove(listener));
-            updateListeners();
+            final Map<File, List<Registration>> listeners = new HashMap<>();
+            this.listeners.forEach((directory, registrations) -> {
+                final List<Registration> remaining = new ArrayList<>(registrations);
+                remaining.removeIf(r -> r.listener.equals(listener));
+                listeners.put(directory, remaining);
+            });
+            updateListeners(listeners);
         } finally {
-            this.lock.writeLock().unlock();
+            this.lock.unlock();
         }
     }
 
@@ -274,52 +714,267 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
      */
     @Override
     public final Set<File> getWatchedDirectories() {
-        lock.readLock().lock();
+        return this.listeners.keySet();
+    }
+
+    /**
+     * Publish the given listener registrations, without the directories which have 0 listeners
+     * left. Register all directories which should be watched, and cancel the watch keys of the
+     * directories which are no longer watched. The caller should hold the lock.
+     *
+     * @param listeners The updated listener registrations, indexed by watched directory
+     */
+    private void updateListeners(final Map<File, List<Registration>> listeners) throws IOException {
+        listeners.values().removeIf(List::isEmpty);
+        listeners.replaceAll((directory, registrations) -> Collections.unmodifiableList(registrations));
+        this.listeners = Collections.unmodifiableMap(listeners);
+        updateListeners();
+    }
+
+    /**
+     * Register all directories which should be watched, and cancel the watch keys of the
+     * directories which are no longer watched. The caller should hold the lock.
+     */
+    private void updateListeners() throws IOException {
+        if (!this.started) {
+            return; // Not started, the directories are registered once started
+        }
+
+        final Map<File, List<Registration>> listeners = this.listeners;
+        for (final Map.Entry<File, List<Registration>> entry : listeners.entrySet()) {
+            final Path directory = entry.getKey().toPath();
+            if (entry.getValue().stream().anyMatch(r -> r.recursive)) {
+                registerTree(directory, null);
+            } else if (!this.watchKeys.containsKey(directory)) {
+                register(directory);
+            }
+        }
+
+        final Iterator<Map.Entry<Path, WatchKey>> iterator = this.watchKeys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Path, WatchKey> entry = iterator.next();
+            if (!isWatched(listeners, entry.getKey())) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+        this.snapshots.keySet().retainAll(this.watchKeys.keySet());
+    }
+
+    /**
+     * Update the watched tree after changes to the sub directories of a watched directory. Newly
+     * created directories are registered, and the files found in them are reported as created,
+     * since they might have been created before the directory was watched.
+     *
+     * @param parent             The watched directory in which the changes took place
+     * @param valid              Indicates if the watch key of the parent is still valid
+     * @param createdDirectories The created sub directories
+     * @param deletedDirectories The deleted sub directories
+     * @return The entries found in the newly registered directories
+     */
+    private List<Path> updateTree(final Path parent, final boolean valid, final List<Path> createdDirectories,
+                            final List<Path> deletedDirectories) {
+        final List<Path> found = new ArrayList<>();
+        this.lock.lock();
         try {
-            return Collections.unmodifiableSet(this.listeners.keySet());
+            if (!valid) {
+                // The directory was deleted or became inaccessible
+                this.watchKeys.remove(parent);
+            }
+
+            for (final Path deleted : deletedDirectories) {
+                final Iterator<Map.Entry<Path, WatchKey>> iterator = this.watchKeys.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<Path, WatchKey> entry = iterator.next();
+                    if (entry.getKey().startsWith(deleted)) {
+                        entry.getValue().cancel();
+                        iterator.remove();
+                    }
+                }
+            }
+
+            if (this.started) {
+                for (final Path created : createdDirectories) {
+                    if (!isWatched(this.listeners, created)) {
+                        continue; // The listener was removed in the mean time
+                    }
+                    try {
+                        registerTree(created, found);
+                    } catch (IOException e) {
+                        if (logger.isLoggable(Level.WARNING)) {
+                            logger.log(Level.WARNING, "Failed to watch directory [" + created + "] : " + e.getMessage(), e);
+                        }
+                    }
+                }
+            }
+            this.snapshots.keySet().retainAll(this.watchKeys.keySet());
         } finally {
-            lock.readLock().unlock();
+            this.lock.unlock();
         }
+
+        return found;
     }
 
     /**
-     * Go through the map of {@link #listeners} and remove the entries which have 0 listeners left.
+     * Register the given directory and all of its sub directories which aren't registered yet. The
+     * caller should hold the lock.
+     *
+     * @param directory The root of the tree
+     * @param found     The list to which the entries found in newly registered directories are
+     *                  added, or 'null' when they're not needed
      */
-    private void updateListeners() throws IOException {
-        this.lock.writeLock().lock();
-        try {
-            final Set<File> watchedDirectories = this.listeners.keySet();
-            for (final File watchedDirectory : watchedDirectories) {
-                final List<DirectoryWatchListener> dirListeners = this.listeners.get(watchedDirectory);
-                if (dirListeners != null && dirListeners.isEmpty()) {
-                    this.listeners.remove(watchedDirectory);
+    private void registerTree(final Path directory, final List<Path> found) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                if (DirectoryWatchServiceImpl.this.watchKeys.containsKey(dir)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                register(dir);
+                if (found != null && !dir.equals(directory)) {
+                    found.add(dir);
                 }
+                return FileVisitResult.CONTINUE;
             }
 
-            for (final File directory : this.listeners.keySet()) {
-                if (!this.watchKeys.containsKey(directory)) {
-                    final WatchKey watchKey = directory.toPath().register(
-                            this.watchService,
-                            StandardWatchEventKinds.ENTRY_CREATE,
-                            StandardWatchEventKinds.ENTRY_DELETE,
-                            StandardWatchEventKinds.ENTRY_MODIFY
-                    );
-                    this.watchKeys.put(directory, watchKey);
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (found != null) {
+                    found.add(file);
                 }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to visit [" + file + "] : " + e.getMessage());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+    /**
+     * Register the given directory with the watch service of its file store, and take the snapshot
+     * used to recover from overflows. The caller should hold the lock.
+     *
+     * @param directory The directory to register
+     */
+    private void register(final Path directory) {
+        try {
+            final WatchKey watchKey = directory.register(
+                    getPoller(directory).watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            this.watchKeys.put(directory, watchKey);
+        } catch (IOException e) {
+            // Typically when the directory was removed in the mean time, or when the operating
+            // system limit on the number of watches (fs.inotify.max_user_watches) is reached
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to watch directory [" + directory + "] : " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        try {
+            this.snapshots.put(directory, new TrackedSnapshot(DirectorySnapshot.of(directory)));
+        } catch (IOException e) {
+            // Without a snapshot, all entries are reported as created after an overflow
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to take snapshot of directory [" + directory + "] : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Get the poller of the file store of the given directory, and start a new one when it's the
+     * first directory of that store. The caller should hold the lock.
+     *
+     * @param directory The directory to watch
+     * @return The poller of the file store of the directory
+     * @throws IOException When the file store could not be determined, or when its watch service
+     *                     could not be created
+     */
+    private Poller getPoller(final Path directory) throws IOException {
+        final FileStore store = Files.getFileStore(directory);
+        Poller poller = this.pollers.get(store);
+        if (poller == null) {
+            poller = new Poller(store, directory.getFileSystem().newWatchService());
+            this.pollers.put(store, poller);
+            poller.thread.start();
+        }
+        return poller;
+    }
+
+    /**
+     * Indicates if the given directory should be watched: it's either a watched directory, or a sub
+     * directory of a recursively watched one
+     *
+     * @param listeners The listener registrations, indexed by watched directory
+     * @param directory The directory
+     * @return <tt>true</tt> when the directory should be watched, <tt>false</tt> if not
+     */
+    private static boolean isWatched(final Map<File, List<Registration>> listeners, final Path directory) {
+        for (final Map.Entry<File, List<Registration>> entry : listeners.entrySet()) {
+            final Path root = entry.getKey().toPath();
+            if (directory.equals(root)) {
+                return true;
             }
+            if (directory.startsWith(root) && entry.getValue().stream().anyMatch(r -> r.recursive)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            for (final File directory : watchKeys.keySet()) {
-                if (!this.listeners.containsKey(directory)) {
-                    final WatchKey watchKey = this.watchKeys.remove(directory);
-                    if (watchKey != null) {
-                        watchKey.cancel();
+    /**
+     * Get the listeners which should be notified of events in the given directory
+     *
+     * @param listeners The listener registrations, indexed by watched directory
+     * @param directory The directory
+     * @return The registrations on the directory itself, and the recursive registrations on one of
+     * its parents, at most one per listener
+     */
+    private static List<Registration> getListeners(final Map<File, List<Registration>> listeners, final Path directory) {
+        final List<Registration> result = new ArrayList<>();
+        if (directory == null) {
+            return result;
+        }
+
+        for (final Map.Entry<File, List<Registration>> entry : listeners.entrySet()) {
+            final Path root = entry.getKey().toPath();
+            final boolean exact = directory.equals(root);
+            if (exact || directory.startsWith(root)) {
+                for (final Registration registration : entry.getValue()) {
+                    if ((exact || registration.recursive) && result.stream().noneMatch(r -> r.listener.equals(registration.listener))) {
+                        result.add(registration);
                     }
                 }
             }
+        }
+        return result;
+    }
 
-        } finally {
-            this.lock.writeLock().unlock();
+    /**
+     * Check if the events of a file are accepted by the filter of at least one of the given
+     * registrations
+     *
+     * @param registrations The registrations for the directory of the file
+     * @param name          The name of the file, as reported by the file system
+     * @return <tt>true</tt> when at least one listener is interested in the file
+     */
+    private static boolean accepts(final List<Registration> registrations, final Path name) {
+        for (final Registration registration : registrations) {
+            if (registration.filter.accepts(name)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -347,4 +1002,196 @@ public class DirectoryWatchServiceImpl implements DirectoryWatchService {
         }
     }
 
-}
+    /**
+     * The watch service of a single file store, and the thread polling it
+     */
+    private final class Poller {
+
+        /**
+         * The watched file store
+         */
+        private final FileStore store;
+
+        /**
+         * The watch service of the directories in the file store
+         */
+        private final WatchService watchService;
+
+        /**
+         * The thread polling the watch service, until it's closed
+         */
+        private final Thread thread;
+
+        /**
+         * The number of rescans of the directories in the file store which didn't finish yet
+         */
+        private final AtomicInteger rescans = new AtomicInteger();
+
+        /**
+         * The events found by the finished rescans, which weren't added to a window yet
+         */
+        private final Queue<Map<Path, EventType>> rescanned = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Create a new poller, without starting it
+         *
+         * @param store        The watched file store
+         * @param watchService The watch service of the directories in the file store
+         */
+        private Poller(final FileStore store, final WatchService watchService) {
+            this.store = store;
+            this.watchService = watchService;
+            this.thread = new Thread(() -> pollEvents(this), "watch-poll-" + store.name());
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Close the watch service, which ends the polling thread
+         */
+        private void close() {
+            try {
+                this.watchService.close();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "IOException while closing watch service of [" + this.store + "] : " + e.getMessage(), e);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * The snapshot of a watched directory, kept up to date with the events read for the directory.
+     * Instead of copying the snapshot for every event, the changed names are collected and merged
+     * into it once there are enough of them, or when the snapshot is needed.
+     */
+    private static final class TrackedSnapshot {
+
+        /**
+         * The minimum number of changes collected before merging them into the snapshot
+         */
+        private static final int MIN_CHANGES = 1024;
+
+        /**
+         * The snapshot, without the collected changes
+         */
+        private DirectorySnapshot snapshot;
+
+        /**
+         * The names changed since the snapshot, mapped to <tt>true</tt> when the entry exists
+         */
+        private Map<String, Boolean> changes = new HashMap<>();
+
+        /**
+         * The names changed since the current rescan started, or 'null' when not rescanning
+         */
+        private Map<String, Boolean> rescanChanges = null;
+
+        /**
+         * Create a new tracked snapshot
+         *
+         * @param snapshot The snapshot taken when the directory was registered
+         */
+        private TrackedSnapshot(final DirectorySnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Record an event for an entry of the directory
+         *
+         * @param name    The name of the entry
+         * @param present <tt>true</tt> when the entry exists after the event
+         */
+        private synchronized void changed(final String name, final boolean present) {
+            this.changes.put(name, present);
+            if (this.rescanChanges != null) {
+                this.rescanChanges.put(name, present);
+            }
+            if (this.changes.size() >= Math.max(MIN_CHANGES, this.snapshot.size() / 8)) {
+                merge();
+            }
+        }
+
+        /**
+         * Get the snapshot, with all recorded events applied to it
+         *
+         * @return The snapshot
+         */
+        private synchronized DirectorySnapshot get() {
+            merge();
+            return this.snapshot;
+        }
+
+        /**
+         * Start a rescan of the directory, recording the events read from now on separately
+         *
+         * @return The snapshot to compare the listing of the rescan with
+         */
+        private synchronized DirectorySnapshot startRescan() {
+            merge();
+            this.rescanChanges = new HashMap<>();
+            return this.snapshot;
+        }
+
+        /**
+         * Finish the rescan, replacing the snapshot with the listing and the events read since the
+         * rescan started
+         *
+         * @param listing The listing of the directory, or 'null' when it couldn't be listed
+         */
+        private synchronized void finishRescan(final DirectorySnapshot listing) {
+            if (listing != null) {
+                this.snapshot = listing;
+                this.changes = this.rescanChanges;
+            }
+            this.rescanChanges = null;
+        }
+
+        /**
+         * Merge the collected changes into the snapshot
+         */
+        private void merge() {
+            if (!this.changes.isEmpty()) {
+                this.snapshot = this.snapshot.update(this.changes);
+                this.changes = new HashMap<>();
+            }
+        }
+
+    }
+
+    /**
+     * A listener registered on a watched directory
+     */
+    private static final class Registration {
+
+        /**
+         * The listener callback
+         */
+        private final DirectoryWatchListener listener;
+
+        /**
+         * Indicates if the listener is notified of events in sub directories as well
+         */
+        private final boolean recursive;
+
+        /**
+         * The filter selecting the events for the listener
+         */
+        private final WatchFilter filter;
+
+        /**
+         * Create a new registration
+         *
+         * @param listener  The listener callback
+         * @param recursive Indicates if the listener is notified of events in sub directories
+         * @param filter    The filter selecting the events for the listener
+         */
+        private Registration(final DirectoryWatchListener listener, final boolean recursive, final WatchFilter filter) {
+            this.listener = listener;
+            this.recursive = recursive;
+            this.filter = filter;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,291 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands batches of events over to the listeners on a fixed number of dispatch lanes. Each lane is
+ * a bounded queue with a single thread delivering its batches in order.
+ * <p>
+ * The events of a batch are striped across the lanes by the hash of their path, so all events of
+ * the same path end up on the same lane, and each listener receives them in the order they were
+ * dispatched. Events of different paths can be delivered in parallel, and in any order.
+ * <p>
+ * When a lane is full, the dispatching thread waits until there's room again, which in turn slows
+ * down the polling of the watch service. Every time this happens, the overflow counter is
+ * incremented. Idle lanes block without waking up, until a batch arrives or until the dispatcher
+ * is shut down.
+ * <p>
+ * Date: 10/19/26 - 1:30 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+final class EventDispatcher {
+
+    /**
+     * The logger for class EventDispatcher
+     */
+    private static final Logger logger = Logger.getLogger(EventDispatcher.class.getName());
+
+    /**
+     * The time a dispatching thread waits for a full lane before checking if the dispatcher was
+     * shut down
+     */
+    private static final long WAIT_MILLIS = 100;
+
+    /**
+     * The marker put on each lane when shutting down, after the batches which are still queued
+     */
+    private static final Delivery SHUTDOWN = new Delivery(null, null);
+
+    /**
+     * The lanes, each with a single consumer thread
+     */
+    private final List<Lane> lanes;
+
+    /**
+     * The number of times a lane was full when a batch was dispatched
+     */
+    private final AtomicLong overflows;
+
+    /**
+     * The time the most recently delivered batch waited in its lane, in nano seconds
+     */
+    private final AtomicLong lag;
+
+    /**
+     * Indicates if the dispatcher is shut down, and no longer accepts new batches
+     */
+    private volatile boolean shutdown = false;
+
+    /**
+     * Create and start a new event dispatcher
+     *
+     * @param name      The prefix of the names of the dispatch threads
+     * @param lanes     The number of lanes, and threads, at least <tt>1</tt>
+     * @param capacity  The maximum number of batches waiting in a single lane, at least <tt>1</tt>
+     * @param overflows The counter incremented each time a lane is full, cannot be 'null'
+     * @param lag       Updated with the time each batch waited in its lane, cannot be 'null'
+     * @throws IllegalArgumentException When the number of lanes or the capacity is less than <tt>1</tt>
+     */
+    EventDispatcher(final String name, final int lanes, final int capacity, final AtomicLong overflows, final AtomicLong lag)
+            throws IllegalArgumentException {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Number of dispatch lanes should be at least 1, but was [" + lanes + "]");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Dispatch lane capacity should be at least 1, but was [" + capacity + "]");
+        }
+
+        this.overflows = overflows;
+        this.lag = lag;
+        this.lanes = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            this.lanes.add(new Lane(name + "-" + i, capacity));
+        }
+        this.lanes.forEach(lane -> lane.thread.start());
+    }
+
+    /**
+     * Hand the given events over to the listener, on the lanes of their paths. Waits when one of
+     * these lanes is full.
+     *
+     * @param listener The listener receiving the events
+     * @param events   The events, in the order they should be delivered
+     * @throws InterruptedException When interrupted while waiting for a full lane
+     */
+    final void dispatch(final DirectoryWatchListener listener, final List<DirectoryWatchEvent> events) throws InterruptedException {
+        if (this.lanes.size() == 1) {
+            offer(this.lanes.get(0), new Delivery(listener, events));
+            return;
+        }
+
+        final List<List<DirectoryWatchEvent>> striped = new ArrayList<>(this.lanes.size());
+        for (int i = 0; i < this.lanes.size(); i++) {
+            striped.add(null);
+        }
+        for (final DirectoryWatchEvent event : events) {
+            final int index = Math.floorMod(event.getFile().hashCode(), this.lanes.size());
+            if (striped.get(index) == null) {
+                striped.set(index, new ArrayList<>());
+            }
+            striped.get(index).add(event);
+        }
+
+        for (int i = 0; i < striped.size(); i++) {
+            if (striped.get(i) != null) {
+                offer(this.lanes.get(i), new Delivery(listener, striped.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Stop accepting new batches. The batches which are already queued are still delivered.
+     */
+    final void shutdown() {
+        this.shutdown = true;
+        this.lanes.forEach(lane -> lane.queue.add(SHUTDOWN));
+    }
+
+    /**
+     * Wait until all queued batches are delivered, after the dispatcher was shut down
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return <tt>true</tt> when all lanes finished, <tt>false</tt> when the time ran out
+     * @throws InterruptedException When interrupted while waiting
+     */
+    final boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final Lane lane : this.lanes) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(lane.thread, remaining);
+            }
+            if (lane.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put a batch on the given lane, waiting while the lane is full
+     *
+     * @param lane     The lane
+     * @param delivery The batch to deliver
+     * @throws InterruptedException When interrupted while waiting for the lane
+     */
+    private void offer(final Lane lane, final Delivery delivery) throws InterruptedException {
+        if (this.shutdown) {
+            return;
+        }
+
+        if (!lane.room.tryAcquire()) {
+            final long count = this.overflows.incrementAndGet();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Dispatch lane full, waiting for the listeners to catch up (" + count + " overflows in total)");
+            }
+            while (!lane.room.tryAcquire(WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (this.shutdown) {
+                    return;
+                }
+            }
+        }
+        lane.queue.add(delivery);
+    }
+
+    /**
+     * Deliver the batches of the given lane, until the shutdown marker is reached
+     *
+     * @param lane The lane
+     */
+    private void deliver(final Lane lane) {
+        try {
+            Delivery delivery;
+            while ((delivery = lane.queue.take()) != SHUTDOWN) {
+                lane.room.release();
+                this.lag.set(System.nanoTime() - delivery.queued);
+                delivery.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A queue of batches, with a single thread delivering them
+     */
+    private final class Lane {
+
+        /**
+         * The queued batches. Its size is bounded by the available room, except for the shutdown
+         * marker, which is always accepted.
+         */
+        private final BlockingQueue<Delivery> queue = new LinkedBlockingQueue<>();
+
+        /**
+         * The room left in the queue
+         */
+        private final Semaphore room;
+
+        /**
+         * The thread delivering the batches
+         */
+        private final Thread thread;
+
+        /**
+         * Create a new lane, without starting its thread
+         *
+         * @param name     The name of the thread
+         * @param capacity The maximum number of queued batches
+         */
+        private Lane(final String name, final int capacity) {
+            this.room = new Semaphore(capacity);
+            this.thread = new Thread(() -> deliver(this), name);
+            this.thread.setDaemon(true);
+        }
+
+    }
+
+    /**
+     * A batch of events for a single listener
+     */
+    private static final class Delivery implements Runnable {
+
+        /**
+         * The listener receiving the events
+         */
+        private final DirectoryWatchListener listener;
+
+        /**
+         * The events to deliver, in order
+         */
+        private final List<DirectoryWatchEvent> events;
+
+        /**
+         * The time the batch was put on its lane, in nano seconds
+         */
+        private final long queued = System.nanoTime();
+
+        /**
+         * Create a new delivery
+         *
+         * @param listener The listener receiving the events
+         * @param events   The events to deliver, in order
+         */
+        private Delivery(final DirectoryWatchListener listener, final List<DirectoryWatchEvent> events) {
+            this.listener = listener;
+            this.events = events;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            try {
+                if (this.listener instanceof DirectoryWatchBatchListener) {
+                    ((DirectoryWatchBatchListener) this.listener).updated(this.events);
+                } else {
+                    for (final DirectoryWatchEvent event : this.events) {
+                        this.listener.updated(event.getFile(), event.getType());
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Listener [" + this.listener + "] failed to handle events : " + e.getMessage(), e);
+                }
+            }
+        }
+
+    }
+
+}
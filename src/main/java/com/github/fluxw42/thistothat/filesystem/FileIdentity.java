@@ -0,0 +1,162 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies the content of a file regardless of its path, by the device and inode of the file
+ * together with its size and modification time. Renaming or moving a file within the same file
+ * system, or linking it to a second path, keeps its identity. Writing to the file changes it.
+ * <p>
+ * Only available on file systems supporting the <tt>unix</tt> attribute view.
+ * <p>
+ * Date: 10/19/26 - 7:05 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public final class FileIdentity {
+
+    /**
+     * The attributes read from the file system
+     */
+    private static final String ATTRIBUTES = "unix:dev,ino,size,lastModifiedTime";
+
+    /**
+     * The device holding the file
+     */
+    private final long device;
+
+    /**
+     * The inode of the file on its device
+     */
+    private final long inode;
+
+    /**
+     * The size of the file in bytes
+     */
+    private final long size;
+
+    /**
+     * The modification time of the file, in milliseconds since the epoch
+     */
+    private final long modified;
+
+    /**
+     * Create a new file identity
+     *
+     * @param device   The device holding the file
+     * @param inode    The inode of the file on its device
+     * @param size     The size of the file in bytes
+     * @param modified The modification time of the file, in milliseconds since the epoch
+     */
+    public FileIdentity(final long device, final long inode, final long size, final long modified) {
+        this.device = device;
+        this.inode = inode;
+        this.size = size;
+        this.modified = modified;
+    }
+
+    /**
+     * Indicates if the identity of files can be read on the default file system
+     *
+     * @return <tt>true</tt> when the <tt>unix</tt> attribute view is supported
+     */
+    public static boolean isSupported() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * Read the identity of the given file
+     *
+     * @param file The file, cannot be 'null'
+     * @return The identity of the file, or 'null' when it doesn't exist or when its identity can't
+     * be read
+     */
+    public static FileIdentity of(final File file) {
+        try {
+            final Map<String, Object> attributes = Files.readAttributes(file.toPath(), ATTRIBUTES);
+            return new FileIdentity(((Number) attributes.get("dev")).longValue(), ((Number) attributes.get("ino")).longValue(),
+                    ((Number) attributes.get("size")).longValue(), ((FileTime) attributes.get("lastModifiedTime")).toMillis());
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the device holding the file
+     *
+     * @return The device
+     */
+    public long getDevice() {
+        return this.device;
+    }
+
+    /**
+     * Get the inode of the file on its device
+     *
+     * @return The inode
+     */
+    public long getInode() {
+        return this.inode;
+    }
+
+    /**
+     * Get the size of the file
+     *
+     * @return The size in bytes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the modification time of the file
+     *
+     * @return The modification time, in milliseconds since the epoch
+     */
+    public long getModified() {
+        return this.modified;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final FileIdentity that = (FileIdentity) o;
+        return this.device == that.device && this.inode == that.inode && this.size == that.size && this.modified == that.modified;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.device, this.inode, this.size, this.modified);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "FileIdentity{" +
+                "device=" + this.device +
+                ", inode=" + this.inode +
+                ", size=" + this.size +
+                ", modified=" + this.modified +
+                '}';
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Finds out if a file is structurally complete, using the sizes and flags its container format
+ * keeps in the header or at the end of the file. Only the header, a few chunk headers and the tail
+ * are read, using positional reads, so the check is cheap enough to repeat while a file is written.
+ * <p>
+ * The supported containers are:
+ * <ul>
+ * <li>RIFF and RF64, like WAV, of which the header gives the total size, and of which the chunks
+ * should all be present, including a data chunk</li>
+ * <li>Ogg, like Vorbis, Opus or FLAC in Ogg, of which the last page should carry the end of stream
+ * flag, and end at the end of the file</li>
+ * <li>ASF, like WMA, of which the file properties object gives the total size, unless the file is
+ * still being broadcast</li>
+ * </ul>
+ * Other files, and files of which the header isn't written yet, lead to an {@link State#UNKNOWN}
+ * state. Since the size of a file is compared with the size in its header, a writer which sets the
+ * size of the file before writing its content, like some network file systems do, makes a RIFF or
+ * ASF file look complete too early.
+ * <p>
+ * Date: 10/19/26 - 5:05 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FormatCompletenessCheck {
+
+    /**
+     * The number of bytes of the header read at once, enough for the top level objects of an ASF
+     * header without embedded pictures
+     */
+    private static final int HEADER_SIZE = 64 * 1024;
+
+    /**
+     * The number of bytes at the end of the file searched for the last Ogg page, which is at most
+     * 65307 bytes long
+     */
+    private static final int OGG_TAIL_SIZE = 65307;
+
+    /**
+     * The maximum number of RIFF chunks walked before giving up
+     */
+    private static final int MAX_CHUNKS = 1024;
+
+    /**
+     * The header type flag of the last page of an Ogg stream
+     */
+    private static final int OGG_END_OF_STREAM = 0x04;
+
+    /**
+     * The broadcast flag of an ASF file, meaning its size is not known
+     */
+    private static final int ASF_BROADCAST = 0x01;
+
+    /**
+     * The GUID of the ASF header object, as stored in the file
+     */
+    static final byte[] ASF_HEADER = {
+            0x30, 0x26, (byte) 0xB2, 0x75, (byte) 0x8E, 0x66, (byte) 0xCF, 0x11,
+            (byte) 0xA6, (byte) 0xD9, 0x00, (byte) 0xAA, 0x00, 0x62, (byte) 0xCE, 0x6C
+    };
+
+    /**
+     * The GUID of the ASF file properties object, as stored in the file
+     */
+    private static final byte[] ASF_FILE_PROPERTIES = {
+            (byte) 0xA1, (byte) 0xDC, (byte) 0xAB, (byte) 0x8C, 0x47, (byte) 0xA9, (byte) 0xCF, 0x11,
+            (byte) 0x8E, (byte) 0xE4, 0x00, (byte) 0xC0, 0x0C, 0x20, 0x53, 0x65
+    };
+
+    /**
+     * The completeness of a file
+     */
+    public enum State {
+
+        /**
+         * The file holds everything its header announced
+         */
+        COMPLETE,
+
+        /**
+         * The file is missing some of its content, or its header isn't finished yet
+         */
+        INCOMPLETE,
+
+        /**
+         * The format of the file is not supported, or the file can't be read
+         */
+        UNKNOWN
+
+    }
+
+    /**
+     * Check if the given file is structurally complete
+     *
+     * @param file The file to check, cannot be 'null'
+     * @return The state of the file
+     */
+    public final State getState(final File file) {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long length = channel.size();
+            final ByteBuffer header = read(channel, 0, (int) Math.min(HEADER_SIZE, length));
+            if (header.remaining() < 4) {
+                return State.UNKNOWN;
+            }
+
+            final String magic = ascii(header, 0);
+            switch (magic) {
+                case "RIFF":
+                case "RF64":
+                    return getRiffState(channel, header, length);
+                case "OggS":
+                    return getOggState(channel, length);
+                default:
+                    return matches(header, 0, ASF_HEADER) ? getAsfState(header, length) : State.UNKNOWN;
+            }
+        } catch (IOException e) {
+            return State.UNKNOWN; // Deleted or inaccessible, leave it to the other checks
+        }
+    }
+
+    /**
+     * Check if a RIFF file is complete. The chunks are walked up to the size in the header, and
+     * should all be present. A header which isn't finished yet, typically with a size of
+     * <tt>0</tt> or <tt>-1</tt>, never describes a data chunk which fits in the file.
+     *
+     * @param channel The channel of the file
+     * @param header  The start of the file
+     * @param length  The length of the file
+     * @return The state of the file
+     * @throws IOException When the file could not be read
+     */
+    private static State getRiffState(final FileChannel channel, final ByteBuffer header, final long length) throws IOException {
+        if (header.remaining() < 12) {
+            return State.INCOMPLETE;
+        }
+
+        final long end;
+        if (ascii(header, 0).equals("RF64")) {
+            // The sizes are in the 'ds64' chunk right after the form type
+            if (header.remaining() < 36) {
+                return State.INCOMPLETE;
+            }
+            if (!ascii(header, 12).equals("ds64")) {
+                return State.UNKNOWN;
+            }
+            end = header.getLong(20) + 8;
+        } else {
+            end = (header.getInt(4) & 0xFFFFFFFFL) + 8;
+        }
+        if (end < 12 || end > length) {
+            return State.INCOMPLETE;
+        }
+
+        boolean data = false;
+        long position = 12;
+        for (int i = 0; i < MAX_CHUNKS && position + 8 <= end; i++) {
+            final ByteBuffer chunk = read(channel, position, 8);
+            if (chunk.remaining() < 8) {
+                return State.INCOMPLETE;
+            }
+            final String id = ascii(chunk, 0);
+            long size = chunk.getInt(4) & 0xFFFFFFFFL;
+            if (id.equals("data") && size == 0xFFFFFFFFL && ascii(header, 0).equals("RF64")) {
+                size = header.getLong(28); // The data size follows the RIFF size in 'ds64'
+            }
+            data |= id.equals("data");
+            position += 8 + size + (size & 1);
+            if (position > end + 1) {
+                return State.INCOMPLETE; // The chunk doesn't fit in the announced size
+            }
+        }
+        return data && position >= end ? State.COMPLETE : State.INCOMPLETE;
+    }
+
+    /**
+     * Check if an Ogg file is complete. The last page in the file should end at the end of the
+     * file, and should have the end of stream flag.
+     *
+     * @param channel The channel of the file
+     * @param length  The length of the file
+     * @return The state of the file
+     * @throws IOException When the file could not be read
+     */
+    private static State getOggState(final FileChannel channel, final long length) throws IOException {
+        final int size = (int) Math.min(OGG_TAIL_SIZE, length);
+        final ByteBuffer tail = read(channel, length - size, size);
+
+        // Search backwards for the page ending at the end of the file
+        for (int offset = tail.remaining() - 27; offset >= 0; offset--) {
+            if (tail.get(offset) != 'O' || !ascii(tail, offset).equals("OggS") || tail.get(offset + 4) != 0) {
+                continue;
+            }
+            final int segments = tail.get(offset + 26) & 0xFF;
+            if (offset + 27 + segments > tail.remaining()) {
+                continue;
+            }
+            int pageSize = 27 + segments;
+            for (int i = 0; i < segments; i++) {
+                pageSize += tail.get(offset + 27 + i) & 0xFF;
+            }
+            if (offset + pageSize == tail.remaining()) {
+                return (tail.get(offset + 5) & OGG_END_OF_STREAM) != 0 ? State.COMPLETE : State.INCOMPLETE;
+            }
+        }
+        return State.INCOMPLETE; // The last page is still being written
+    }
+
+    /**
+     * Check if an ASF file is complete, using the size in its file properties object
+     *
+     * @param header The start of the file
+     * @param length The length of the file
+     * @return The state of the file
+     */
+    private static State getAsfState(final ByteBuffer header, final long length) {
+        if (header.remaining() < 30) {
+            return State.INCOMPLETE;
+        }
+
+        final long end = Math.min(header.getLong(16), header.remaining());
+        int position = 30;
+        while (position + 24 <= end) {
+            final long size = header.getLong(position + 16);
+            if (matches(header, position, ASF_FILE_PROPERTIES)) {
+                if (position + 92 > header.remaining()) {
+                    return header.remaining() < length ? State.UNKNOWN : State.INCOMPLETE;
+                }
+                final long fileSize = header.getLong(position + 40);
+                if ((header.getInt(position + 88) & ASF_BROADCAST) != 0) {
+                    return State.UNKNOWN; // The size is not known until the broadcast ends
+                }
+                return fileSize > 0 && fileSize <= length ? State.COMPLETE : State.INCOMPLETE;
+            }
+            if (size < 24) {
+                return State.UNKNOWN;
+            }
+            if (size > end - position) {
+                break;
+            }
+            position += (int) size;
+        }
+        return length < header.getLong(16) ? State.INCOMPLETE : State.UNKNOWN;
+    }
+
+    /**
+     * Read a part of the file, without changing the position of the channel
+     *
+     * @param channel  The channel of the file
+     * @param position The position of the first byte
+     * @param size     The maximum number of bytes to read
+     * @return The little endian buffer holding the bytes which could be read
+     * @throws IOException When the file could not be read
+     */
+    private static ByteBuffer read(final FileChannel channel, final long position, final int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Get the four character code at the given offset
+     *
+     * @param buffer The buffer
+     * @param offset The offset of the code, with at least four bytes remaining
+     * @return The code
+     */
+    static String ascii(final ByteBuffer buffer, final int offset) {
+        final byte[] code = new byte[4];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = buffer.get(offset + i);
+        }
+        return new String(code, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Check if the buffer holds the given bytes at the given offset
+     *
+     * @param buffer   The buffer
+     * @param offset   The offset
+     * @param expected The expected bytes
+     * @return <tt>true</tt> when the bytes are present
+     */
+    static boolean matches(final ByteBuffer buffer, final int offset, final byte[] expected) {
+        if (offset + expected.length > buffer.remaining()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
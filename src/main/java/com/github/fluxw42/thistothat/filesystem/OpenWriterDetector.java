@@ -0,0 +1,286 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finds out if a file is still opened for writing by one of the processes on this machine, using
+ * the <tt>/proc</tt> file system of Linux. The JDK watch service doesn't report when a writer
+ * closes a file, so without this a file can only be considered complete after it stayed quiet for
+ * a while.
+ * <p>
+ * The open files of all processes are listed through the symbolic links in <tt>/proc/[pid]/fd</tt>,
+ * and indexed by their target. The index is shared by all checks, and is rebuilt at most once per
+ * refresh interval, however many files are checked. Descriptors aren't cached across refreshes,
+ * since a closed descriptor number is reused for the next file the process opens. The access mode
+ * of a descriptor, in <tt>/proc/[pid]/fdinfo</tt>, is only read for the files which are actually
+ * checked.
+ * <p>
+ * Writers which can't be seen lead to an {@link State#UNKNOWN} state, instead of a false
+ * {@link State#CLOSED}: processes of other users without the permission to inspect them, writers on
+ * other machines for network file systems, or systems without a <tt>/proc</tt> file system. When
+ * the first refresh can't see the open files of all processes, the detector disables itself, since
+ * it would never find a file closed anyway.
+ * <p>
+ * Date: 10/19/26 - 3:20 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class OpenWriterDetector {
+
+    /**
+     * The logger for class OpenWriterDetector
+     */
+    private static final Logger logger = Logger.getLogger(OpenWriterDetector.class.getName());
+
+    /**
+     * The default minimum time between two refreshes of the index, in milliseconds
+     */
+    private static final long DEFAULT_REFRESH_MILLIS = 50;
+
+    /**
+     * The mask of the access mode in the open flags of a file descriptor
+     */
+    private static final int O_ACCMODE = 3;
+
+    /**
+     * The access mode of file descriptors opened for reading only
+     */
+    private static final int O_RDONLY = 0;
+
+    /**
+     * The state of a file
+     */
+    public enum State {
+
+        /**
+         * At least one process has the file opened for writing
+         */
+        OPEN,
+
+        /**
+         * None of the processes has the file opened for writing
+         */
+        CLOSED,
+
+        /**
+         * It's unknown if a process has the file opened for writing
+         */
+        UNKNOWN
+
+    }
+
+    /**
+     * The root of the <tt>/proc</tt> file system
+     */
+    private final Path proc;
+
+    /**
+     * The minimum time between two refreshes of the index, in nano seconds
+     */
+    private final long refreshNanos;
+
+    /**
+     * The file descriptors of each open file, indexed by the target of the descriptors. Guarded by
+     * this instance.
+     */
+    private Map<String, List<Path>> index = new HashMap<>();
+
+    /**
+     * Indicates if the open files of all processes were indexed during the last refresh. Guarded by
+     * this instance.
+     */
+    private boolean complete = false;
+
+    /**
+     * The time of the last refresh in nano seconds, or 'null' when never refreshed. Guarded by this
+     * instance.
+     */
+    private Long refreshed = null;
+
+    /**
+     * Indicates if the detector disabled itself, because the first refresh couldn't see the open
+     * files of all processes
+     */
+    private volatile boolean disabled = false;
+
+    /**
+     * Create a new detector for the processes on this machine
+     */
+    public OpenWriterDetector() {
+        this(Paths.get("/proc"), DEFAULT_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a new detector
+     *
+     * @param proc            The root of the <tt>/proc</tt> file system, cannot be 'null'
+     * @param refreshInterval The minimum time between two refreshes of the index
+     * @param unit            The unit of the refresh interval, cannot be 'null'
+     * @throws IllegalArgumentException When the refresh interval is negative
+     */
+    public OpenWriterDetector(final Path proc, final long refreshInterval, final TimeUnit unit) throws IllegalArgumentException {
+        if (refreshInterval < 0) {
+            throw new IllegalArgumentException("Refresh interval cannot be negative, but was [" + refreshInterval + "]");
+        }
+        this.proc = Objects.requireNonNull(proc);
+        this.refreshNanos = unit.toNanos(refreshInterval);
+    }
+
+    /**
+     * Indicates if the open files of the processes can be inspected on this system
+     *
+     * @return <tt>true</tt> when there's a <tt>/proc</tt> file system, <tt>false</tt> if not
+     */
+    public final boolean isSupported() {
+        return Files.isDirectory(this.proc.resolve("self").resolve("fd"));
+    }
+
+    /**
+     * Indicates if the detector is still enabled. The detector disables itself when the first
+     * refresh couldn't see the open files of all processes.
+     *
+     * @return <tt>true</tt> when enabled, <tt>false</tt> when all checks give an
+     * {@link State#UNKNOWN} state
+     */
+    public final boolean isEnabled() {
+        return !this.disabled;
+    }
+
+    /**
+     * Check if the given file is opened for writing by one of the processes on this machine
+     *
+     * @param file The file to check, cannot be 'null'
+     * @return The state of the file
+     */
+    public final State getState(final File file) {
+        if (this.disabled) {
+            return State.UNKNOWN;
+        }
+
+        final String target;
+        try {
+            target = file.toPath().toRealPath().toString();
+        } catch (IOException e) {
+            return State.UNKNOWN; // Deleted or inaccessible, leave it to the other checks
+        }
+
+        final List<Path> descriptors;
+        final boolean complete;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (this.refreshed == null || now - this.refreshed >= this.refreshNanos) {
+                final boolean first = this.refreshed == null;
+                refresh();
+                this.refreshed = now;
+                if (first && !this.complete) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, "Not all processes in [" + this.proc + "] can be inspected. " +
+                                "The open writers of the files are no longer checked.");
+                    }
+                    this.disabled = true;
+                    return State.UNKNOWN;
+                }
+            }
+            descriptors = this.index.get(target);
+            complete = this.complete;
+        }
+
+        if (descriptors != null) {
+            for (final Path fdInfo : descriptors) {
+                if (isWriteMode(fdInfo)) {
+                    return State.OPEN;
+                }
+            }
+        }
+        return complete ? State.CLOSED : State.UNKNOWN;
+    }
+
+    /**
+     * Rebuild the index of the open files of all processes. The caller should hold the monitor of
+     * this instance.
+     */
+    private void refresh() {
+        final Map<String, List<Path>> index = new HashMap<>();
+        boolean complete = true;
+        try (final DirectoryStream<Path> pids = Files.newDirectoryStream(this.proc, OpenWriterDetector::isProcess)) {
+            for (final Path pid : pids) {
+                try (final DirectoryStream<Path> fds = Files.newDirectoryStream(pid.resolve("fd"))) {
+                    for (final Path fd : fds) {
+                        final String target;
+                        try {
+                            target = Files.readSymbolicLink(fd).toString();
+                        } catch (IOException e) {
+                            continue; // Closed in the meantime
+                        }
+                        index.computeIfAbsent(target, t -> new ArrayList<>(1)).add(pid.resolve("fdinfo").resolve(fd.getFileName()));
+                    }
+                } catch (AccessDeniedException e) {
+                    complete = false; // Not allowed to inspect this process
+                } catch (IOException e) {
+                    // Exited in the meantime
+                }
+            }
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to list the processes in [" + this.proc + "] : " + e.getMessage());
+            }
+            complete = false;
+        }
+
+        this.index = index;
+        this.complete = complete;
+    }
+
+    /**
+     * Check if a file descriptor was opened for writing
+     *
+     * @param fdInfo The information file of the file descriptor
+     * @return <tt>true</tt> when opened for writing, <tt>false</tt> when opened for reading only or
+     * when it's closed in the meantime
+     */
+    private static boolean isWriteMode(final Path fdInfo) {
+        try {
+            for (final String line : Files.readAllLines(fdInfo, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("flags:")) {
+                    final int flags = Integer.parseInt(line.substring("flags:".length()).trim(), 8);
+                    return (flags & O_ACCMODE) != O_RDONLY;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Check if the given entry of the <tt>/proc</tt> file system is the directory of a process
+     *
+     * @param path The entry
+     * @return <tt>true</tt> when the name of the entry is numeric
+     */
+    private static boolean isProcess(final Path path) {
+        final String name = path.getFileName().toString();
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return !name.isEmpty();
+    }
+
+}
@@ -0,0 +1,536 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DirectoryWatchService} which lists the watched directories on a fixed interval instead of
+ * relying on the notifications of the file system. Network file systems like NFS and SMB don't
+ * notify the watch service of changes made by other hosts, so polling is the only way to see them.
+ * <p>
+ * Each directory is compared with its {@link DirectorySnapshot} of the previous poll. The changes
+ * of a poll are handed to each listener as a single batch, on the polling thread. Since polling
+ * only sees the end result, a file created and deleted between two polls is never reported, and a
+ * file written several times is reported once. Files present when a directory is first polled are
+ * not reported, like with the watch service of the file system.
+ * <p>
+ * Date: 10/18/26 - 10:24 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class PollingDirectoryWatchService implements DirectoryWatchService {
+
+    /**
+     * The logger for class PollingDirectoryWatchService
+     */
+    private static final Logger logger = Logger.getLogger(PollingDirectoryWatchService.class.getName());
+
+    /**
+     * The maximum number of events in a single batch, to keep the batches of large directories
+     * manageable for the listeners
+     */
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * The interval between the end of a poll and the start of the next one, in milliseconds
+     */
+    private final long intervalMillis;
+
+    /**
+     * The lock guarding the listeners and the snapshots
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * The map of listener registrations, indexed by watched directory
+     */
+    private final Map<File, List<Registration>> listeners = new HashMap<>();
+
+    /**
+     * The snapshot of each polled directory, including the sub directories of recursively watched
+     * directories
+     */
+    private final Map<Path, DirectorySnapshot> snapshots = new HashMap<>();
+
+    /**
+     * The thread polling the directories, or 'null' when not started
+     */
+    private ScheduledExecutorService executorService = null;
+
+    /**
+     * Create a new polling watch service
+     *
+     * @param interval     The interval between the end of a poll and the start of the next one
+     * @param intervalUnit The unit of the interval, cannot be 'null'
+     * @throws IllegalArgumentException When the interval is not positive
+     */
+    public PollingDirectoryWatchService(final long interval, final TimeUnit intervalUnit) throws IllegalArgumentException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Poll interval should be positive, but was [" + interval + "]");
+        }
+        this.intervalMillis = Math.max(1, Objects.requireNonNull(intervalUnit).toMillis(interval));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void start() throws IOException {
+        final Map<File, Boolean> directories = new HashMap<>();
+        this.lock.lock();
+        try {
+            if (this.executorService != null) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Service already started. Ignoring.");
+                }
+                return;
+            }
+            this.listeners.forEach((directory, registrations) -> directories.put(directory, isRecursive(registrations)));
+        } finally {
+            this.lock.unlock();
+        }
+
+        // The directories are listed without holding the lock, since that can take long on network
+        // file systems
+        final Map<Path, DirectorySnapshot> taken = new HashMap<>();
+        directories.forEach((directory, recursive) -> takeSnapshots(directory.toPath(), recursive, Collections.emptyMap(), taken));
+
+        this.lock.lock();
+        try {
+            if (this.executorService != null) {
+                return; // Started in the meantime
+            }
+
+            taken.forEach(this.snapshots::putIfAbsent);
+            this.executorService = Executors.newSingleThreadScheduledExecutor();
+            this.executorService.scheduleWithFixedDelay(this::poll, this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void stop() {
+        this.lock.lock();
+        try {
+            if (this.executorService == null) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Service not running. Ignoring.");
+                }
+                return;
+            }
+
+            this.executorService.shutdownNow();
+            this.executorService = null;
+            this.snapshots.clear();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isStarted() {
+        this.lock.lock();
+        try {
+            return this.executorService != null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void addListener(final File directory, final DirectoryWatchListener listener) throws IllegalArgumentException, IOException {
+        addListener(directory, listener, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive) throws IllegalArgumentException, IOException {
+        addListener(directory, listener, recursive, WatchFilter.ALL);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void addListener(final File directory, final DirectoryWatchListener listener, final boolean recursive, final WatchFilter filter)
+            throws IllegalArgumentException, IOException {
+        verifyDirectoryArg(directory);
+        if (listener == null) {
+            throw new IllegalArgumentException("Expected a listener but received [null]");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Expected a filter but received [null]");
+        }
+
+        final ScheduledExecutorService executorService;
+        final boolean recursiveTree;
+        final Map<Path, DirectorySnapshot> known;
+        this.lock.lock();
+        try {
+            final List<Registration> registrations = this.listeners.computeIfAbsent(directory, d -> new ArrayList<>());
+            registrations.removeIf(r -> r.listener.equals(listener));
+            registrations.add(new Registration(listener, recursive, filter));
+            executorService = this.executorService;
+            if (executorService == null) {
+                return; // The snapshots are taken when started
+            }
+            recursiveTree = isRecursive(registrations);
+            known = new HashMap<>(this.snapshots);
+        } finally {
+            this.lock.unlock();
+        }
+
+        // Listed without holding the lock, like the polls, and published unless polled in between
+        final Map<Path, DirectorySnapshot> taken = new HashMap<>();
+        takeSnapshots(directory.toPath(), recursiveTree, known, taken);
+
+        this.lock.lock();
+        try {
+            if (this.executorService == executorService) {
+                taken.forEach(this.snapshots::putIfAbsent);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void removeListener(final File directory, final DirectoryWatchListener listener) throws IllegalArgumentException, IOException {
+        verifyDirectoryArg(directory);
+
+        this.lock.lock();
+        try {
+            this.listeners.getOrDefault(directory, Collections.emptyList()).removeIf(r -> r.listener.equals(listener));
+            this.listeners.values().removeIf(List::isEmpty);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void removeListener(final DirectoryWatchListener listener) throws IOException {
+        this.lock.lock();
+        try {
+            this.listeners.values().forEach(l -> l.removeIf(r -> r.listener.equals(listener)));
+            this.listeners.values().removeIf(List::isEmpty);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Set<File> getWatchedDirectories() {
+        this.lock.lock();
+        try {
+            return Collections.unmodifiableSet(new HashSet<>(this.listeners.keySet()));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Poll all watched directories, and hand the changes since the previous poll over to the
+     * listeners. The directories are listed without holding the lock, on a copy of the
+     * registrations and the snapshots, so registering listeners never waits for a poll. The new
+     * snapshots are published once the poll is done.
+     */
+    final void poll() {
+        final ScheduledExecutorService executorService;
+        final Map<File, List<Registration>> listeners = new HashMap<>();
+        final Map<Path, DirectorySnapshot> previous;
+        this.lock.lock();
+        try {
+            executorService = this.executorService;
+            if (executorService == null) {
+                return;
+            }
+            this.listeners.forEach((directory, registrations) -> listeners.put(directory, new ArrayList<>(registrations)));
+            previous = new HashMap<>(this.snapshots);
+        } finally {
+            this.lock.unlock();
+        }
+
+        final Map<DirectoryWatchListener, List<DirectoryWatchEvent>> batches = new LinkedHashMap<>();
+        final Map<Path, DirectorySnapshot> current = new HashMap<>();
+        final Set<Path> polled = new HashSet<>();
+        try {
+            final Map<Path, EventType> changes = new LinkedHashMap<>();
+            for (final Map.Entry<File, List<Registration>> entry : listeners.entrySet()) {
+                poll(entry.getKey().toPath(), isRecursive(entry.getValue()), false, previous, current, changes, polled);
+            }
+
+            final Map<Path, List<Registration>> directoryListeners = new HashMap<>();
+            for (final Map.Entry<Path, EventType> change : changes.entrySet()) {
+                final Path path = change.getKey();
+                DirectoryWatchEvent event = null;
+                for (final Registration registration : directoryListeners.computeIfAbsent(path.getParent(), d -> getListeners(listeners, d))) {
+                    if (registration.filter.accepts(path.getFileName(), change.getValue())) {
+                        if (event == null) {
+                            event = new DirectoryWatchEvent(path.toFile(), change.getValue());
+                        }
+                        batches.computeIfAbsent(registration.listener, l -> new ArrayList<>()).add(event);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Don't let a single failure stop the scheduled polls
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to poll the watched directories : " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            if (this.executorService != executorService) {
+                return; // Stopped in the meantime
+            }
+            // Directories which are no longer watched are dropped, the snapshots taken by new
+            // registrations during the poll are kept
+            this.snapshots.putAll(current);
+            previous.keySet().removeAll(polled);
+            this.snapshots.keySet().removeAll(previous.keySet());
+        } finally {
+            this.lock.unlock();
+        }
+
+        batches.forEach(this::notify);
+    }
+
+    /**
+     * Compare a directory with its snapshot of the previous poll, and take its new snapshot
+     *
+     * @param directory The directory
+     * @param recursive Indicates if the sub directories should be polled as well
+     * @param created   Indicates if the directory was created since the previous poll, in which
+     *                  case all of its entries are reported as created
+     * @param previous  The snapshots of the previous poll
+     * @param current   The snapshots taken during this poll
+     * @param changes   The changes found during this poll
+     * @param polled    The directories polled so far
+     */
+    private static void poll(final Path directory, final boolean recursive, final boolean created, final Map<Path, DirectorySnapshot> previous,
+                             final Map<Path, DirectorySnapshot> current, final Map<Path, EventType> changes, final Set<Path> polled) {
+        if (!polled.add(directory)) {
+            return; // Part of another watched tree as well
+        }
+
+        final DirectorySnapshot snapshot;
+        try {
+            snapshot = DirectorySnapshot.of(directory);
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to poll directory [" + directory + "] : " + e.getMessage());
+            }
+            return; // Keep the previous snapshot, to report the changes once it can be listed again
+        }
+
+        current.put(directory, snapshot);
+        final DirectorySnapshot last = previous.get(directory);
+        if (last != null || created) {
+            (last != null ? last : DirectorySnapshot.empty()).diff(snapshot, (name, type) -> changes.put(directory.resolve(name), type));
+        }
+
+        if (recursive) {
+            for (final String name : snapshot.getDirectories()) {
+                final Path subDirectory = directory.resolve(name);
+                poll(subDirectory, true, (last != null || created) && !previous.containsKey(subDirectory), previous, current, changes, polled);
+            }
+        }
+    }
+
+    /**
+     * Take the first snapshot of a directory, and of its sub directories when recursive, to compare
+     * the next poll with. Directories which have a snapshot already are skipped, so changes since
+     * their last poll are still reported.
+     *
+     * @param directory The directory
+     * @param recursive Indicates if the snapshots of the sub directories should be taken as well
+     * @param known     The snapshots which were taken already
+     * @param taken     The snapshots taken by this call
+     */
+    private static void takeSnapshots(final Path directory, final boolean recursive, final Map<Path, DirectorySnapshot> known,
+                                      final Map<Path, DirectorySnapshot> taken) {
+        DirectorySnapshot snapshot = known.containsKey(directory) ? known.get(directory) : taken.get(directory);
+        if (snapshot == null) {
+            try {
+                snapshot = DirectorySnapshot.of(directory);
+                taken.put(directory, snapshot);
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to take snapshot of directory [" + directory + "] : " + e.getMessage());
+                }
+                return;
+            }
+        }
+
+        if (recursive) {
+            for (final String name : snapshot.getDirectories()) {
+                takeSnapshots(directory.resolve(name), true, known, taken);
+            }
+        }
+    }
+
+    /**
+     * Hand the events of a poll over to a listener, in batches of at most {@link #MAX_BATCH_SIZE}
+     * events
+     *
+     * @param listener The listener
+     * @param events   The events for the listener
+     */
+    private void notify(final DirectoryWatchListener listener, final List<DirectoryWatchEvent> events) {
+        for (int start = 0; start < events.size(); start += MAX_BATCH_SIZE) {
+            final List<DirectoryWatchEvent> batch = events.subList(start, Math.min(events.size(), start + MAX_BATCH_SIZE));
+            try {
+                if (listener instanceof DirectoryWatchBatchListener) {
+                    ((DirectoryWatchBatchListener) listener).updated(batch);
+                } else {
+                    for (final DirectoryWatchEvent event : batch) {
+                        listener.updated(event.getFile(), event.getType());
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Listener [" + listener + "] failed to handle events : " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the listeners which should be notified of events in the given directory
+     *
+     * @param listeners The listener registrations, indexed by watched directory
+     * @param directory The directory
+     * @return The registrations on the directory itself, and the recursive registrations on one of
+     * its parents, at most one per listener
+     */
+    private static List<Registration> getListeners(final Map<File, List<Registration>> listeners, final Path directory) {
+        final List<Registration> result = new ArrayList<>();
+        if (directory == null) {
+            return result;
+        }
+
+        for (final Map.Entry<File, List<Registration>> entry : listeners.entrySet()) {
+            final Path root = entry.getKey().toPath();
+            final boolean exact = directory.equals(root);
+            if (exact || directory.startsWith(root)) {
+                for (final Registration registration : entry.getValue()) {
+                    if ((exact || registration.recursive) && result.stream().noneMatch(r -> r.listener.equals(registration.listener))) {
+                        result.add(registration);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates if one of the given registrations is recursive
+     *
+     * @param registrations The registrations of a watched directory
+     * @return <tt>true</tt> when the sub directories should be watched, <tt>false</tt> if not
+     */
+    private static boolean isRecursive(final List<Registration> registrations) {
+        return registrations.stream().anyMatch(r -> r.recursive);
+    }
+
+    /**
+     * Checks if the specified directory is not null, is an actual directory and is readable.
+     *
+     * @param directory the directory that has to be verified
+     * @throws IllegalArgumentException if {@code directory} is null, not a directory or not
+     *                                  readable
+     */
+    private static void verifyDirectoryArg(final File directory) throws IllegalArgumentException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Expected a directory but received [null]");
+        }
+
+        if (!directory.exists()) {
+            throw new IllegalArgumentException("Directory [" + directory + "] doesn't exist.");
+        }
+
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Expected a directory  but [" + directory + "] is not one.");
+        }
+
+        if (!directory.canRead()) {
+            throw new IllegalArgumentException("Can't read contents of directory  [" + directory + "] due to directory permissions.");
+        }
+    }
+
+    /**
+     * A listener registered on a watched directory
+     */
+    private static final class Registration {
+
+        /**
+         * The listener callback
+         */
+        private final DirectoryWatchListener listener;
+
+        /**
+         * Indicates if the listener is notified of events in sub directories as well
+         */
+        private final boolean recursive;
+
+        /**
+         * The filter selecting the events for the listener
+         */
+        private final WatchFilter filter;
+
+        /**
+         * Create a new registration
+         *
+         * @param listener  The listener callback
+         * @param recursive Indicates if the listener is notified of events in sub directories
+         * @param filter    The filter selecting the events for the listener
+         */
+        private Registration(final DirectoryWatchListener listener, final boolean recursive, final WatchFilter filter) {
+            this.listener = listener;
+            this.recursive = recursive;
+            this.filter = filter;
+        }
+
+    }
+
+}
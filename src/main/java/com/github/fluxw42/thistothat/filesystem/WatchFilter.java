@@ -0,0 +1,185 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Selects the events a {@link DirectoryWatchListener} is interested in, by the name of the file and
+ * the type of the event. The {@link DirectoryWatchService} checks the name reported by the file
+ * system before the event is resolved, coalesced or dispatched, so events for files nobody is
+ * interested in, like temporary files, are dropped as early as possible. The type is checked after
+ * the events of a file are coalesced, just before they're handed over to the listener.
+ * <p>
+ * A filter is immutable. The name should have one of the extensions, match the glob pattern and
+ * the event should be of one of the types, for each of the restrictions which are set.
+ * <p>
+ * Date: 10/19/26 - 2:20 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public final class WatchFilter {
+
+    /**
+     * The filter accepting all events
+     */
+    public static final WatchFilter ALL = new WatchFilter(null, null, null, EnumSet.allOf(EventType.class));
+
+    /**
+     * The accepted extensions, each including the leading dot, or 'null' to accept any extension
+     */
+    private final String[] extensions;
+
+    /**
+     * The glob pattern the file name should match, or 'null' to accept any name
+     */
+    private final String glob;
+
+    /**
+     * The matcher of the glob pattern, or 'null' to accept any name
+     */
+    private final PathMatcher matcher;
+
+    /**
+     * The accepted event types
+     */
+    private final Set<EventType> types;
+
+    /**
+     * Create a new filter
+     *
+     * @param extensions The accepted extensions, each including the leading dot, or 'null'
+     * @param glob       The glob pattern, or 'null'
+     * @param matcher    The matcher of the glob pattern, or 'null'
+     * @param types      The accepted event types
+     */
+    private WatchFilter(final String[] extensions, final String glob, final PathMatcher matcher, final Set<EventType> types) {
+        this.extensions = extensions;
+        this.glob = glob;
+        this.matcher = matcher;
+        this.types = types;
+    }
+
+    /**
+     * Create a new filter accepting the files with one of the given extensions, ignoring case
+     *
+     * @param extensions The extensions, without the leading dot, cannot be 'null'
+     * @return The new filter
+     */
+    public static WatchFilter extensions(final Collection<String> extensions) {
+        return ALL.withExtensions(extensions);
+    }
+
+    /**
+     * Create a new filter accepting the files of which the name matches the given glob pattern,
+     * like <tt>*.{wav,flac}</tt>
+     *
+     * @param glob The glob pattern, cannot be 'null'
+     * @return The new filter
+     * @throws IllegalArgumentException When the pattern is invalid
+     */
+    public static WatchFilter glob(final String glob) throws IllegalArgumentException {
+        return ALL.withGlob(glob);
+    }
+
+    /**
+     * Get a copy of this filter, only accepting the files with one of the given extensions
+     *
+     * @param extensions The extensions, without the leading dot, cannot be 'null'
+     * @return The new filter
+     */
+    public WatchFilter withExtensions(final Collection<String> extensions) {
+        final String[] dotted = Objects.requireNonNull(extensions).stream()
+                .map(extension -> "." + extension)
+                .distinct()
+                .toArray(String[]::new);
+        return new WatchFilter(dotted, this.glob, this.matcher, this.types);
+    }
+
+    /**
+     * Get a copy of this filter, only accepting the files of which the name matches the given glob
+     * pattern
+     *
+     * @param glob The glob pattern, cannot be 'null'
+     * @return The new filter
+     * @throws IllegalArgumentException When the pattern is invalid
+     */
+    public WatchFilter withGlob(final String glob) throws IllegalArgumentException {
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + Objects.requireNonNull(glob));
+        return new WatchFilter(this.extensions, glob, matcher, this.types);
+    }
+
+    /**
+     * Get a copy of this filter, only accepting the events of the given types
+     *
+     * @param types The accepted event types, at least one
+     * @return The new filter
+     * @throws IllegalArgumentException When no event types are given
+     */
+    public WatchFilter withTypes(final EventType... types) throws IllegalArgumentException {
+        if (types == null || types.length == 0) {
+            throw new IllegalArgumentException("Expected at least one event type, but received none");
+        }
+        return new WatchFilter(this.extensions, this.glob, this.matcher, Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(types))));
+    }
+
+    /**
+     * Check if an event is accepted by this filter
+     *
+     * @param name The name of the file, as reported by the file system, cannot be 'null'
+     * @param type The type of the event, cannot be 'null'
+     * @return <tt>true</tt> when the event is accepted, <tt>false</tt> when it should be dropped
+     */
+    public boolean accepts(final Path name, final EventType type) {
+        return this.types.contains(type) && accepts(name);
+    }
+
+    /**
+     * Check if the events of a file are accepted by this filter, regardless of their type. Used to
+     * drop the events before they're coalesced, since coalescing changes their type.
+     *
+     * @param name The name of the file, as reported by the file system, cannot be 'null'
+     * @return <tt>true</tt> when some of the events of the file can be accepted, <tt>false</tt> when
+     * all of them should be dropped
+     */
+    boolean accepts(final Path name) {
+        if (this.extensions != null && !hasExtension(name.toString())) {
+            return false;
+        }
+        return this.matcher == null || this.matcher.matches(name);
+    }
+
+    /**
+     * Check if the given file name ends with one of the extensions, ignoring case
+     *
+     * @param name The file name
+     * @return <tt>true</tt> when the name has one of the extensions
+     */
+    private boolean hasExtension(final String name) {
+        for (final String extension : this.extensions) {
+            if (name.regionMatches(true, name.length() - extension.length(), extension, 0, extension.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WatchFilter{" +
+                "extensions=" + (this.extensions != null ? Arrays.toString(this.extensions) : "*") +
+                ", glob=" + (this.glob != null ? this.glob : "*") +
+                ", types=" + this.types +
+                '}';
+    }
+
+}
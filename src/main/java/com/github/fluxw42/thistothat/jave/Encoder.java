@@ -98,6 +98,16 @@ public class Encoder {
 			"^\\s*video\\:\\S+\\s+audio\\:\\S+\\s+global headers\\:\\S+.*$",
 			Pattern.CASE_INSENSITIVE);
 
+	/**
+	 * The ffmpeg process of the encoding in progress, or null when there's none.
+	 */
+	private FFMPEGExecutor current = null;
+
+	/**
+	 * Indicates if the encoding was aborted with {@link Encoder#abort()}.
+	 */
+	private volatile boolean aborted = false;
+
 	/**
 	 * Returns a list with the names of all the audio decoders bundled with the
 	 * ffmpeg distribution in use. An audio stream can be decoded only if a
@@ -662,6 +672,39 @@ public class Encoder {
 		return table;
 	}
 
+	/**
+	 * Private utility. Parse the time reported in a progress line, either in
+	 * the <tt>HH:MM:SS.cc</tt> format of current ffmpeg versions, or in the
+	 * plain seconds of older versions, like <tt>83.4</tt>.
+	 * 
+	 * @param time
+	 *            The value of the time field.
+	 * @return The time in milliseconds, or -1 if the time can not be parsed,
+	 *         like <tt>N/A</tt> or a negative time.
+	 */
+	static long parseProgressTime(String time) {
+		if (time.startsWith("-")) {
+			return -1;
+		}
+		String[] parts = time.split(":");
+		if (parts.length > 3) {
+			return -1;
+		}
+		try {
+			long minutes = 0;
+			for (int i = 0; i < parts.length - 1; i++) {
+				minutes = minutes * 60 + Long.parseLong(parts[i]);
+			}
+			double seconds = Double.parseDouble(parts[parts.length - 1]);
+			if (!(seconds >= 0) || Double.isInfinite(seconds)) {
+				return -1;
+			}
+			return minutes * 60000L + Math.round(seconds * 1000);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
 	/**
 	 * Re-encode a multimedia file.
 	 * 
@@ -721,6 +764,8 @@ public class Encoder {
 		Float durationAttribute = attributes.getDuration();
 		AudioAttributes audioAttributes = attributes.getAudioAttributes();
 		VideoAttributes videoAttributes = attributes.getVideoAttributes();
+		Integer threadsAttribute = attributes.getThreads();
+		Integer filterThreadsAttribute = attributes.getFilterThreads();
 		if (audioAttributes == null && videoAttributes == null) {
 			throw new IllegalArgumentException(
 					"Both audio and video attributes are null");
@@ -728,6 +773,10 @@ public class Encoder {
 		target = target.getAbsoluteFile();
 		target.getParentFile().mkdirs();
 		FFMPEGExecutor ffmpeg = new FFMPEGExecutor();
+		if (filterThreadsAttribute != null) {
+			ffmpeg.addArgument("-filter_threads");
+			ffmpeg.addArgument(String.valueOf(filterThreadsAttribute.intValue()));
+		}
 		if (offsetAttribute != null) {
 			ffmpeg.addArgument("-ss");
 			ffmpeg.addArgument(String.valueOf(offsetAttribute.floatValue()));
@@ -797,14 +846,24 @@ public class Encoder {
 				ffmpeg.addArgument(String.valueOf(volume.intValue()));
 			}
 		}
+		if (threadsAttribute != null) {
+			ffmpeg.addArgument("-threads");
+			ffmpeg.addArgument(String.valueOf(threadsAttribute.intValue()));
+		}
 		ffmpeg.addArgument("-f");
 		ffmpeg.addArgument(formatAttribute);
 		ffmpeg.addArgument("-y");
 		ffmpeg.addArgument(target.getAbsolutePath());
-		try {
-			ffmpeg.execute();
-		} catch (IOException e) {
-			throw new EncoderException(e);
+		synchronized (this) {
+			if (aborted) {
+				throw new EncoderException("Encoding of " + source + " aborted");
+			}
+			try {
+				ffmpeg.execute();
+			} catch (IOException e) {
+				throw new EncoderException(e);
+			}
+			current = ffmpeg;
 		}
 		try {
 			String lastWarning = null;
@@ -868,27 +927,18 @@ public class Encoder {
 						} else {
 							if (listener != null) {
 								String time = (String) table.get("time");
-								if (time != null) {
-									int dot = time.indexOf('.');
-									if (dot > 0 && dot == time.length() - 2
-											&& duration > 0) {
-										String p1 = time.substring(0, dot);
-										String p2 = time.substring(dot + 1);
-										try {
-											long i1 = Long.parseLong(p1);
-											long i2 = Long.parseLong(p2);
-											progress = (i1 * 1000L)
-													+ (i2 * 100L);
-											int perm = (int) Math
-													.round((double) (progress * 1000L)
-															/ (double) duration);
-											if (perm > 1000) {
-												perm = 1000;
-											}
-											listener.progress(perm);
-										} catch (NumberFormatException e) {
-											;
+								long position = time != null ? parseProgressTime(time) : -1;
+								if (position >= 0) {
+									progress = position;
+									listener.position(progress);
+									if (duration > 0) {
+										int perm = (int) Math
+												.round((double) (progress * 1000L)
+														/ (double) duration);
+										if (perm > 1000) {
+											perm = 1000;
 										}
+										listener.progress(perm);
 									}
 								}
 							}
@@ -897,16 +947,64 @@ public class Encoder {
 					}
 				}
 			}
+			if (aborted) {
+				throw new EncoderException("Encoding of " + source + " aborted");
+			}
 			if (lastWarning != null) {
 				if (!SUCCESS_PATTERN.matcher(lastWarning).matches()) {
 					throw new EncoderException(lastWarning);
 				}
 			}
 		} catch (IOException e) {
+			if (aborted) {
+				throw new EncoderException("Encoding of " + source + " aborted");
+			}
 			throw new EncoderException(e);
 		} finally {
+			synchronized (this) {
+				current = null;
+			}
 			ffmpeg.destroy();
 		}
 	}
 
+	/**
+	 * Aborts the encoding in progress, killing its ffmpeg process. The
+	 * pending {@link Encoder#encode(File, File, EncodingAttributes, EncoderProgressListener)}
+	 * call fails with an {@link EncoderException}. Once aborted, every
+	 * following encoding with this instance fails immediately. This method
+	 * can be called from any thread.
+	 */
+	public void abort() {
+		synchronized (this) {
+			aborted = true;
+			if (current != null) {
+				current.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Sets the time the ffmpeg processes of ongoing encodings get to finish
+	 * when the jvm shuts down, before they're killed. By default they're
+	 * killed right away. The grace period only applies to encodings started
+	 * after this call.
+	 * 
+	 * @param gracePeriod
+	 *            The grace period (milliseconds), or 0 to kill them right
+	 *            away.
+	 */
+	public static void setShutdownGracePeriod(long gracePeriod) {
+		FFMPEGExecutor.setShutdownGracePeriod(gracePeriod);
+	}
+
+	/**
+	 * Tells if this encoder was aborted.
+	 * 
+	 * @return true if {@link Encoder#abort()} was called.
+	 */
+	public boolean isAborted() {
+		return aborted;
+	}
+
 }
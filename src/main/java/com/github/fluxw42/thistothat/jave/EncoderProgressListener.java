@@ -43,6 +43,15 @@ public interface EncoderProgressListener {
 	 */
 	public void progress(int permil);
 
+	/**
+	 * This method is called to notify the position in the source stream the
+	 * encoding process reached, as reported by ffmpeg.
+	 * 
+	 * @param millis
+	 *            The encoded media time in milliseconds.
+	 */
+	public void position(long millis);
+
 	/**
 	 * This method is called every time the encoder need to send a message
 	 * (usually, a warning).
@@ -62,6 +62,18 @@ public class EncodingAttributes implements Serializable {
 	 */
 	private VideoAttributes videoAttributes = null;
 
+	/**
+	 * The number of threads used by the codecs. If null or not specified
+	 * ffmpeg decides on its own, which usually means one thread per core.
+	 */
+	private Integer threads = null;
+
+	/**
+	 * The number of threads used to process the filter graphs. If null or not
+	 * specified ffmpeg decides on its own.
+	 */
+	private Integer filterThreads = null;
+
 	/**
 	 * Returns the format name for the encoded target multimedia file.
 	 * 
@@ -171,10 +183,53 @@ public class EncodingAttributes implements Serializable {
 		this.videoAttributes = videoAttributes;
 	}
 
+	/**
+	 * Returns the number of threads used by the codecs.
+	 * 
+	 * @return The number of threads used by the codecs.
+	 */
+	Integer getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads used by the codecs. If null or not specified
+	 * ffmpeg decides on its own. When multiple encodings run in parallel, it's
+	 * better to limit the threads of each, so together they don't use more
+	 * threads than there are cores.
+	 * 
+	 * @param threads
+	 *            The number of threads used by the codecs.
+	 */
+	public void setThreads(Integer threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the number of threads used to process the filter graphs.
+	 * 
+	 * @return The number of threads used to process the filter graphs.
+	 */
+	Integer getFilterThreads() {
+		return filterThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to process the filter graphs. If null or
+	 * not specified ffmpeg decides on its own.
+	 * 
+	 * @param filterThreads
+	 *            The number of threads used to process the filter graphs.
+	 */
+	public void setFilterThreads(Integer filterThreads) {
+		this.filterThreads = filterThreads;
+	}
+
 	public String toString() {
 		return getClass().getName() + "(format=" + format + ", offset="
 				+ offset + ", duration=" + duration + ", audioAttributes="
 				+ audioAttributes + ", videoAttributes=" + videoAttributes
+				+ ", threads=" + threads + ", filterThreads=" + filterThreads
 				+ ")";
 	}
 
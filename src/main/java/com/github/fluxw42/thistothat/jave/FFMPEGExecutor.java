@@ -34,6 +34,12 @@ import java.util.List;
  */
 class FFMPEGExecutor {
 
+	/**
+	 * The time (milliseconds) running ffmpeg processes get to finish when the
+	 * jvm shuts down, before they're killed.
+	 */
+	private static volatile long shutdownGracePeriod = 0;
+
 	/**
 	 * The path of the ffmpeg executable.
 	 */
@@ -117,7 +123,7 @@ class FFMPEGExecutor {
 	 * @throws IOException
 	 *             If the process call fails.
 	 */
-	public void execute() throws IOException {
+	public synchronized void execute() throws IOException {
 		int argsSize = args.size();
 		String[] cmd = new String[argsSize + 1];
 		cmd[0] = ffmpegExecutablePath;
@@ -126,7 +132,7 @@ class FFMPEGExecutor {
 		}
 		Runtime runtime = Runtime.getRuntime();
 		ffmpeg = runtime.exec(cmd);
-		ffmpegKiller = new ProcessKiller(ffmpeg);
+		ffmpegKiller = new ProcessKiller(ffmpeg, shutdownGracePeriod);
 		runtime.addShutdownHook(ffmpegKiller);
 		inputStream = ffmpeg.getInputStream();
 		outputStream = ffmpeg.getOutputStream();
@@ -161,9 +167,10 @@ class FFMPEGExecutor {
 	}
 
 	/**
-	 * If there's a ffmpeg execution in progress, it kills it.
+	 * If there's a ffmpeg execution in progress, it kills it. This method can
+	 * be called from another thread than the one reading the ffmpeg output.
 	 */
-	public void destroy() {
+	public synchronized void destroy() {
 		if (inputStream != null) {
 			try {
 				inputStream.close();
@@ -194,9 +201,25 @@ class FFMPEGExecutor {
 		}
 		if (ffmpegKiller != null) {
 			Runtime runtime = Runtime.getRuntime();
-			runtime.removeShutdownHook(ffmpegKiller);
+			try {
+				runtime.removeShutdownHook(ffmpegKiller);
+			} catch (IllegalStateException e) {
+				; // The jvm is shutting down, the hook is running already
+			}
 			ffmpegKiller = null;
 		}
 	}
 
+	/**
+	 * Sets the time running ffmpeg processes get to finish when the jvm
+	 * shuts down, before they're killed.
+	 * 
+	 * @param gracePeriod
+	 *            The grace period (milliseconds), or 0 to kill them right
+	 *            away.
+	 */
+	static void setShutdownGracePeriod(long gracePeriod) {
+		shutdownGracePeriod = Math.max(0, gracePeriod);
+	}
+
 }
@@ -18,6 +18,8 @@
  */
 package com.github.fluxw42.thistothat.jave;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A package-private utility to add a shutdown hook to kill ongoing encoding
  * processes at the jvm shutdown.
@@ -31,6 +33,11 @@ class ProcessKiller extends Thread {
 	 */
 	private Process process;
 
+	/**
+	 * The time (milliseconds) the process gets to finish on its own.
+	 */
+	private long gracePeriod;
+
 	/**
 	 * Builds the killer.
 	 * 
@@ -38,13 +45,34 @@ class ProcessKiller extends Thread {
 	 *            The process to kill.
 	 */
 	public ProcessKiller(Process process) {
+		this(process, 0);
+	}
+
+	/**
+	 * Builds the killer.
+	 * 
+	 * @param process
+	 *            The process to kill.
+	 * @param gracePeriod
+	 *            The time (milliseconds) the process gets to finish on its
+	 *            own before it's killed, or 0 to kill it right away.
+	 */
+	public ProcessKiller(Process process, long gracePeriod) {
 		this.process = process;
+		this.gracePeriod = gracePeriod;
 	}
 
 	/**
-	 * It kills the supplied process.
+	 * It kills the supplied process, after waiting for the grace period.
 	 */
 	public void run() {
+		if (gracePeriod > 0) {
+			try {
+				process.waitFor(gracePeriod, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				;
+			}
+		}
 		process.destroy();
 	}
 
@@ -0,0 +1,259 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adjusts the limit of a {@link ConcurrencyLimiter} to the measured conversion throughput and the
+ * system load, using an additive increase / multiplicative decrease algorithm.
+ * <p>
+ * The throughput is the number of media seconds encoded per wall clock second, summed over all
+ * conversions. While there's a backlog and as many conversions are running as the limit allows,
+ * the limit grows by one each interval. When the extra conversion didn't increase the throughput,
+ * the limit is lowered again (the conversions are I/O bound). When the load average exceeds the
+ * number of processors, the limit is cut by a quarter (the conversions are CPU bound).
+ * <p>
+ * The running conversions are counted separately from the permits of the limiter, since idle
+ * workers hold a permit while they wait for a task.
+ * <p>
+ * Date: 10/18/26 - 2:34 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class AdaptiveConcurrencyController {
+
+    /**
+     * The logger for class AdaptiveConcurrencyController
+     */
+    private static final Logger logger = Logger.getLogger(AdaptiveConcurrencyController.class.getName());
+
+    /**
+     * The file containing the load average on Linux
+     */
+    private static final Path LOAD_AVERAGE = Paths.get("/proc/loadavg");
+
+    /**
+     * The relative throughput gain an additional conversion should bring to be kept
+     */
+    private static final double MIN_GAIN = 0.05;
+
+    /**
+     * The factor applied to the limit when the system is overloaded
+     */
+    private static final double DECREASE_FACTOR = 0.75;
+
+    /**
+     * The number of intervals the limit is not increased after a decrease
+     */
+    private static final int COOLDOWN_INTERVALS = 3;
+
+    /**
+     * The limiter being controlled
+     */
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * The lowest allowed limit
+     */
+    private final int floor;
+
+    /**
+     * The highest allowed limit
+     */
+    private final int ceiling;
+
+    /**
+     * The number of tasks waiting for a permit
+     */
+    private final IntSupplier backlog;
+
+    /**
+     * The number of conversions in progress
+     */
+    private final IntSupplier busy;
+
+    /**
+     * The load average above which the system is considered overloaded
+     */
+    private final double maxLoad = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The media time encoded since the last adjustment, in milliseconds
+     */
+    private final LongAdder encoded = new LongAdder();
+
+    /**
+     * The executor running the periodic adjustment, or 'null' when not started
+     */
+    private ScheduledExecutorService executor = null;
+
+    /**
+     * The moment of the last adjustment in nano seconds
+     */
+    private long lastSample = System.nanoTime();
+
+    /**
+     * The throughput measured during the previous interval
+     */
+    private double previousThroughput = 0;
+
+    /**
+     * The limit during the previous interval
+     */
+    private int previousLimit;
+
+    /**
+     * The number of remaining intervals the limit shouldn't grow
+     */
+    private int cooldown = 0;
+
+    /**
+     * Create a new controller for the given limiter
+     *
+     * @param limiter The limiter that has to be controlled, cannot be 'null'
+     * @param floor   The lowest allowed limit, at least <tt>1</tt>
+     * @param ceiling The highest allowed limit, at least the floor
+     * @param backlog Supplies the number of tasks waiting to be converted, cannot be 'null'
+     * @param busy    Supplies the number of conversions in progress, cannot be 'null'
+     * @throws IllegalArgumentException When the floor or ceiling is invalid
+     */
+    public AdaptiveConcurrencyController(final ConcurrencyLimiter limiter, final int floor, final int ceiling,
+                                         final IntSupplier backlog, final IntSupplier busy) throws IllegalArgumentException {
+        if (floor < 1 || ceiling < floor) {
+            throw new IllegalArgumentException("Invalid concurrency range [" + floor + ", " + ceiling + "]");
+        }
+        this.limiter = Objects.requireNonNull(limiter);
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.backlog = Objects.requireNonNull(backlog);
+        this.busy = Objects.requireNonNull(busy);
+        this.previousLimit = limiter.getLimit();
+    }
+
+    /**
+     * Start adjusting the limit periodically. Calling start when already started has no influence
+     *
+     * @param interval     The time between two adjustments
+     * @param intervalUnit The unit of the interval, cannot be 'null'
+     */
+    public final synchronized void start(final long interval, final TimeUnit intervalUnit) {
+        if (this.executor != null) {
+            return;
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "concurrency-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::adjust, interval, interval, Objects.requireNonNull(intervalUnit));
+    }
+
+    /**
+     * Stop adjusting the limit. Calling stop when already stopped has no influence
+     */
+    public final synchronized void stop() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Record progress made by one of the conversions
+     *
+     * @param millis The media time encoded since the previous call for the same conversion
+     */
+    public final void encoded(final long millis) {
+        if (millis > 0) {
+            this.encoded.add(millis);
+        }
+    }
+
+    /**
+     * Measure the throughput and system load since the previous adjustment, and adjust the limit
+     */
+    final synchronized void adjust() {
+        final long now = System.nanoTime();
+        final long wallMillis = TimeUnit.NANOSECONDS.toMillis(now - this.lastSample);
+        this.lastSample = now;
+        final long mediaMillis = this.encoded.sumThenReset();
+        if (wallMillis <= 0) {
+            return;
+        }
+
+        adjust((double) mediaMillis / wallMillis, readLoadAverage(), this.backlog.getAsInt());
+    }
+
+    /**
+     * Adjust the limit using the given measurements
+     *
+     * @param throughput The media seconds encoded per wall clock second during the last interval
+     * @param load       The system load average, or a negative value when unknown
+     * @param waiting    The number of tasks waiting to be converted
+     */
+    final synchronized void adjust(final double throughput, final double load, final int waiting) {
+        final int limit = this.limiter.getLimit();
+        int newLimit = limit;
+
+        if (load > this.maxLoad) {
+            newLimit = Math.min(limit - 1, (int) (limit * DECREASE_FACTOR));
+            this.cooldown = COOLDOWN_INTERVALS;
+        } else if (limit > this.previousLimit && throughput < this.previousThroughput * (1 + MIN_GAIN)) {
+            newLimit = limit - 1;
+            this.cooldown = COOLDOWN_INTERVALS;
+        } else if (this.cooldown > 0) {
+            this.cooldown--;
+        } else if (waiting > 0 && this.busy.getAsInt() >= limit) {
+            newLimit = limit + 1;
+        }
+
+        newLimit = Math.max(this.floor, Math.min(this.ceiling, newLimit));
+        this.previousLimit = limit;
+        this.previousThroughput = throughput;
+
+        if (newLimit != limit) {
+            this.limiter.setLimit(newLimit);
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, "Changed concurrency from [" + limit + "] to [" + newLimit + "] " +
+                        "(throughput [" + String.format("%.2f", throughput) + "], load [" + load + "])");
+            }
+        }
+    }
+
+    /**
+     * Read the one minute load average from /proc/loadavg, falling back to the operating system
+     * MX bean when that's not available.
+     *
+     * @return The load average, or a negative value when not available
+     */
+    private static double readLoadAverage() {
+        if (Files.isReadable(LOAD_AVERAGE)) {
+            try {
+                final List<String> lines = Files.readAllLines(LOAD_AVERAGE, StandardCharsets.US_ASCII);
+                if (!lines.isEmpty()) {
+                    return Double.parseDouble(lines.get(0).trim().split("\\s+")[0]);
+                }
+            } catch (IOException | NumberFormatException e) {
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "Failed to read load average : " + e.getMessage(), e);
+                }
+            }
+        }
+        return ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounds the number of pending tasks. Once the number of pending tasks reaches the high watermark,
+ * new files are no longer admitted. Their path is appended to a spill file instead, without
+ * allocating a task for them. Once the number of pending tasks dropped to the low watermark, the
+ * spilled paths are re-admitted in batches, until the spill file is drained.
+ * <p>
+ * Spilled paths are written with {@link DataOutputStream#writeUTF(String)}, so the spill file only
+ * costs a two byte length prefix per path. A path can be spilled more than once, since re-admitting
+ * a path for which a task is already pending only re-arms that task.
+ * <p>
+ * The offset of the next path to re-admit is kept in a small file next to the spill file, updated
+ * after each batch, so after a restart only the paths which were not re-admitted yet come back.
+ * <p>
+ * Date: 10/18/26 - 5:20 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class AdmissionController {
+
+    /**
+     * The logger for class AdmissionController
+     */
+    private static final Logger logger = Logger.getLogger(AdmissionController.class.getName());
+
+    /**
+     * The number of pending tasks at which new files are spilled
+     */
+    private final int highWatermark;
+
+    /**
+     * The number of pending tasks at which spilled files are re-admitted
+     */
+    private final int lowWatermark;
+
+    /**
+     * The file the spilled paths are written to
+     */
+    private final File spillFile;
+
+    /**
+     * The file holding the offset of the next path to re-admit
+     */
+    private final File offsetFile;
+
+    /**
+     * Supplies the current number of pending tasks
+     */
+    private final IntSupplier pending;
+
+    /**
+     * The stream appending paths to the spill file, or 'null' when it's not opened yet
+     */
+    private DataOutputStream writer = null;
+
+    /**
+     * The offset in the spill file of the next path to re-admit
+     */
+    private long readOffset = 0;
+
+    /**
+     * The last spilled path, used to skip consecutive events for the same file
+     */
+    private String lastSpilled = null;
+
+    /**
+     * Indicates if new files are currently spilled
+     */
+    private volatile boolean spilling;
+
+    /**
+     * The total number of spilled paths
+     */
+    private long spilledCount = 0;
+
+    /**
+     * Create a new admission controller
+     *
+     * @param highWatermark The number of pending tasks at which new files are spilled
+     * @param lowWatermark  The number of pending tasks at which spilled files are re-admitted,
+     *                      lower than the high watermark
+     * @param spillFile     The file the spilled paths are written to, cannot be 'null'. Paths
+     *                      spilled before, and not yet re-admitted, are re-admitted first. The
+     *                      re-admit offset is kept next to it, with the <tt>.offset</tt> suffix
+     * @param pending       Supplies the current number of pending tasks, cannot be 'null'
+     * @throws IllegalArgumentException When the watermarks are invalid
+     */
+    public AdmissionController(final int highWatermark, final int lowWatermark, final File spillFile,
+                               final IntSupplier pending) throws IllegalArgumentException {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks, low [" + lowWatermark + "] " +
+                    "should be lower than high [" + highWatermark + "]");
+        }
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.spillFile = Objects.requireNonNull(spillFile);
+        this.pending = Objects.requireNonNull(pending);
+        this.offsetFile = new File(spillFile.getPath() + ".offset");
+        this.readOffset = loadOffset();
+        this.spilling = spillFile.length() > this.readOffset;
+    }
+
+    /**
+     * Decide if a task may be created for the given file. When the file is not admitted, its path
+     * was spilled and will be returned by {@link #readmit()} later on.
+     *
+     * @param file The file a task should be created for, cannot be 'null'
+     * @return <tt>true</tt> when a task can be created, <tt>false</tt> when the file was spilled
+     */
+    public final boolean admit(final File file) {
+        Objects.requireNonNull(file);
+        if (!this.spilling) {
+            if (this.pending.getAsInt() < this.highWatermark) {
+                return true;
+            }
+            this.spilling = true;
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Reached [" + this.highWatermark + "] pending tasks. Spilling new files to [" + this.spillFile + "]");
+            }
+        }
+
+        synchronized (this) {
+            if (!this.spilling) {
+                return true; // Drained in the mean time
+            }
+            // When spilling fails, better to use some memory than to lose the file
+            return !spill(file.getPath());
+        }
+    }
+
+    /**
+     * Get the next batch of spilled files when the number of pending tasks dropped to the low
+     * watermark. The size of the batch is the difference between both watermarks.
+     *
+     * @return The files to re-admit, or an empty list if there are none or when it's too soon
+     */
+    public final List<File> readmit() {
+        if (!this.spilling || this.pending.getAsInt() > this.lowWatermark) {
+            return Collections.emptyList();
+        }
+
+        synchronized (this) {
+            final List<File> files = new ArrayList<>();
+            try {
+                if (this.writer != null) {
+                    this.writer.flush();
+                }
+
+                try (final RandomAccessFile reader = new RandomAccessFile(this.spillFile, "rw")) {
+                    reader.seek(this.readOffset);
+                    final int batchSize = this.highWatermark - this.lowWatermark;
+                    while (files.size() < batchSize && reader.getFilePointer() < reader.length()) {
+                        files.add(new File(reader.readUTF()));
+                    }
+                    this.readOffset = reader.getFilePointer();
+
+                    if (this.readOffset >= reader.length()) {
+                        // Drained, so start over with an empty spill file
+                        reader.setLength(0);
+                        this.readOffset = 0;
+                        this.lastSpilled = null;
+                        this.spilling = false;
+                        deleteOffset();
+                    } else {
+                        saveOffset();
+                    }
+                }
+            } catch (EOFException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Truncated spill file [" + this.spillFile + "]. Discarding the rest.", e);
+                }
+                discard();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to read spill file [" + this.spillFile + "] : " + e.getMessage(), e);
+                }
+            }
+
+            if (!files.isEmpty() && logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, "Re-admitting [" + files.size() + "] spilled files.");
+            }
+            return files;
+        }
+    }
+
+    /**
+     * Indicates if new files are currently spilled instead of being admitted
+     *
+     * @return <tt>true</tt> when spilling, <tt>false</tt> if not
+     */
+    public final boolean isSpilling() {
+        return this.spilling;
+    }
+
+    /**
+     * Get the total number of paths spilled since the creation of this controller
+     *
+     * @return The number of spilled paths
+     */
+    public final synchronized long getSpilledCount() {
+        return this.spilledCount;
+    }
+
+    /**
+     * Close the spill file. Paths which were not yet re-admitted remain in the file.
+     */
+    public final synchronized void close() {
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to close spill file [" + this.spillFile + "] : " + e.getMessage(), e);
+                }
+            }
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Append the given path to the spill file. The caller should hold the lock on this controller
+     *
+     * @param path The path to spill
+     * @return <tt>true</tt> when spilled, <tt>false</tt> when the spill file could not be written
+     */
+    private boolean spill(final String path) {
+        if (path.equals(this.lastSpilled)) {
+            return true;
+        }
+
+        try {
+            if (this.writer == null) {
+                final File directory = this.spillFile.getAbsoluteFile().getParentFile();
+                if (directory != null && !directory.exists() && !directory.mkdirs()) {
+                    throw new IOException("Failed to create directory [" + directory + "]");
+                }
+                this.writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.spillFile, true)));
+            }
+            this.writer.writeUTF(path);
+            this.lastSpilled = path;
+            this.spilledCount++;
+            return true;
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to spill [" + path + "] to [" + this.spillFile + "] : " + e.getMessage(), e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Discard the contents of the spill file
+     */
+    private void discard() {
+        close();
+        try (final RandomAccessFile file = new RandomAccessFile(this.spillFile, "rw")) {
+            file.setLength(0);
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to truncate spill file [" + this.spillFile + "] : " + e.getMessage(), e);
+            }
+        }
+        this.readOffset = 0;
+        this.lastSpilled = null;
+        this.spilling = false;
+        deleteOffset();
+    }
+
+    /**
+     * Load the offset of the next path to re-admit, as saved by a previous instance
+     *
+     * @return The offset, or <tt>0</tt> when there's no valid offset
+     */
+    private long loadOffset() {
+        if (!this.offsetFile.isFile()) {
+            return 0;
+        }
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(this.offsetFile))) {
+            final long offset = in.readLong();
+            return offset >= 0 && offset <= this.spillFile.length() ? offset : 0;
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to read spill offset [" + this.offsetFile + "], re-admitting all spilled files : " + e.getMessage(), e);
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Save the offset of the next path to re-admit. The caller should hold the lock on this
+     * controller
+     */
+    private void saveOffset() {
+        try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(this.offsetFile))) {
+            out.writeLong(this.readOffset);
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to save spill offset [" + this.offsetFile + "] : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Delete the saved offset, once the spill file is empty
+     */
+    private void deleteOffset() {
+        if (this.offsetFile.exists() && !this.offsetFile.delete()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to delete spill offset [" + this.offsetFile + "]");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recognizes the files which are known to be complete when they appear, because the uploader
+ * follows an arrival protocol, so they don't have to wait for their quiet time:
+ * <ul>
+ * <li>The file is written under a temporary name, like <tt>foo.wav.part</tt>, and renamed to its
+ * final name <tt>foo.wav</tt> when it's complete. The rename shows up as the deletion of the
+ * temporary file, and the creation of the final file.</li>
+ * <li>A marker file, like <tt>foo.wav.done</tt>, is created next to the file once it's complete.
+ * The marker itself is left alone.</li>
+ * </ul>
+ * The events of the temporary file and the final file can be reported in any order, so the
+ * deletions of temporary files are remembered for a while, and the marker is looked up on disk.
+ * <p>
+ * Date: 10/19/26 - 4:10 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ArrivalProtocol {
+
+    /**
+     * The suffixes of temporary files, including the leading dot
+     */
+    private final List<String> temporarySuffixes;
+
+    /**
+     * The suffix of the marker files including the leading dot, or 'null' when there are none
+     */
+    private final String markerSuffix;
+
+    /**
+     * The time a deleted temporary file is remembered, in nano seconds
+     */
+    private final long renameWindow;
+
+    /**
+     * The time the temporary file of each final file was deleted, in nano seconds
+     */
+    private final Map<File, Long> renamed = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new arrival protocol
+     *
+     * @param temporarySuffixes The suffixes of temporary files, with or without the leading dot,
+     *                          cannot be 'null'
+     * @param markerSuffix      The suffix of the marker files, with or without the leading dot, or
+     *                          'null' when there are no marker files
+     * @param renameWindow      The maximum time between the events of the temporary file and the
+     *                          final file of a rename
+     * @param unit              The unit of the rename window, cannot be 'null'
+     * @throws IllegalArgumentException When the rename window is negative, or when one of the
+     *                                  suffixes is empty
+     */
+    public ArrivalProtocol(final List<String> temporarySuffixes, final String markerSuffix, final long renameWindow, final TimeUnit unit)
+            throws IllegalArgumentException {
+        if (renameWindow < 0) {
+            throw new IllegalArgumentException("Rename window cannot be negative, but was [" + renameWindow + "]");
+        }
+        final List<String> suffixes = new ArrayList<>();
+        for (final String suffix : Objects.requireNonNull(temporarySuffixes)) {
+            suffixes.add(toSuffix(suffix));
+        }
+        this.temporarySuffixes = Collections.unmodifiableList(suffixes);
+        this.markerSuffix = markerSuffix != null ? toSuffix(markerSuffix) : null;
+        this.renameWindow = unit.toNanos(renameWindow);
+    }
+
+    /**
+     * Indicates if the uploaders follow one of the arrival protocols
+     *
+     * @return <tt>true</tt> when there are temporary or marker files, <tt>false</tt> if not
+     */
+    public final boolean isEnabled() {
+        return !this.temporarySuffixes.isEmpty() || this.markerSuffix != null;
+    }
+
+    /**
+     * Get the suffixes of the temporary and marker files, to make sure their events are received
+     *
+     * @return The suffixes, without the leading dot
+     */
+    public final List<String> getSuffixes() {
+        final List<String> suffixes = new ArrayList<>();
+        this.temporarySuffixes.forEach(suffix -> suffixes.add(suffix.substring(1)));
+        if (this.markerSuffix != null) {
+            suffixes.add(this.markerSuffix.substring(1));
+        }
+        return suffixes;
+    }
+
+    /**
+     * Get the final file of the given temporary or marker file
+     *
+     * @param file The file
+     * @return The final file, or 'null' when the given file is not a temporary or marker file
+     */
+    public final File getTarget(final File file) {
+        final File target = stripSuffix(file, this.markerSuffix);
+        if (target != null) {
+            return target;
+        }
+        for (final String suffix : this.temporarySuffixes) {
+            final File renamed = stripSuffix(file, suffix);
+            if (renamed != null) {
+                return renamed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indicates if the given file is a marker file
+     *
+     * @param file The file
+     * @return <tt>true</tt> when the file is a marker file
+     */
+    public final boolean isMarker(final File file) {
+        return stripSuffix(file, this.markerSuffix) != null;
+    }
+
+    /**
+     * Record the deletion of a temporary file, which means its final file is complete when it shows
+     * up within the rename window
+     *
+     * @param temporary The deleted temporary file
+     */
+    public final void deleted(final File temporary) {
+        final File target = getTarget(temporary);
+        if (target == null || isMarker(temporary)) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        this.renamed.values().removeIf(deleted -> now - deleted > this.renameWindow);
+        this.renamed.put(target, now);
+    }
+
+    /**
+     * Check if the given file is known to be complete, because its temporary file was deleted
+     * recently or because its marker file exists
+     *
+     * @param file The final file
+     * @return <tt>true</tt> when the file is complete, <tt>false</tt> when it's unknown
+     */
+    public final boolean isArrived(final File file) {
+        final Long deleted = this.renamed.remove(file);
+        if (deleted != null && System.nanoTime() - deleted <= this.renameWindow) {
+            return true;
+        }
+        return this.markerSuffix != null && new File(file.getPath() + this.markerSuffix).isFile();
+    }
+
+    /**
+     * Get the file without the given suffix
+     *
+     * @param file   The file
+     * @param suffix The suffix, or 'null'
+     * @return The file without the suffix, or 'null' when the name doesn't end with the suffix or
+     * when nothing remains
+     */
+    private static File stripSuffix(final File file, final String suffix) {
+        final String name = file.getName();
+        if (suffix == null || name.length() <= suffix.length() || !name.regionMatches(true, name.length() - suffix.length(), suffix, 0, suffix.length())) {
+            return null;
+        }
+        return new File(file.getParentFile(), name.substring(0, name.length() - suffix.length()));
+    }
+
+    /**
+     * Normalize a configured suffix
+     *
+     * @param suffix The suffix, with or without the leading dot
+     * @return The suffix with the leading dot
+     * @throws IllegalArgumentException When the suffix is empty
+     */
+    private static String toSuffix(final String suffix) throws IllegalArgumentException {
+        final String trimmed = suffix.trim();
+        if (trimmed.isEmpty() || trimmed.equals(".")) {
+            throw new IllegalArgumentException("Expected a suffix, but was [" + suffix + "]");
+        }
+        return trimmed.startsWith(".") ? trimmed : "." + trimmed;
+    }
+
+}
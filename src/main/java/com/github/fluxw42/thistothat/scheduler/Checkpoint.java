@@ -0,0 +1,116 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists the files which were still waiting to be converted when the service stopped, so they
+ * can be picked up again on the next start without scanning the input directories.
+ * <p>
+ * The paths are written with {@link DataOutputStream#writeUTF(String)}, like the spill file of the
+ * {@link AdmissionController}. The checkpoint is written to a temporary file first and then moved
+ * in place, so a crash while saving never leaves a truncated checkpoint behind.
+ * <p>
+ * Date: 10/18/26 - 8:21 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class Checkpoint {
+
+    /**
+     * The logger for class Checkpoint
+     */
+    private static final Logger logger = Logger.getLogger(Checkpoint.class.getName());
+
+    /**
+     * The checkpoint file
+     */
+    private final File file;
+
+    /**
+     * Create a new checkpoint
+     *
+     * @param file The checkpoint file, cannot be 'null'
+     */
+    public Checkpoint(final File file) {
+        this.file = Objects.requireNonNull(file);
+    }
+
+    /**
+     * Save the given files, replacing the previous checkpoint
+     *
+     * @param files The files waiting to be converted, cannot be 'null'
+     * @throws IOException When the checkpoint could not be written
+     */
+    public final void save(final Collection<File> files) throws IOException {
+        final File directory = this.file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory [" + directory + "]");
+        }
+
+        final File temporary = new File(this.file.getPath() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            for (final File file : files) {
+                out.writeUTF(file.getPath());
+            }
+        }
+
+        try {
+            Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Load the files of the last saved checkpoint. The checkpoint remains until it's deleted with
+     * {@link #delete()}.
+     *
+     * @return The files that were waiting to be converted, or an empty list when there's no
+     * checkpoint
+     * @throws IOException When the checkpoint could not be read
+     */
+    public final List<File> load() throws IOException {
+        final List<File> files = new ArrayList<>();
+        if (!this.file.isFile()) {
+            return files;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+            while (true) {
+                files.add(new File(in.readUTF()));
+            }
+        } catch (EOFException e) {
+            // Reached the end of the checkpoint
+        }
+        return files;
+    }
+
+    /**
+     * Delete the checkpoint, once its files are picked up again
+     */
+    public final void delete() {
+        if (this.file.exists() && !this.file.delete()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to delete checkpoint [" + this.file + "]");
+            }
+        }
+    }
+
+}
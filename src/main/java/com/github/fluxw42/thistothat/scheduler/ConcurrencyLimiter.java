@@ -0,0 +1,139 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A gate limiting the number of concurrent conversions. Unlike a {@link
+ * java.util.concurrent.Semaphore}, the limit can be changed at any time. Lowering the limit never
+ * interrupts conversions in progress, it only prevents new ones from starting until enough
+ * conversions finished.
+ * <p>
+ * Date: 10/18/26 - 2:21 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * The lock guarding the limit and the number of active conversions
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Signalled each time a permit might be available
+     */
+    private final Condition available = this.lock.newCondition();
+
+    /**
+     * The maximum number of concurrent conversions
+     */
+    private int limit;
+
+    /**
+     * The number of conversions currently holding a permit
+     */
+    private int active = 0;
+
+    /**
+     * Create a new limiter with the given initial limit
+     *
+     * @param limit The initial maximum number of concurrent conversions, at least <tt>1</tt>
+     * @throws IllegalArgumentException When the limit is less than <tt>1</tt>
+     */
+    public ConcurrencyLimiter(final int limit) throws IllegalArgumentException {
+        this.limit = verifyLimit(limit);
+    }
+
+    /**
+     * Wait until a permit is available and take it
+     *
+     * @throws InterruptedException When interrupted while waiting for a permit
+     */
+    public final void acquire() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.active >= this.limit) {
+                this.available.await();
+            }
+            this.active++;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Return a permit, previously taken with {@link #acquire()}
+     */
+    public final void release() {
+        this.lock.lock();
+        try {
+            if (this.active > 0) {
+                this.active--;
+            }
+            this.available.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Change the maximum number of concurrent conversions
+     *
+     * @param limit The new limit, at least <tt>1</tt>
+     * @throws IllegalArgumentException When the limit is less than <tt>1</tt>
+     */
+    public final void setLimit(final int limit) throws IllegalArgumentException {
+        this.lock.lock();
+        try {
+            this.limit = verifyLimit(limit);
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the maximum number of concurrent conversions
+     *
+     * @return The current limit
+     */
+    public final int getLimit() {
+        this.lock.lock();
+        try {
+            return this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of conversions currently holding a permit
+     *
+     * @return The number of active conversions
+     */
+    public final int getActive() {
+        this.lock.lock();
+        try {
+            return this.active;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Verify if the given limit is valid
+     *
+     * @param limit The limit that has to be verified
+     * @return The limit when it's valid
+     * @throws IllegalArgumentException When the limit is less than <tt>1</tt>
+     */
+    private static int verifyLimit(final int limit) throws IllegalArgumentException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Concurrency limit should be at least 1, but was [" + limit + "]");
+        }
+        return limit;
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.filesystem.FileIdentity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers which source files were converted to which destination, by the {@link FileIdentity}
+ * of the source. A source which shows up under another path, because it was renamed, moved or
+ * linked, can be recognized so its existing output is reused instead of converting it again.
+ * <p>
+ * The history is kept in memory while the service runs, and persisted like the
+ * {@link Checkpoint}, written to a temporary file first and then moved in place. Entries of which
+ * the destination was removed are dropped when the history is loaded, or when they're looked up.
+ * <p>
+ * Date: 10/19/26 - 7:20 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConversionHistory {
+
+    /**
+     * The history file
+     */
+    private final File file;
+
+    /**
+     * The conversions, indexed by the identity of their source
+     */
+    private final Map<FileIdentity, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Indicates if the history changed since it was last saved
+     */
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    /**
+     * Create a new, empty conversion history
+     *
+     * @param file The history file, cannot be 'null'
+     */
+    public ConversionHistory(final File file) {
+        this.file = Objects.requireNonNull(file);
+    }
+
+    /**
+     * Record the conversion of a source file, replacing the previous conversion of the same content
+     *
+     * @param identity    The identity of the source, cannot be 'null'
+     * @param source      The source file, cannot be 'null'
+     * @param destination The destination file, cannot be 'null'
+     */
+    public final void record(final FileIdentity identity, final File source, final File destination) {
+        this.entries.put(Objects.requireNonNull(identity), new Entry(Objects.requireNonNull(source), Objects.requireNonNull(destination)));
+        this.changed.set(true);
+    }
+
+    /**
+     * Get the last conversion of a source with the given identity. A conversion of which the
+     * destination doesn't exist anymore is dropped.
+     *
+     * @param identity The identity of the source, cannot be 'null'
+     * @return The conversion, or 'null' when a source with this identity wasn't converted before,
+     * or when its output was removed
+     */
+    public final Entry get(final FileIdentity identity) {
+        final Entry entry = this.entries.get(identity);
+        if (entry == null || entry.getDestination().isFile()) {
+            return entry;
+        }
+
+        if (this.entries.remove(identity, entry)) {
+            this.changed.set(true);
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of remembered conversions
+     *
+     * @return The number of conversions
+     */
+    public final int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Load the history saved by a previous instance, adding it to this history. Conversions of which
+     * the destination doesn't exist anymore are skipped.
+     *
+     * @throws IOException When the history could not be read
+     */
+    public final void load() throws IOException {
+        if (!this.file.isFile()) {
+            return;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+            while (true) {
+                final FileIdentity identity = new FileIdentity(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                final File source = new File(in.readUTF());
+                final File destination = new File(in.readUTF());
+                if (destination.isFile()) {
+                    this.entries.putIfAbsent(identity, new Entry(source, destination));
+                }
+            }
+        } catch (EOFException e) {
+            // Reached the end of the history
+        }
+    }
+
+    /**
+     * Indicates if the history changed since it was last saved
+     *
+     * @return <tt>true</tt> when there are unsaved changes
+     */
+    public final boolean isChanged() {
+        return this.changed.get();
+    }
+
+    /**
+     * Save this history, replacing the previously saved history
+     *
+     * @throws IOException When the history could not be written
+     */
+    public final synchronized void save() throws IOException {
+        // Changes made while saving are saved the next time
+        this.changed.set(false);
+        try {
+            write();
+        } catch (IOException e) {
+            this.changed.set(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the entries to the history file
+     *
+     * @throws IOException When the history could not be written
+     */
+    private void write() throws IOException {
+        final File directory = this.file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory [" + directory + "]");
+        }
+
+        final File temporary = new File(this.file.getPath() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            for (final Map.Entry<FileIdentity, Entry> entry : this.entries.entrySet()) {
+                final FileIdentity identity = entry.getKey();
+                out.writeLong(identity.getDevice());
+                out.writeLong(identity.getInode());
+                out.writeLong(identity.getSize());
+                out.writeLong(identity.getModified());
+                out.writeUTF(entry.getValue().getSource().getPath());
+                out.writeUTF(entry.getValue().getDestination().getPath());
+            }
+        }
+
+        try {
+            Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The conversion of a source file
+     */
+    public static final class Entry {
+
+        /**
+         * The path of the source when it was converted
+         */
+        private final File source;
+
+        /**
+         * The output of the conversion
+         */
+        private final File destination;
+
+        /**
+         * Create a new entry
+         *
+         * @param source      The path of the source when it was converted
+         * @param destination The output of the conversion
+         */
+        private Entry(final File source, final File destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        /**
+         * Get the path of the source when it was converted
+         *
+         * @return The source file
+         */
+        public File getSource() {
+            return this.source;
+        }
+
+        /**
+         * Get the output of the conversion
+         *
+         * @return The destination file
+         */
+        public File getDestination() {
+            return this.destination;
+        }
+
+    }
+
+}
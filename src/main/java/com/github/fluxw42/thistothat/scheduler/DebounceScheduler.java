@@ -0,0 +1,493 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Buffers file system events per file until the file has been quiet for a given delay, and hands
+ * the expired {@link ConversionTask}s to a handler.
+ * <p>
+ * Before an expired task is handed over, an optional check can postpone it. The check is typically
+ * a {@link StabilityDetector}, sampling the file to verify it's no longer being written. The task
+ * stays pending while it's postponed, so it keeps its creation time.
+ * <p>
+ * Pending tasks are indexed by file in a hash map and their deadlines are kept in a hashed timing
+ * wheel. Re-arming the timer of a file is O(1): the deadline of the existing task is updated and a
+ * new entry is added to the wheel. Entries which no longer match the deadline of their task are
+ * stale and are dropped lazily when their bucket expires.
+ * <p>
+ * Date: 10/18/26 - 1:04 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DebounceScheduler {
+
+    /**
+     * The logger for class DebounceScheduler
+     */
+    private static final Logger logger = Logger.getLogger(DebounceScheduler.class.getName());
+
+    /**
+     * The default number of buckets in the wheel
+     */
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * The default duration of a single tick in milliseconds
+     */
+    private static final long DEFAULT_TICK_MILLIS = 10;
+
+    /**
+     * The pending tasks, indexed by file
+     */
+    private final ConcurrentHashMap<File, ConversionTask> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The buckets of the timing wheel
+     */
+    private final Bucket[] wheel;
+
+    /**
+     * The mask used to map a tick on a bucket of the wheel
+     */
+    private final int mask;
+
+    /**
+     * The duration of a single tick in nano seconds
+     */
+    private final long tickNanos;
+
+    /**
+     * The time the wheel started turning, used as reference for all ticks
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * The handler receiving the expired tasks
+     */
+    private final Consumer<ConversionTask> handler;
+
+    /**
+     * Gives the time in milliseconds an expired task should be postponed, or 0 to hand it over
+     */
+    private final ToLongFunction<File> check;
+
+    /**
+     * The last tick that was processed by the ticker thread
+     */
+    private volatile long processedTick = 0;
+
+    /**
+     * The thread turning the wheel, or 'null' when the scheduler isn't started
+     */
+    private volatile Thread ticker = null;
+
+    /**
+     * Create a new debounce scheduler, with the default tick duration and wheel size
+     *
+     * @param handler The handler receiving the expired tasks, cannot be 'null'
+     */
+    public DebounceScheduler(final Consumer<ConversionTask> handler) {
+        this(handler, f -> 0);
+    }
+
+    /**
+     * Create a new debounce scheduler, with the default tick duration and wheel size
+     *
+     * @param handler The handler receiving the expired tasks, cannot be 'null'
+     * @param check   Gives the time in milliseconds the task of the given file should be postponed
+     *                once it expired, or <tt>0</tt> to hand it over, cannot be 'null'
+     */
+    public DebounceScheduler(final Consumer<ConversionTask> handler, final ToLongFunction<File> check) {
+        this(handler, check, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create a new debounce scheduler
+     *
+     * @param handler   The handler receiving the expired tasks, cannot be 'null'
+     * @param tick      The duration of a single tick, which is the resolution of the scheduler
+     * @param tickUnit  The unit of the tick duration, cannot be 'null'
+     * @param wheelSize The number of buckets in the wheel, rounded up to a power of two
+     * @throws IllegalArgumentException When the tick duration or the wheel size is not positive
+     */
+    public DebounceScheduler(final Consumer<ConversionTask> handler, final long tick, final TimeUnit tickUnit,
+                             final int wheelSize) throws IllegalArgumentException {
+        this(handler, f -> 0, tick, tickUnit, wheelSize);
+    }
+
+    /**
+     * Create a new debounce scheduler
+     *
+     * @param handler   The handler receiving the expired tasks, cannot be 'null'
+     * @param check     Gives the time in milliseconds the task of the given file should be postponed
+     *                  once it expired, or <tt>0</tt> to hand it over, cannot be 'null'
+     * @param tick      The duration of a single tick, which is the resolution of the scheduler
+     * @param tickUnit  The unit of the tick duration, cannot be 'null'
+     * @param wheelSize The number of buckets in the wheel, rounded up to a power of two
+     * @throws IllegalArgumentException When the tick duration or the wheel size is not positive
+     */
+    public DebounceScheduler(final Consumer<ConversionTask> handler, final ToLongFunction<File> check, final long tick,
+                             final TimeUnit tickUnit, final int wheelSize) throws IllegalArgumentException {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick duration should be positive but was [" + tick + "]");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size should be positive but was [" + wheelSize + "]");
+        }
+
+        this.handler = Objects.requireNonNull(handler);
+        this.check = Objects.requireNonNull(check);
+        this.tickNanos = Objects.requireNonNull(tickUnit).toNanos(tick);
+
+        final int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Start turning the wheel. Calling start when already started has no influence.
+     */
+    public final synchronized void start() {
+        if (this.ticker != null) {
+            return;
+        }
+
+        this.ticker = new Thread(this::turnWheel, "debounce-scheduler");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Stop turning the wheel, and wait until the ticker thread finished handing over the tasks it
+     * was processing. No task is handed over once this method returns, unless it's released. Pending
+     * tasks are kept, and will expire once the scheduler is started again. Calling stop when
+     * already stopped has no influence.
+     */
+    public final synchronized void stop() {
+        final Thread thread = this.ticker;
+        if (thread == null) {
+            return;
+        }
+
+        this.ticker = null;
+        thread.interrupt();
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schedule a task for the given file, or re-arm the timer of the task which is already
+     * pending for this file. The task expires when no other call to this method was done for the
+     * same file during the given delay.
+     *
+     * @param file      The file that should be converted, cannot be 'null'
+     * @param delay     The time to wait after the last file system event
+     * @param delayUnit The unit of the delay, cannot be 'null'
+     * @return <tt>true</tt> when a new task was scheduled, <tt>false</tt> when an existing task
+     * was re-armed
+     */
+    public final boolean schedule(final File file, final long delay, final TimeUnit delayUnit) {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(delayUnit);
+
+        final boolean[] created = new boolean[1];
+        this.pending.compute(file, (f, existing) -> {
+            final ConversionTask task;
+            if (existing == null) {
+                task = new ConversionTask(f, delay, delayUnit);
+                created[0] = true;
+            } else {
+                task = existing;
+                task.reset(delay, delayUnit);
+            }
+            add(task, task.getDeadline());
+            return task;
+        });
+
+        final Thread thread = this.ticker;
+        if (created[0] && thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return created[0];
+    }
+
+    /**
+     * Cancel the pending task for the given file, if there is one. The task will not be handed over
+     *
+     * @param file The file of which the task should be cancelled
+     * @return <tt>true</tt> when a pending task was cancelled, <tt>false</tt> if there was none
+     */
+    public final boolean cancel(final File file) {
+        // The entry on the wheel is skipped on expiry, since the task is no longer pending
+        return file != null && this.pending.remove(file) != null;
+    }
+
+    /**
+     * Hand the pending task of the given file over right away, without waiting for its quiet time
+     * and without checking the file, for instance because the file is known to be complete
+     *
+     * @param file The file of which the task should be handed over
+     * @return <tt>true</tt> when a pending task was handed over, <tt>false</tt> if there was none
+     */
+    public final boolean release(final File file) {
+        final ConversionTask task = file != null ? this.pending.remove(file) : null;
+        if (task == null) {
+            return false;
+        }
+
+        // The entry on the wheel is skipped on expiry, since the task is no longer pending
+        task.reset(0, TimeUnit.NANOSECONDS);
+        handOver(task);
+        return true;
+    }
+
+    /**
+     * Postpone the pending task of the given file, for instance with the result of a check done on
+     * another thread. Unlike {@link #schedule(File, long, TimeUnit)}, no task is created when
+     * there's none pending for the file.
+     *
+     * @param file      The file of which the task should be postponed
+     * @param delay     The time to wait from now on
+     * @param delayUnit The unit of the delay, cannot be 'null'
+     * @return <tt>true</tt> when a pending task was postponed, <tt>false</tt> if there was none
+     */
+    public final boolean postpone(final File file, final long delay, final TimeUnit delayUnit) {
+        Objects.requireNonNull(delayUnit);
+        if (file == null) {
+            return false;
+        }
+
+        return this.pending.computeIfPresent(file, (f, task) -> {
+            task.reset(delay, delayUnit);
+            add(task, task.getDeadline());
+            return task;
+        }) != null;
+    }
+
+    /**
+     * Cancel all pending tasks, returning their files. This is typically used after {@link #stop()},
+     * to save the pending files.
+     *
+     * @return The files of the cancelled tasks
+     */
+    public final List<File> drain() {
+        final List<File> files = new ArrayList<>();
+        for (final File file : this.pending.keySet()) {
+            if (this.pending.remove(file) != null) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Get the number of pending tasks, waiting for their quiet time to expire
+     *
+     * @return The number of pending tasks
+     */
+    public final int size() {
+        return this.pending.size();
+    }
+
+    /**
+     * Indicates if there's a task pending for the given file
+     *
+     * @param file The file
+     * @return <tt>true</tt> when there's a pending task for the file, <tt>false</tt> if not
+     */
+    public final boolean isPending(final File file) {
+        return file != null && this.pending.containsKey(file);
+    }
+
+    /**
+     * Add a wheel entry for the given task. The entry is placed in the bucket of the tick in which
+     * the deadline falls, or in the next bucket to be processed when the deadline already passed.
+     *
+     * @param task     The task
+     * @param deadline The deadline of the task in nano seconds, as given by {@link System#nanoTime()}
+     */
+    private void add(final ConversionTask task, final long deadline) {
+        final long deadlineTick = Math.max(0, (deadline - this.startNanos + this.tickNanos - 1) / this.tickNanos);
+        final Entry entry = new Entry(task, deadline);
+        while (true) {
+            final long tick = Math.max(deadlineTick, this.processedTick + 1);
+            final Bucket bucket = this.wheel[(int) (tick & this.mask)];
+            synchronized (bucket) {
+                if (this.processedTick < tick) {
+                    bucket.entries.add(entry);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The main loop of the ticker thread, processing a bucket each tick until interrupted
+     */
+    private void turnWheel() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (this.pending.isEmpty()) {
+                // Nothing to do, so don't burn CPU. Scheduling a new task wakes us up again.
+                LockSupport.park(this);
+            }
+
+            final long currentTick = (System.nanoTime() - this.startNanos) / this.tickNanos;
+            if (currentTick <= this.processedTick) {
+                LockSupport.parkNanos(this, this.startNanos + (this.processedTick + 1) * this.tickNanos - System.nanoTime());
+                continue;
+            }
+
+            // After a long pause, visiting each bucket once is enough to find all expired entries
+            final long firstTick = Math.max(this.processedTick + 1, currentTick - this.mask);
+            for (long tick = firstTick; tick <= currentTick; tick++) {
+                expire(tick);
+            }
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Debounce scheduler stopped.");
+        }
+    }
+
+    /**
+     * Process the bucket of the given tick, handing all expired tasks to the handler
+     *
+     * @param tick The tick that should be processed
+     */
+    private void expire(final long tick) {
+        final Bucket bucket = this.wheel[(int) (tick & this.mask)];
+        final List<Entry> entries;
+        synchronized (bucket) {
+            entries = bucket.entries;
+            bucket.entries = new ArrayList<>();
+            this.processedTick = tick;
+        }
+
+        final long now = System.nanoTime();
+        for (final Entry entry : entries) {
+            final ConversionTask task = entry.task;
+            if (task.getDeadline() != entry.deadline) {
+                continue; // Stale entry, the task was re-armed in the mean time
+            }
+
+            if (entry.deadline - now > 0) {
+                add(task, entry.deadline); // Deadline beyond this revolution of the wheel
+                continue;
+            }
+
+            if (this.pending.get(task.getFile()) != task) {
+                continue; // Cancelled or replaced in the mean time
+            }
+
+            long postpone = 0;
+            try {
+                postpone = this.check.applyAsLong(task.getFile());
+            } catch (RuntimeException e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Failed to check task [" + task + "], handing it over : " + e.getMessage(), e);
+                }
+            }
+
+            if (postpone > 0) {
+                final long delay = postpone;
+                this.pending.computeIfPresent(task.getFile(), (f, t) -> {
+                    if (t == task && t.getDeadline() == entry.deadline) {
+                        t.reset(delay, TimeUnit.MILLISECONDS);
+                        add(t, t.getDeadline());
+                    }
+                    return t;
+                });
+                continue;
+            }
+
+            final boolean[] expired = new boolean[1];
+            this.pending.computeIfPresent(task.getFile(), (f, t) -> {
+                if (t == task && t.getDeadline() == entry.deadline) {
+                    expired[0] = true;
+                    return null;
+                }
+                return t;
+            });
+
+            if (expired[0]) {
+                handOver(task);
+            }
+        }
+    }
+
+    /**
+     * Hand the given task over to the handler
+     *
+     * @param task The task which is no longer pending
+     */
+    private void handOver(final ConversionTask task) {
+        try {
+            this.handler.accept(task);
+        } catch (RuntimeException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, "Failed to hand over task [" + task + "] : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * A single bucket of the timing wheel
+     */
+    private static final class Bucket {
+
+        /**
+         * The entries in this bucket, guarded by the bucket itself
+         */
+        private List<Entry> entries = new ArrayList<>();
+
+    }
+
+    /**
+     * A task and the deadline it had when this entry was added to the wheel
+     */
+    private static final class Entry {
+
+        /**
+         * The task
+         */
+        private final ConversionTask task;
+
+        /**
+         * The deadline of the task at the moment of adding the entry to the wheel
+         */
+        private final long deadline;
+
+        /**
+         * Create a new wheel entry
+         *
+         * @param task     The task
+         * @param deadline The deadline of the task
+         */
+        private Entry(final ConversionTask task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
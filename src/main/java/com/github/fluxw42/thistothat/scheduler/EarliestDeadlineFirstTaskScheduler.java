@@ -0,0 +1,132 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TaskScheduler} handing out the task with the earliest due time first. Tasks without a
+ * due time go after all tasks having one, in the order they became ready.
+ * <p>
+ * Date: 10/18/26 - 4:41 PM
+ *
+ * @author Jeroen Meulemeester
+ * @see ConversionTask#getDueTime()
+ */
+public class EarliestDeadlineFirstTaskScheduler implements TaskScheduler {
+
+    /**
+     * The queue with tasks which are ready to be converted, ordered by due time
+     */
+    private final BlockingQueue<Entry> queue = new PriorityBlockingQueue<>();
+
+    /**
+     * The sequence number of the next offered task, used to keep equal due times in FIFO order
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final ConversionTask task) {
+        return this.queue.offer(new Entry(Objects.requireNonNull(task), this.sequence.getAndIncrement()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask take() throws InterruptedException {
+        return this.queue.take().task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask poll() {
+        final Entry entry = this.queue.poll();
+        return entry != null ? entry.task : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final File file) {
+        return file != null && this.queue.removeIf(entry -> file.equals(entry.task.getFile()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.queue.size();
+    }
+
+    /**
+     * A queued task with its sequence number
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        /**
+         * The task
+         */
+        private final ConversionTask task;
+
+        /**
+         * Indicates if the task has a due time, captured at the moment the entry was created
+         */
+        private final boolean hasDueTime;
+
+        /**
+         * The due time of the task, captured at the moment the entry was created
+         */
+        private final long dueTime;
+
+        /**
+         * The sequence number of the task
+         */
+        private final long sequence;
+
+        /**
+         * Create a new queue entry
+         *
+         * @param task     The task
+         * @param sequence The sequence number of the task
+         */
+        private Entry(final ConversionTask task, final long sequence) {
+            this.task = task;
+            this.hasDueTime = task.hasDueTime();
+            this.dueTime = task.getDueTime();
+            this.sequence = sequence;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(final Entry o) {
+            if (this.hasDueTime != o.hasDueTime) {
+                return this.hasDueTime ? -1 : 1;
+            }
+
+            if (this.hasDueTime) {
+                // Due times are relative to System.nanoTime, which can overflow
+                final long difference = this.dueTime - o.dueTime;
+                if (difference != 0) {
+                    return difference < 0 ? -1 : 1;
+                }
+            }
+            return Long.compare(this.sequence, o.sequence);
+        }
+
+    }
+
+}
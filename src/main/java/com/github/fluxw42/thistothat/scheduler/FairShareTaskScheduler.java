@@ -0,0 +1,259 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+import com.github.fluxw42.thistothat.conf.WatchRoot;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A {@link TaskScheduler} sharing the conversion workers between multiple {@link WatchRoot}s,
+ * proportional to their weight, so a single busy root cannot monopolise all workers.
+ * <p>
+ * Each root has its own ready queue, ordered by a policy of its own. The queues are served using
+ * deficit round robin: each round, a root is credited its weight and every task taken from its
+ * queue costs one credit. A root without waiting tasks loses its remaining credit. Tasks not
+ * belonging to any of the roots share the queue of the first root.
+ * <p>
+ * Date: 10/18/26 - 6:34 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FairShareTaskScheduler implements TaskScheduler {
+
+    /**
+     * The lock guarding all queues
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a task was added
+     */
+    private final Condition notEmpty = this.lock.newCondition();
+
+    /**
+     * The queue of each root, in round robin order
+     */
+    private final List<Lane> lanes = new ArrayList<>();
+
+    /**
+     * Indicates if one of the queues uses the duration of the tasks
+     */
+    private final boolean durationRequired;
+
+    /**
+     * The index of the lane currently being served
+     */
+    private int cursor = 0;
+
+    /**
+     * The total number of waiting tasks
+     */
+    private int size = 0;
+
+    /**
+     * Create a new fair share scheduler
+     *
+     * @param roots   The roots sharing the workers, cannot be 'null' or empty
+     * @param factory Creates the scheduler ordering the tasks of a single root, cannot be 'null'
+     * @throws IllegalArgumentException When there are no roots
+     */
+    public FairShareTaskScheduler(final List<WatchRoot> roots, final Supplier<TaskScheduler> factory) throws IllegalArgumentException {
+        if (roots == null || roots.isEmpty()) {
+            throw new IllegalArgumentException("Expected at least one root, but received [" + roots + "]");
+        }
+        Objects.requireNonNull(factory);
+
+        boolean durationRequired = false;
+        for (final WatchRoot root : roots) {
+            final Lane lane = new Lane(Objects.requireNonNull(root), factory.get());
+            durationRequired |= lane.queue.isDurationRequired();
+            this.lanes.add(lane);
+        }
+        this.durationRequired = durationRequired;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final ConversionTask task) {
+        final Lane lane = getLane(Objects.requireNonNull(task));
+        this.lock.lock();
+        try {
+            final boolean success = lane.queue.offer(task);
+            if (success) {
+                this.size++;
+                this.notEmpty.signal();
+            }
+            return success;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask take() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.size == 0) {
+                this.notEmpty.await();
+            }
+            return next();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask poll() {
+        this.lock.lock();
+        try {
+            return this.size == 0 ? null : next();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final File file) {
+        this.lock.lock();
+        try {
+            boolean removed = false;
+            for (final Lane lane : this.lanes) {
+                final int size = lane.queue.size();
+                if (lane.queue.remove(file)) {
+                    this.size -= size - lane.queue.size();
+                    removed = true;
+                }
+            }
+            return removed;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDurationRequired() {
+        return this.durationRequired;
+    }
+
+    /**
+     * Take the next task using deficit round robin. The caller should hold the {@link #lock} and
+     * there should be at least one waiting task.
+     *
+     * @return The next task
+     */
+    private ConversionTask next() {
+        while (true) {
+            final Lane lane = this.lanes.get(this.cursor);
+            if (!lane.credited) {
+                lane.deficit += lane.root.getWeight();
+                lane.credited = true;
+            }
+
+            if (lane.queue.size() > 0 && lane.deficit >= 1) {
+                final ConversionTask task = lane.queue.poll();
+                if (task != null) {
+                    lane.deficit -= 1;
+                    this.size--;
+                    return task;
+                }
+            }
+
+            if (lane.queue.size() == 0) {
+                lane.deficit = 0;
+            }
+            lane.credited = false;
+            this.cursor = (this.cursor + 1) % this.lanes.size();
+        }
+    }
+
+    /**
+     * Get the lane the given task belongs to
+     *
+     * @param task The task
+     * @return The lane of the root containing the file of the task, or the first lane when none
+     */
+    private Lane getLane(final ConversionTask task) {
+        Lane match = null;
+        for (final Lane lane : this.lanes) {
+            if (lane.root.contains(task.getFile())) {
+                if (match == null || match.root.contains(lane.root.getDirectory())) {
+                    match = lane;
+                }
+            }
+        }
+        return match != null ? match : this.lanes.get(0);
+    }
+
+    /**
+     * The queue of a single root, with its round robin state
+     */
+    private static final class Lane {
+
+        /**
+         * The root of this lane
+         */
+        private final WatchRoot root;
+
+        /**
+         * The tasks of this root which are waiting to be converted
+         */
+        private final TaskScheduler queue;
+
+        /**
+         * The number of tasks this lane can still take in the current round
+         */
+        private double deficit = 0;
+
+        /**
+         * Indicates if the lane received its credit for the current round
+         */
+        private boolean credited = false;
+
+        /**
+         * Create a new lane
+         *
+         * @param root  The root of the lane
+         * @param queue The queue of the lane
+         */
+        private Lane(final WatchRoot root, final TaskScheduler queue) {
+            this.root = root;
+            this.queue = queue;
+        }
+
+    }
+
+}
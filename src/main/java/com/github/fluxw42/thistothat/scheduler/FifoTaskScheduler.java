@@ -0,0 +1,64 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A {@link TaskScheduler} handing out the tasks in the order they became ready
+ * <p>
+ * Date: 10/18/26 - 3:36 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FifoTaskScheduler implements TaskScheduler {
+
+    /**
+     * The queue with tasks which are ready to be converted
+     */
+    private final BlockingQueue<ConversionTask> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final ConversionTask task) {
+        return this.queue.offer(Objects.requireNonNull(task));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask take() throws InterruptedException {
+        return this.queue.take();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask poll() {
+        return this.queue.poll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final File file) {
+        return file != null && this.queue.removeIf(task -> file.equals(task.getFile()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.queue.size();
+    }
+
+}
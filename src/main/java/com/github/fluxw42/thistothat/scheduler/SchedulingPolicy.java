@@ -0,0 +1,102 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.conf.Configuration;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The available policies deciding in which order ready tasks are converted
+ * <p>
+ * Date: 10/18/26 - 3:52 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public enum SchedulingPolicy {
+
+    /**
+     * Convert the tasks in the order they became ready
+     */
+    FIFO("fifo") {
+        @Override
+        public TaskScheduler create(final Configuration config) {
+            return new FifoTaskScheduler();
+        }
+    },
+
+    /**
+     * Convert the task with the shortest source media first, see {@link ShortestJobFirstTaskScheduler}
+     */
+    SHORTEST_JOB_FIRST("sjf") {
+        @Override
+        public TaskScheduler create(final Configuration config) {
+            return new ShortestJobFirstTaskScheduler(config.getSchedulingAging());
+        }
+    },
+
+    /**
+     * Convert the task with the earliest due time first, see {@link EarliestDeadlineFirstTaskScheduler}
+     */
+    EARLIEST_DEADLINE_FIRST("edf") {
+        @Override
+        public TaskScheduler create(final Configuration config) {
+            return new EarliestDeadlineFirstTaskScheduler();
+        }
+    };
+
+    /**
+     * The logger for enum SchedulingPolicy
+     */
+    private static final Logger logger = Logger.getLogger(SchedulingPolicy.class.getName());
+
+    /**
+     * The name of the policy, as used in the configuration
+     */
+    private final String name;
+
+    /**
+     * Create a new enum instance with the given name
+     *
+     * @param name The name of the policy, as used in the configuration
+     */
+    SchedulingPolicy(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a new {@link TaskScheduler} implementing this policy
+     *
+     * @param config The configuration, cannot be 'null'
+     * @return The new scheduler
+     */
+    public abstract TaskScheduler create(final Configuration config);
+
+    /**
+     * Get the name of the policy, as used in the configuration
+     *
+     * @return The name of the policy
+     */
+    public final String getName() {
+        return this.name;
+    }
+
+    /**
+     * Map the given name on a scheduling policy, ignoring case.
+     *
+     * @param name The name of the policy
+     * @return The matching policy, or {@link #FIFO} when there is no match
+     */
+    public static SchedulingPolicy fromName(final String name) {
+        for (final SchedulingPolicy policy : values()) {
+            if (name != null && policy.name.equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, "Unknown scheduling policy [" + name + "]. Using [" + FIFO.name + "]");
+        }
+        return FIFO;
+    }
+
+}
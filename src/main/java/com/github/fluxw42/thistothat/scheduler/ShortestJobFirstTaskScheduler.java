@@ -0,0 +1,157 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TaskScheduler} handing out the task with the shortest source media first, so a single
+ * long recording doesn't hold back many short tracks.
+ * <p>
+ * To prevent long files from starving, the waiting time of a task is subtracted from its duration,
+ * multiplied by an aging factor. All waiting tasks age at the same rate, so the order is fixed at
+ * the moment a task is offered: the priority is <tt>duration + aging * offerTime</tt>. Tasks with
+ * an unknown duration go first, since they're very likely to fail fast.
+ * <p>
+ * Date: 10/18/26 - 3:40 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ShortestJobFirstTaskScheduler implements TaskScheduler {
+
+    /**
+     * The queue with tasks which are ready to be converted, ordered by priority
+     */
+    private final BlockingQueue<Entry> queue = new PriorityBlockingQueue<>();
+
+    /**
+     * The sequence number of the next offered task, used to keep equal priorities in FIFO order
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The clock reference for all offer times
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * The number of milliseconds media duration credited per millisecond waiting
+     */
+    private final double aging;
+
+    /**
+     * Create a new shortest job first scheduler
+     *
+     * @param aging The number of milliseconds media duration credited to a task for each
+     *              millisecond it waits. Zero disables aging, allowing long files to starve
+     * @throws IllegalArgumentException When the aging factor is negative
+     */
+    public ShortestJobFirstTaskScheduler(final double aging) throws IllegalArgumentException {
+        if (aging < 0) {
+            throw new IllegalArgumentException("Aging factor cannot be negative, but was [" + aging + "]");
+        }
+        this.aging = aging;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final ConversionTask task) {
+        final long offerMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos);
+        final long duration = Math.max(0, Objects.requireNonNull(task).getDuration());
+        final long priority = duration + (long) (this.aging * offerMillis);
+        return this.queue.offer(new Entry(task, priority, this.sequence.getAndIncrement()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask take() throws InterruptedException {
+        return this.queue.take().task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConversionTask poll() {
+        final Entry entry = this.queue.poll();
+        return entry != null ? entry.task : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final File file) {
+        return file != null && this.queue.removeIf(entry -> file.equals(entry.task.getFile()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.queue.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDurationRequired() {
+        return true;
+    }
+
+    /**
+     * A queued task with its fixed priority
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        /**
+         * The task
+         */
+        private final ConversionTask task;
+
+        /**
+         * The priority of the task, lower goes first
+         */
+        private final long priority;
+
+        /**
+         * The sequence number of the task
+         */
+        private final long sequence;
+
+        /**
+         * Create a new queue entry
+         *
+         * @param task     The task
+         * @param priority The priority of the task
+         * @param sequence The sequence number of the task
+         */
+        private Entry(final ConversionTask task, final long priority, final long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(final Entry o) {
+            final int result = Long.compare(this.priority, o.priority);
+            return result != 0 ? result : Long.compare(this.sequence, o.sequence);
+        }
+
+    }
+
+}
@@ -0,0 +1,361 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when a file is no longer being written, so it can be converted. Instead of waiting a
+ * fixed quiet time for every file, the quiet time is learned per directory from the pauses
+ * between the writes of earlier files.
+ * <p>
+ * While a file is pending, its size and modification time are sampled at increasing intervals.
+ * The file is stable once it hasn't changed for the quiet time of its directory. That quiet time
+ * is the average longest pause between two writes of a file in that directory, plus four times the
+ * average deviation, as exponentially weighted moving averages. Directories with steady writers
+ * get short quiet times, directories with stalling uploads get longer ones. When a file changes
+ * again after it was considered stable, the pause is taken into account as well.
+ * <p>
+ * The quiet time of a directory without history is the initial quiet time, and the quiet time is
+ * always kept between the given minimum and maximum. The statistics of at most
+ * {@link #MAX_DIRECTORIES} directories are kept, the least recently used directories are forgotten.
+ * <p>
+ * Date: 10/19/26 - 12:40 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class StabilityDetector {
+
+    /**
+     * The weight of a new observation in the moving averages
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * The number of average deviations added to the average pause
+     */
+    private static final double CONFIDENCE = 4;
+
+    /**
+     * The first interval between two samples of a file, in nano seconds
+     */
+    private static final long FIRST_SAMPLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The maximum number of directories of which the statistics are kept
+     */
+    static final int MAX_DIRECTORIES = 1024;
+
+    /**
+     * The shortest quiet time, in nano seconds
+     */
+    private final long minQuietTime;
+
+    /**
+     * The longest quiet time, in nano seconds
+     */
+    private final long maxQuietTime;
+
+    /**
+     * The quiet time of directories without history, in nano seconds
+     */
+    private final long initialQuietTime;
+
+    /**
+     * Gives the current time in nano seconds
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The samples of the files which were not converted yet, indexed by file
+     */
+    private final Map<File, Sample> samples = new ConcurrentHashMap<>();
+
+    /**
+     * The pause statistics of the recently used directories, in access order and guarded by the
+     * map itself
+     */
+    private final Map<File, Statistics> statistics = new LinkedHashMap<File, Statistics>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<File, Statistics> eldest) {
+            return size() > MAX_DIRECTORIES;
+        }
+
+    };
+
+    /**
+     * Create a new stability detector
+     *
+     * @param minQuietTime     The shortest quiet time
+     * @param initialQuietTime The quiet time of directories without history
+     * @param maxQuietTime     The longest quiet time
+     * @param unit             The unit of the quiet times, cannot be 'null'
+     * @throws IllegalArgumentException When the quiet times are negative or not in order
+     */
+    public StabilityDetector(final long minQuietTime, final long initialQuietTime, final long maxQuietTime, final TimeUnit unit)
+            throws IllegalArgumentException {
+        this(minQuietTime, initialQuietTime, maxQuietTime, unit, System::nanoTime);
+    }
+
+    /**
+     * Create a new stability detector using the given clock
+     *
+     * @param minQuietTime     The shortest quiet time
+     * @param initialQuietTime The quiet time of directories without history
+     * @param maxQuietTime     The longest quiet time
+     * @param unit             The unit of the quiet times, cannot be 'null'
+     * @param clock            Gives the current time in nano seconds, like {@link System#nanoTime()}
+     * @throws IllegalArgumentException When the quiet times are negative or not in order
+     */
+    StabilityDetector(final long minQuietTime, final long initialQuietTime, final long maxQuietTime, final TimeUnit unit,
+                      final LongSupplier clock) throws IllegalArgumentException {
+        if (minQuietTime < 0 || initialQuietTime < minQuietTime || maxQuietTime < initialQuietTime) {
+            throw new IllegalArgumentException("Expected 0 <= minimum <= initial <= maximum quiet time, but was ["
+                    + minQuietTime + ", " + initialQuietTime + ", " + maxQuietTime + "]");
+        }
+        this.minQuietTime = unit.toNanos(minQuietTime);
+        this.initialQuietTime = unit.toNanos(initialQuietTime);
+        this.maxQuietTime = unit.toNanos(maxQuietTime);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Record a file system event for the given file, indicating that it was just written
+     *
+     * @param file The file, cannot be 'null'
+     */
+    public final void touched(final File file) {
+        final long now = this.clock.getAsLong();
+        final Sample sample = this.samples.computeIfAbsent(file, f -> new Sample(now));
+        final long pause;
+        synchronized (sample) {
+            pause = now - sample.changed;
+            sample.changed = now;
+            sample.observed = true;
+            if (sample.released) {
+                // Considered stable too early, so the pause was longer than the quiet time
+                sample.released = false;
+                sample.longestPause = 0;
+            } else {
+                sample.longestPause = Math.max(sample.longestPause, pause);
+                return;
+            }
+        }
+        getStatistics(file).update(pause);
+    }
+
+    /**
+     * Sample the given file, and determine how long it should remain quiet before it's stable
+     *
+     * @param file The pending file, cannot be 'null'
+     * @return <tt>0</tt> when the file is stable, or the time in milliseconds after which the file
+     * should be checked again
+     */
+    public final long check(final File file) {
+        final long now = this.clock.getAsLong();
+        final long size = file.length();
+        final long modified = file.lastModified();
+        final long quietTime = getQuietTime(getStatistics(file));
+        final Sample sample = this.samples.computeIfAbsent(file, f -> {
+            // No events seen for this file, like for the files found at startup
+            final long age = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - modified));
+            return new Sample(now - Math.min(age, quietTime));
+        });
+
+        final long pause;
+        synchronized (sample) {
+            if (sample.checks > 0 && (size != sample.size || modified != sample.modified)) {
+                // Written without a file system event, like on network file systems
+                sample.longestPause = Math.max(sample.longestPause, now - sample.changed);
+                sample.changed = now;
+                sample.observed = true;
+                sample.interval = FIRST_SAMPLE_INTERVAL;
+            }
+            sample.size = size;
+            sample.modified = modified;
+            sample.checks++;
+
+            final long remaining = quietTime - (now - sample.changed);
+            if (remaining > 0) {
+                final long delay = Math.min(remaining, sample.interval);
+                sample.interval = Math.min(2 * sample.interval, this.maxQuietTime);
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay));
+            }
+
+            sample.released = true;
+            if (!sample.observed) {
+                return 0; // Written before it was pending, so there's nothing to learn from it
+            }
+            pause = sample.longestPause;
+        }
+        getStatistics(file).update(pause);
+        return 0;
+    }
+
+    /**
+     * Get the current quiet time of the directory of the given file
+     *
+     * @param file The file
+     * @return The quiet time in milliseconds
+     */
+    public final long getQuietTime(final File file) {
+        return TimeUnit.NANOSECONDS.toMillis(getQuietTime(getStatistics(file)));
+    }
+
+    /**
+     * Forget the samples of the given file, once it's converted or deleted
+     *
+     * @param file The file
+     */
+    public final void forget(final File file) {
+        if (file != null) {
+            this.samples.remove(file);
+        }
+    }
+
+    /**
+     * Get the number of files currently being sampled
+     *
+     * @return The number of sampled files
+     */
+    public final int size() {
+        return this.samples.size();
+    }
+
+    /**
+     * Get the number of directories of which the statistics are kept
+     *
+     * @return The number of directories, at most {@link #MAX_DIRECTORIES}
+     */
+    public final int getDirectoryCount() {
+        synchronized (this.statistics) {
+            return this.statistics.size();
+        }
+    }
+
+    /**
+     * Get the quiet time for the given statistics
+     *
+     * @param statistics The statistics of a directory
+     * @return The quiet time in nano seconds
+     */
+    private long getQuietTime(final Statistics statistics) {
+        final double quietTime;
+        synchronized (statistics) {
+            quietTime = statistics.mean + CONFIDENCE * statistics.deviation;
+        }
+        return Math.max(this.minQuietTime, Math.min(this.maxQuietTime, (long) quietTime));
+    }
+
+    /**
+     * Get the pause statistics of the directory of the given file
+     *
+     * @param file The file
+     * @return The statistics, never 'null'
+     */
+    private Statistics getStatistics(final File file) {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        synchronized (this.statistics) {
+            return this.statistics.computeIfAbsent(directory != null ? directory : file, d -> new Statistics(this.initialQuietTime));
+        }
+    }
+
+    /**
+     * The samples of a single file
+     */
+    private static final class Sample {
+
+        /**
+         * The last time the file was seen changing, in nano seconds
+         */
+        private long changed;
+
+        /**
+         * The longest pause between two changes of the file so far, in nano seconds
+         */
+        private long longestPause = 0;
+
+        /**
+         * The size of the file at the last check
+         */
+        private long size = -1;
+
+        /**
+         * The modification time of the file at the last check
+         */
+        private long modified = -1;
+
+        /**
+         * The number of checks so far
+         */
+        private int checks = 0;
+
+        /**
+         * The maximum time until the next check, in nano seconds
+         */
+        private long interval = FIRST_SAMPLE_INTERVAL;
+
+        /**
+         * Indicates if the file was seen changing while it was pending
+         */
+        private boolean observed = false;
+
+        /**
+         * Indicates if the file was considered stable
+         */
+        private boolean released = false;
+
+        /**
+         * Create a new sample
+         *
+         * @param changed The last time the file was seen changing
+         */
+        private Sample(final long changed) {
+            this.changed = changed;
+        }
+
+    }
+
+    /**
+     * The moving averages of the longest pause between the writes of the files in a directory
+     */
+    private static final class Statistics {
+
+        /**
+         * The average longest pause, in nano seconds
+         */
+        private double mean;
+
+        /**
+         * The average deviation from the mean, in nano seconds
+         */
+        private double deviation = 0;
+
+        /**
+         * Create new statistics
+         *
+         * @param mean The initial average
+         */
+        private Statistics(final long mean) {
+            this.mean = mean;
+        }
+
+        /**
+         * Update the averages with a new observation
+         *
+         * @param pause The longest pause between the writes of a file, in nano seconds
+         */
+        private synchronized void update(final long pause) {
+            final double error = pause - this.mean;
+            this.mean += ALPHA * error;
+            this.deviation += ALPHA * (Math.abs(error) - this.deviation);
+        }
+
+    }
+
+}
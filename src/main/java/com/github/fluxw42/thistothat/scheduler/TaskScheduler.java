@@ -0,0 +1,65 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+
+import java.io.File;
+
+/**
+ * Holds the tasks which are ready to be converted, and decides in which order the conversion
+ * workers get them.
+ * <p>
+ * Date: 10/18/26 - 3:31 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public interface TaskScheduler {
+
+    /**
+     * Add a task which is ready to be converted
+     *
+     * @param task The task, cannot be 'null'
+     * @return <tt>true</tt> when the task was added, <tt>false</tt> if not
+     */
+    boolean offer(final ConversionTask task);
+
+    /**
+     * Take the next task that should be converted, waiting until there is one
+     *
+     * @return The next task
+     * @throws InterruptedException When interrupted while waiting for a task
+     */
+    ConversionTask take() throws InterruptedException;
+
+    /**
+     * Take the next task that should be converted, without waiting
+     *
+     * @return The next task, or 'null' when there are no tasks waiting
+     */
+    ConversionTask poll();
+
+    /**
+     * Remove the waiting tasks for the given file, for example because the file was deleted
+     *
+     * @param file The file of which the tasks should be removed
+     * @return <tt>true</tt> when a task was removed, <tt>false</tt> if there was none
+     */
+    boolean remove(final File file);
+
+    /**
+     * Get the number of tasks waiting to be converted
+     *
+     * @return The number of waiting tasks
+     */
+    int size();
+
+    /**
+     * Indicates if this scheduler needs to know the duration of the source media of a task, before
+     * the task is offered. See {@link ConversionTask#getDuration()}.
+     *
+     * @return <tt>true</tt> when the duration is used for scheduling, <tt>false</tt> if not
+     */
+    default boolean isDurationRequired() {
+        return false;
+    }
+
+}
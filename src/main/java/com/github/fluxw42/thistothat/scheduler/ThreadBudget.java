@@ -0,0 +1,101 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import java.util.Objects;
+import java.util.function.IntSupplier;
+
+/**
+ * Divides a fixed number of threads between the concurrent conversions, so together they don't
+ * oversubscribe the processors. Without a budget, each ffmpeg process starts a thread per core.
+ * <p>
+ * A conversion gets its share when it starts, and keeps it until it's finished since the number of
+ * threads of a running ffmpeg process cannot be changed. The share is the budget divided by the
+ * number of expected conversions, but never more than what's left of the budget. Threads returned
+ * by finished conversions are handed out to the next conversions that start, so the allocations
+ * rebalance as conversions come and go. Each conversion gets at least one thread.
+ * <p>
+ * Date: 10/18/26 - 7:48 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ThreadBudget {
+
+    /**
+     * The total number of threads
+     */
+    private final int budget;
+
+    /**
+     * Supplies the number of conversions expected to run at the same time
+     */
+    private final IntSupplier expected;
+
+    /**
+     * The number of threads currently handed out
+     */
+    private int allocated = 0;
+
+    /**
+     * The number of conversions currently holding threads
+     */
+    private int active = 0;
+
+    /**
+     * Create a new thread budget
+     *
+     * @param budget   The total number of threads, at least <tt>1</tt>
+     * @param expected Supplies the number of conversions expected to run at the same time, including
+     *                 the ones already holding threads, cannot be 'null'
+     * @throws IllegalArgumentException When the budget is less than <tt>1</tt>
+     */
+    public ThreadBudget(final int budget, final IntSupplier expected) throws IllegalArgumentException {
+        if (budget < 1) {
+            throw new IllegalArgumentException("Thread budget should be at least 1, but was [" + budget + "]");
+        }
+        this.budget = budget;
+        this.expected = Objects.requireNonNull(expected);
+    }
+
+    /**
+     * Take the share of a conversion that is about to start. The threads should be returned with
+     * {@link #release(int)} once the conversion is finished.
+     *
+     * @return The number of threads the conversion may use, at least <tt>1</tt>
+     */
+    public final synchronized int acquire() {
+        final int jobs = Math.max(this.active + 1, this.expected.getAsInt());
+        final int share = Math.max(1, Math.min(this.budget / jobs, this.budget - this.allocated));
+        this.allocated += share;
+        this.active++;
+        return share;
+    }
+
+    /**
+     * Return the threads of a finished conversion
+     *
+     * @param threads The number of threads, as given by {@link #acquire()}
+     */
+    public final synchronized void release(final int threads) {
+        this.allocated = Math.max(0, this.allocated - threads);
+        this.active = Math.max(0, this.active - 1);
+    }
+
+    /**
+     * Get the total number of threads
+     *
+     * @return The budget
+     */
+    public final int getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Get the number of threads currently handed out. This can exceed the budget slightly, since
+     * each conversion gets at least one thread.
+     *
+     * @return The number of allocated threads
+     */
+    public final synchronized int getAllocated() {
+        return this.allocated;
+    }
+
+}
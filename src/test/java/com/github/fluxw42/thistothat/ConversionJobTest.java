@@ -0,0 +1,47 @@
+package com.github.fluxw42.thistothat;
+
+import com.github.fluxw42.thistothat.converter.Converter;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Date: 10/18/26 - 7:31 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConversionJobTest {
+
+    @Test
+    public void testCancelRunning() throws Exception {
+        final Converter converter = mock(Converter.class);
+        final ConversionJob job = new ConversionJob(new File("test.wav"), "worker-0");
+        assertTrue(job.attach(converter));
+        assertFalse(job.isCancelled());
+        verify(converter, never()).cancel();
+
+        job.cancel();
+        job.cancel();
+        assertTrue(job.isCancelled());
+        verify(converter, times(1)).cancel();
+    }
+
+    @Test
+    public void testCancelBeforeStart() throws Exception {
+        final Converter converter = mock(Converter.class);
+        final ConversionJob job = new ConversionJob(new File("test.wav"), "worker-0");
+        job.cancel();
+        assertTrue(job.isCancelled());
+
+        assertFalse(job.attach(converter));
+        verify(converter, times(1)).cancel();
+    }
+
+}
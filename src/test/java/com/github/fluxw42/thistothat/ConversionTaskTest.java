@@ -58,6 +58,27 @@ public class ConversionTaskTest {
         assertTrue(task.isExpired());
     }
 
+    @Test
+    public void testResetWithDelay() throws Exception {
+        final ConversionTask task = new ConversionTask(new File("test-file"), 10, TimeUnit.HOURS);
+        final long deadline = task.getDeadline();
+
+        task.reset(5, TimeUnit.HOURS);
+        assertTrue(task.getDeadline() < deadline);
+        assertEquals(4, task.getDelay(TimeUnit.HOURS));
+    }
+
+    @Test
+    public void testDueTime() throws Exception {
+        final ConversionTask task = new ConversionTask(new File("test-file"), 10, TimeUnit.HOURS);
+        assertFalse(task.hasDueTime());
+
+        final long dueTime = task.getCreationTime() + TimeUnit.MINUTES.toNanos(2);
+        task.setDueTime(dueTime);
+        assertTrue(task.hasDueTime());
+        assertEquals(dueTime, task.getDueTime());
+    }
+
     @Test
     public void testEquals() throws Exception {
         final File file1 = new File("test-file-1");
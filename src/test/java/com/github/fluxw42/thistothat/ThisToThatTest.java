@@ -0,0 +1,50 @@
+package com.github.fluxw42.thistothat;
+
+import com.github.fluxw42.thistothat.conf.ConfigurationImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Date: 10/19/26 - 9:40 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ThisToThatTest {
+
+    @Test
+    public void testDestination() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("in.directory", "in");
+        properties.setProperty("out.directory", "out");
+
+        final ThisToThat thisToThat = new ThisToThat(new ConfigurationImpl(properties));
+        assertEquals(new File("out", "song.flac.mp3").getAbsoluteFile(),
+                thisToThat.getDestination(new File("in", "song.flac")).getAbsoluteFile());
+        assertEquals(new File("out/artist", "song.flac.mp3").getAbsoluteFile(),
+                thisToThat.getDestination(new File("in/artist", "song.flac")).getAbsoluteFile());
+    }
+
+    @Test
+    public void testDestinationOfRoots() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("in.roots", "radio,archive");
+        properties.setProperty("in.radio.directory", "in/radio");
+        properties.setProperty("in.archive.directory", "in/archive");
+        properties.setProperty("out.directory", "out");
+
+        final ThisToThat thisToThat = new ThisToThat(new ConfigurationImpl(properties));
+        final File radio = thisToThat.getDestination(new File("in/radio/a", "song.flac"));
+        final File archive = thisToThat.getDestination(new File("in/archive", "song.flac"));
+        final File archiveNested = thisToThat.getDestination(new File("in/archive/a", "song.flac"));
+        assertEquals(new File("out/radio/a", "song.flac.mp3").getAbsoluteFile(), radio.getAbsoluteFile());
+        assertEquals(new File("out/archive", "song.flac.mp3").getAbsoluteFile(), archive.getAbsoluteFile());
+        assertEquals(new File("out/archive/a", "song.flac.mp3").getAbsoluteFile(), archiveNested.getAbsoluteFile());
+        assertNotEquals("Files of different roots should never share their destination", radio, archiveNested);
+    }
+
+}
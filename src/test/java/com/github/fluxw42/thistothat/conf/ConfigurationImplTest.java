@@ -3,12 +3,14 @@ package com.github.fluxw42.thistothat.conf;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -26,6 +28,7 @@ public class ConfigurationImplTest {
         assertEquals(5000, config.getFileSystemQuietTime());
         assertNotNull(config.getWatchedExtensions());
         assertTrue(config.getWatchedExtensions().isEmpty());
+        assertEquals(Runtime.getRuntime().availableProcessors(), config.getWorkerCount());
     }
 
     @Test
@@ -75,4 +78,237 @@ public class ConfigurationImplTest {
         assertTrue(config.isWatched(new File("test.wav")));
     }
 
+    @Test
+    public void testGetFileSystemEventWindow() throws Exception {
+        final Properties properties = new Properties();
+        assertEquals(50, new ConfigurationImpl(properties).getFileSystemEventWindow());
+
+        properties.setProperty("fs.event.window", "-5");
+        assertEquals(0, new ConfigurationImpl(properties).getFileSystemEventWindow());
+    }
+
+    @Test
+    public void testIsRecursive() throws Exception {
+        final Properties properties = new Properties();
+        assertFalse(new ConfigurationImpl(properties).isRecursive());
+
+        properties.setProperty("fs.recursive", "true");
+        assertTrue(new ConfigurationImpl(properties).isRecursive());
+    }
+
+    @Test
+    public void testAdaptiveQuietTime() throws Exception {
+        final Properties properties = new Properties();
+        final ConfigurationImpl defaults = new ConfigurationImpl(properties);
+        assertFalse(defaults.isAdaptiveQuietTime());
+        assertEquals(500, defaults.getMinQuietTime());
+        assertEquals(60000, defaults.getMaxQuietTime());
+
+        properties.setProperty("fs.quiet.adaptive", "true");
+        properties.setProperty("fs.quiet.min", "2000");
+        properties.setProperty("fs.quiet.max", "1000");
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        assertTrue(config.isAdaptiveQuietTime());
+        assertEquals(2000, config.getMinQuietTime());
+        assertEquals("The maximum should not be less than the minimum", 2000, config.getMaxQuietTime());
+    }
+
+    @Test
+    public void testOpenWriterCheck() throws Exception {
+        final Properties properties = new Properties();
+        assertFalse(new ConfigurationImpl(properties).isOpenWriterCheck());
+        properties.setProperty("fs.writer.check", "true");
+        assertTrue(new ConfigurationImpl(properties).isOpenWriterCheck());
+    }
+
+    @Test
+    public void testFormatCheck() throws Exception {
+        final Properties properties = new Properties();
+        assertFalse(new ConfigurationImpl(properties).isFormatCheck());
+        properties.setProperty("fs.format.check", "true");
+        assertTrue(new ConfigurationImpl(properties).isFormatCheck());
+    }
+
+    @Test
+    public void testContentSniffing() throws Exception {
+        final Properties properties = new Properties();
+        assertFalse(new ConfigurationImpl(properties).isContentSniffing());
+        properties.setProperty("fs.sniff.content", "true");
+        assertTrue(new ConfigurationImpl(properties).isContentSniffing());
+    }
+
+    @Test
+    public void testRenameTracking() throws Exception {
+        final Properties properties = new Properties();
+        assertFalse(new ConfigurationImpl(properties).isRenameTracking());
+        properties.setProperty("fs.rename.tracking", "true");
+        assertTrue(new ConfigurationImpl(properties).isRenameTracking());
+    }
+
+    @Test
+    public void testArrivalProtocol() throws Exception {
+        final Properties properties = new Properties();
+        final ConfigurationImpl defaults = new ConfigurationImpl(properties);
+        assertTrue(defaults.getArrivalTemporarySuffixes().isEmpty());
+        assertNull(defaults.getArrivalMarkerSuffix());
+
+        properties.setProperty("fs.arrival.temp.suffixes", " .part, TMP ,,");
+        properties.setProperty("fs.arrival.marker.suffix", ".done");
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        assertEquals(Arrays.asList("part", "tmp"), config.getArrivalTemporarySuffixes());
+        assertEquals("done", config.getArrivalMarkerSuffix());
+    }
+
+    @Test
+    public void testGetStartupScanThreads() throws Exception {
+        final Properties properties = new Properties();
+        assertEquals(Runtime.getRuntime().availableProcessors(), new ConfigurationImpl(properties).getStartupScanThreads());
+
+        properties.setProperty("fs.scan.threads", "0");
+        assertEquals(0, new ConfigurationImpl(properties).getStartupScanThreads());
+
+        properties.setProperty("fs.scan.threads", "-1");
+        assertEquals(Runtime.getRuntime().availableProcessors(), new ConfigurationImpl(properties).getStartupScanThreads());
+    }
+
+    @Test
+    public void testGetWorkerCount() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("workers.count", "3");
+        assertEquals(3, new ConfigurationImpl(properties).getWorkerCount());
+
+        properties.setProperty("workers.count", "0");
+        assertEquals(Runtime.getRuntime().availableProcessors(), new ConfigurationImpl(properties).getWorkerCount());
+    }
+
+    @Test
+    public void testAdaptiveConcurrency() throws Exception {
+        final Properties properties = new Properties();
+        final ConfigurationImpl defaultConfig = new ConfigurationImpl(properties);
+        assertFalse(defaultConfig.isAdaptiveConcurrency());
+        assertEquals(1, defaultConfig.getMinWorkerCount());
+        assertEquals(2 * Runtime.getRuntime().availableProcessors(), defaultConfig.getMaxWorkerCount());
+        assertEquals(10000, defaultConfig.getConcurrencyInterval());
+
+        properties.setProperty("workers.adaptive", "true");
+        properties.setProperty("workers.min", "4");
+        properties.setProperty("workers.max", "2");
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        assertTrue(config.isAdaptiveConcurrency());
+        assertEquals(4, config.getMinWorkerCount());
+        assertEquals("The maximum cannot be lower than the minimum", 4, config.getMaxWorkerCount());
+    }
+
+    @Test
+    public void testGetThreadBudget() throws Exception {
+        final Properties properties = new Properties();
+        assertEquals(Runtime.getRuntime().availableProcessors(), new ConfigurationImpl(properties).getThreadBudget());
+
+        properties.setProperty("workers.threads", "12");
+        assertEquals(12, new ConfigurationImpl(properties).getThreadBudget());
+
+        properties.setProperty("workers.threads", "0");
+        assertEquals(Runtime.getRuntime().availableProcessors(), new ConfigurationImpl(properties).getThreadBudget());
+    }
+
+    @Test
+    public void testGetDrainTimeout() throws Exception {
+        final Properties properties = new Properties();
+        assertEquals(30000, new ConfigurationImpl(properties).getDrainTimeout());
+
+        properties.setProperty("shutdown.drain.timeout", "-1");
+        assertEquals(0, new ConfigurationImpl(properties).getDrainTimeout());
+    }
+
+    @Test
+    public void testScheduling() throws Exception {
+        final Properties properties = new Properties();
+        final ConfigurationImpl defaultConfig = new ConfigurationImpl(properties);
+        assertEquals("fifo", defaultConfig.getSchedulingPolicy());
+        assertEquals(10, defaultConfig.getSchedulingAging(), 0);
+
+        properties.setProperty("scheduler.policy", " SJF ");
+        properties.setProperty("scheduler.sjf.aging", "-1");
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        assertEquals("sjf", config.getSchedulingPolicy());
+        assertEquals(0, config.getSchedulingAging(), 0);
+    }
+
+    @Test
+    public void testGetServiceLevel() throws Exception {
+        final Properties properties = new Properties();
+        assertEquals(0, new ConfigurationImpl(properties).getServiceLevel(new File("in")));
+
+        properties.setProperty("sla.ms", "120000");
+        assertEquals(120000, new ConfigurationImpl(properties).getServiceLevel(new File("in")));
+    }
+
+    @Test
+    public void testWatermarks() throws Exception {
+        final Properties properties = new Properties();
+        final ConfigurationImpl defaultConfig = new ConfigurationImpl(properties);
+        assertEquals(new File("work"), defaultConfig.getWorkDirectory());
+        assertEquals(100000, defaultConfig.getHighWatermark());
+        assertEquals(50000, defaultConfig.getLowWatermark());
+
+        properties.setProperty("queue.high.watermark", "10");
+        properties.setProperty("queue.low.watermark", "20");
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        assertEquals(10, config.getHighWatermark());
+        assertEquals("The low watermark should be lower than the high one", 9, config.getLowWatermark());
+    }
+
+    @Test
+    public void testDefaultWatchRoot() throws Exception {
+        final ConfigurationImpl config = new ConfigurationImpl(new Properties());
+        final List<WatchRoot> roots = config.getWatchRoots();
+        assertEquals(1, roots.size());
+        assertEquals("default", roots.get(0).getName());
+        assertEquals(new File("in"), roots.get(0).getDirectory());
+        assertEquals(1, roots.get(0).getWeight(), 0);
+        assertEquals(0, roots.get(0).getPollInterval());
+        assertEquals(roots.get(0), config.getWatchRoot(new File("in/test.wav")));
+        assertNull(config.getWatchRoot(new File("out/test.mp3")));
+    }
+
+    @Test
+    public void testWatchRoots() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("sla.ms", "60000");
+        properties.setProperty("fs.poll.interval", "5000");
+        properties.setProperty("in.roots", "radio, archive,,nested");
+        properties.setProperty("in.radio.directory", "in/radio");
+        properties.setProperty("in.radio.weight", "3");
+        properties.setProperty("in.radio.sla.ms", "1000");
+        properties.setProperty("in.radio.poll.interval", "0");
+        properties.setProperty("in.archive.weight", "-2");
+        properties.setProperty("in.nested.directory", "in/radio/live");
+
+        final ConfigurationImpl config = new ConfigurationImpl(properties);
+        final List<WatchRoot> roots = config.getWatchRoots();
+        assertEquals(3, roots.size());
+
+        final WatchRoot radio = roots.get(0);
+        assertEquals("radio", radio.getName());
+        assertEquals(new File("in/radio"), radio.getDirectory());
+        assertEquals(3, radio.getWeight(), 0);
+        assertEquals(1000, radio.getServiceLevel());
+        assertEquals(0, radio.getPollInterval());
+
+        final WatchRoot archive = roots.get(1);
+        assertEquals("archive", archive.getName());
+        assertEquals(new File("archive"), archive.getDirectory());
+        assertEquals("Invalid weights fall back to the default", 1, archive.getWeight(), 0);
+        assertEquals(60000, archive.getServiceLevel());
+        assertEquals(5000, archive.getPollInterval());
+
+        assertEquals(radio, config.getWatchRoot(new File("in/radio/test.wav")));
+        assertEquals(roots.get(2), config.getWatchRoot(new File("in/radio/live/test.wav")));
+        assertNull(config.getWatchRoot(new File("in/test.wav")));
+
+        assertEquals(1000, config.getServiceLevel(new File("in/radio")));
+        assertEquals(60000, config.getServiceLevel(new File("archive")));
+        assertEquals(60000, config.getServiceLevel(new File("in")));
+    }
+
 }
\ No newline at end of file
@@ -43,6 +43,38 @@ public class PropertiesConfigTest {
         assertEquals(4, config.getLongOption("wrongvalue", 4));
     }
 
+    @Test
+    public void testGetDoubleOption() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("testkey", "1.5");
+        properties.setProperty("wrongvalue", "-");
+
+        final PropertiesConfig config = new PropertiesConfig(properties) {
+
+        };
+
+        assertEquals(1.5, config.getDoubleOption("testkey", 2), 0);
+        assertEquals(3.5, config.getDoubleOption("nonexistent", 3.5), 0);
+        assertEquals(4, config.getDoubleOption("wrongvalue", 4), 0);
+    }
+
+    @Test
+    public void testGetBooleanOption() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("testkey", "true");
+        properties.setProperty("uppercase", " FALSE ");
+        properties.setProperty("wrongvalue", "yes");
+
+        final PropertiesConfig config = new PropertiesConfig(properties) {
+
+        };
+
+        assertEquals(true, config.getBooleanOption("testkey", false));
+        assertEquals(false, config.getBooleanOption("uppercase", true));
+        assertEquals(true, config.getBooleanOption("nonexistent", true));
+        assertEquals(false, config.getBooleanOption("wrongvalue", false));
+    }
+
     @Test(expected = NullPointerException.class)
     public void testGetIntOptionNullProperties() throws Exception {
         new PropertiesConfig((Properties) null) {
@@ -0,0 +1,112 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Date: 10/19/26 - 6:35 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ContentSnifferTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The sniffer under test
+     */
+    private final ContentSniffer sniffer = new ContentSniffer();
+
+    @Test
+    public void testGetExpectedFormat() throws Exception {
+        assertEquals(ContentSniffer.Format.WAV, ContentSniffer.getExpectedFormat(new File("dir", "foo.WAV")));
+        assertEquals(ContentSniffer.Format.ASF, ContentSniffer.getExpectedFormat(new File("foo.wma")));
+        assertEquals(ContentSniffer.Format.OGG, ContentSniffer.getExpectedFormat(new File("foo.bar.ogg")));
+        assertNull(ContentSniffer.getExpectedFormat(new File("foo.txt")));
+        assertNull(ContentSniffer.getExpectedFormat(new File("wav")));
+    }
+
+    @Test
+    public void testSniff() throws Exception {
+        assertEquals(ContentSniffer.Format.WAV, sniff(ascii("RIFF\0\0\0\0WAVEfmt ")));
+        assertEquals(ContentSniffer.Format.WAV, sniff(ascii("RF64\0\0\0\0WAVEds64")));
+        assertEquals(ContentSniffer.Format.AIFF, sniff(ascii("FORM\0\0\0\0AIFFCOMM")));
+        assertEquals(ContentSniffer.Format.OGG, sniff(ascii("OggS\0\2")));
+        assertEquals(ContentSniffer.Format.FLAC, sniff(ascii("fLaC\0\0\0\42")));
+        assertEquals(ContentSniffer.Format.MP4, sniff(ascii("\0\0\0\40ftypM4A ")));
+        assertEquals(ContentSniffer.Format.ASF, sniff(FormatCompletenessCheck.ASF_HEADER));
+        assertEquals(ContentSniffer.Format.MP3, sniff(new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64}));
+        assertEquals(ContentSniffer.Format.AAC, sniff(new byte[]{(byte) 0xFF, (byte) 0xF1, 0x50, (byte) 0x80}));
+    }
+
+    @Test
+    public void testSniffId3() throws Exception {
+        final byte[] tag = ascii("ID3\4\0\0\0\0\0\5hello");
+        assertEquals(ContentSniffer.Format.MP3, sniff(concat(tag, new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64})));
+        assertEquals(ContentSniffer.Format.FLAC, sniff(concat(tag, ascii("fLaC\0\0\0\42"))));
+        assertEquals(ContentSniffer.Format.MP3, sniff(ascii("ID3\4\0\0\0\1\0\0")));
+    }
+
+    @Test
+    public void testSniffNoMedia() throws Exception {
+        assertNull(sniff(new byte[0]));
+        assertNull(sniff(ascii("This is just some text, with a media extension\n")));
+        assertNull(sniff(ascii("<html><body>Not found</body></html>")));
+    }
+
+    @Test
+    public void testSniffReusesBuffer() throws Exception {
+        assertEquals(ContentSniffer.Format.OGG, sniff(ascii("OggS\0\2")));
+        assertNull(sniff(ascii("Og")));
+    }
+
+    /**
+     * Write the given content to a file, and sniff it
+     *
+     * @param content The content of the file
+     * @return The format of the content
+     * @throws Exception When the file could not be written
+     */
+    private ContentSniffer.Format sniff(final byte[] content) throws Exception {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), content);
+        return this.sniffer.sniff(file);
+    }
+
+    /**
+     * Concatenate the given parts
+     *
+     * @param first  The first part
+     * @param second The second part
+     * @return The concatenation
+     */
+    private static byte[] concat(final byte[] first, final byte[] second) {
+        final byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Get the bytes of the given text
+     *
+     * @param text The text
+     * @return The bytes
+     */
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+}
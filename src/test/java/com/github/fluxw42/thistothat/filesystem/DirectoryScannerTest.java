@@ -0,0 +1,100 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 12:12 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DirectoryScannerTest {
+
+    private DirectoryScanner scanner = null;
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        this.scanner = new DirectoryScanner(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.scanner.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() throws Exception {
+        new DirectoryScanner(0);
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        final File directory = this.folder.newFolder();
+        final Set<File> expected = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            final File subDirectory = new File(directory, "sub-" + i);
+            assertTrue(new File(subDirectory, "nested").mkdirs());
+            for (int j = 0; j < 10; j++) {
+                expected.add(createFile(new File(subDirectory, "file-" + j + ".wav")));
+                expected.add(createFile(new File(subDirectory, "nested/file-" + j + ".wav")));
+                createFile(new File(subDirectory, "file-" + j + ".txt"));
+            }
+        }
+        expected.add(createFile(new File(directory, "file.wav")));
+
+        final Set<File> found = ConcurrentHashMap.newKeySet();
+        final long count = this.scanner.scan(directory, true, f -> f.getName().endsWith(".wav"), found::add).get(10, TimeUnit.SECONDS);
+        assertEquals(expected.size(), count);
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void testScanNotRecursive() throws Exception {
+        final File directory = this.folder.newFolder();
+        final File file = createFile(new File(directory, "file.wav"));
+        assertTrue(new File(directory, "sub").mkdir());
+        createFile(new File(directory, "sub/file.wav"));
+
+        final Set<File> found = ConcurrentHashMap.newKeySet();
+        assertEquals(1L, (long) this.scanner.scan(directory, false, f -> true, found::add).get(10, TimeUnit.SECONDS));
+        assertEquals(1, found.size());
+        assertTrue(found.contains(file));
+    }
+
+    @Test
+    public void testScanMissingDirectory() throws Exception {
+        final File directory = new File(this.folder.getRoot(), "missing");
+        assertEquals(0L, (long) this.scanner.scan(directory, true, f -> true, f -> {
+        }).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Create an empty file
+     *
+     * @param file The file to create
+     * @return The created file
+     */
+    private static File createFile(final File file) throws Exception {
+        assertTrue(file.createNewFile());
+        return file;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 9:58 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DirectorySnapshotTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEmpty() throws Exception {
+        final File directory = this.folder.newFolder();
+        assertEquals(0, DirectorySnapshot.of(directory.toPath()).size());
+        assertEquals(0, DirectorySnapshot.empty().size());
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        final File directory = this.folder.newFolder();
+        assertTrue(new File(directory, "modified").createNewFile());
+        assertTrue(new File(directory, "deleted").createNewFile());
+        assertTrue(new File(directory, "unchanged").createNewFile());
+        assertTrue(new File(directory, "directory").mkdir());
+
+        final DirectorySnapshot before = DirectorySnapshot.of(directory.toPath());
+        assertEquals(4, before.size());
+
+        try (final OutputStream out = new FileOutputStream(new File(directory, "modified"))) {
+            out.write(new byte[1]);
+        }
+        assertTrue(new File(directory, "deleted").delete());
+        assertTrue(new File(directory, "created").createNewFile());
+        assertTrue(new File(directory, "directory/ignored").createNewFile());
+
+        final Map<String, EventType> changes = new HashMap<>();
+        before.diff(DirectorySnapshot.of(directory.toPath()), changes::put);
+        assertEquals(3, changes.size());
+        assertEquals(EventType.MODIFIED, changes.get("modified"));
+        assertEquals(EventType.DELETED, changes.get("deleted"));
+        assertEquals(EventType.CREATED, changes.get("created"));
+    }
+
+    @Test
+    public void testDiffWithEmpty() throws Exception {
+        final File directory = this.folder.newFolder();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(new File(directory, "file-" + i).createNewFile());
+        }
+
+        final DirectorySnapshot snapshot = DirectorySnapshot.of(directory.toPath());
+        final Map<String, EventType> changes = new HashMap<>();
+        DirectorySnapshot.empty().diff(snapshot, changes::put);
+        assertEquals(1000, changes.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(EventType.CREATED, changes.get("file-" + i));
+        }
+
+        changes.clear();
+        snapshot.diff(DirectorySnapshot.empty(), changes::put);
+        assertEquals(1000, changes.size());
+        assertTrue(changes.values().stream().allMatch(EventType.DELETED::equals));
+
+        changes.clear();
+        snapshot.diff(DirectorySnapshot.of(directory.toPath()), changes::put);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        final File directory = this.folder.newFolder();
+        assertTrue(new File(directory, "modified").createNewFile());
+        assertTrue(new File(directory, "deleted").createNewFile());
+        assertTrue(new File(directory, "lost").createNewFile());
+
+        final DirectorySnapshot before = DirectorySnapshot.of(directory.toPath());
+        try (final OutputStream out = new FileOutputStream(new File(directory, "modified"))) {
+            out.write(new byte[1]);
+        }
+        assertTrue(new File(directory, "deleted").delete());
+        assertTrue(new File(directory, "created").createNewFile());
+        assertTrue(new File(directory, "lost").delete());
+        assertTrue(new File(directory, "also-lost").createNewFile());
+
+        // Only the changes which weren't applied are reported afterwards
+        final Map<String, Boolean> known = new HashMap<>();
+        known.put("modified", true);
+        known.put("deleted", false);
+        known.put("created", true);
+        known.put("never-existed", false);
+        final DirectorySnapshot updated = before.update(known);
+        assertEquals(3, updated.size());
+
+        final Map<String, EventType> changes = new HashMap<>();
+        updated.diff(DirectorySnapshot.of(directory.toPath()), changes::put);
+        assertEquals(2, changes.size());
+        assertEquals(EventType.DELETED, changes.get("lost"));
+        assertEquals(EventType.CREATED, changes.get("also-lost"));
+
+        assertSame(before, before.update(new HashMap<>()));
+    }
+
+}
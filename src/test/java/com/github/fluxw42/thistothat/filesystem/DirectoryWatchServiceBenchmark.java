@@ -0,0 +1,164 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how fast file system events are delivered by the {@link DirectoryWatchServiceImpl}
+ * while other threads keep adding and removing listeners, compared with no contention at all.
+ * Not a unit test, run it manually:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     com.github.fluxw42.thistothat.filesystem.DirectoryWatchServiceBenchmark [files] [threads] [rounds]
+ * </pre>
+ * <p>
+ * Date: 10/18/26 - 11:20 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DirectoryWatchServiceBenchmark {
+
+    /**
+     * Run the benchmark
+     *
+     * @param args The number of files created per round, the number of threads changing listeners
+     *             and the number of rounds
+     */
+    public static void main(final String[] args) throws Exception {
+        final int files = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        // The first rounds warm up the JVM
+        run(files, 0);
+        run(files, threads);
+
+        for (int round = 0; round < rounds; round++) {
+            final Result idle = run(files, 0);
+            final Result contended = run(files, threads);
+            System.out.printf("round %d: idle %6d ms | %d listener threads %6d ms, %8d listener changes/s%n",
+                    round, idle.millis, threads, contended.millis, contended.changesPerSecond);
+        }
+    }
+
+    /**
+     * Create the given number of files in a watched directory and wait until all of them are
+     * reported, while the given number of threads add and remove listeners on other directories
+     *
+     * @param files   The number of files to create
+     * @param threads The number of threads changing listeners
+     * @return The measurements of the run
+     */
+    private static Result run(final int files, final int threads) throws Exception {
+        final File directory = Files.createTempDirectory("watch-benchmark").toFile();
+        final DirectoryWatchServiceImpl service = new DirectoryWatchServiceImpl();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong changes = new AtomicLong();
+        final List<Thread> churners = new ArrayList<>();
+        try {
+            service.start();
+            final CountDownLatch latch = new CountDownLatch(files);
+            service.addListener(directory, (file, type) -> {
+                if (type == EventType.CREATED) {
+                    latch.countDown();
+                }
+            });
+
+            for (int i = 0; i < threads; i++) {
+                final File other = new File(directory.getParentFile(), directory.getName() + "-other-" + i);
+                if (!other.mkdir()) {
+                    throw new IOException("Failed to create [" + other + "]");
+                }
+                final Thread churner = new Thread(() -> {
+                    final DirectoryWatchListener listener = (file, type) -> {
+                    };
+                    try {
+                        while (running.get()) {
+                            service.addListener(other, listener);
+                            service.removeListener(other, listener);
+                            changes.addAndGet(2);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, "listener-churn-" + i);
+                churner.start();
+                churners.add(churner);
+            }
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < files; i++) {
+                if (!new File(directory, "file-" + i).createNewFile()) {
+                    throw new IOException("Failed to create file [" + i + "]");
+                }
+            }
+            if (!latch.await(60, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Only [" + (files - latch.getCount()) + "] of [" + files + "] events received");
+            }
+            final long nanos = System.nanoTime() - start;
+
+            running.set(false);
+            for (final Thread churner : churners) {
+                churner.join();
+            }
+            return new Result(TimeUnit.NANOSECONDS.toMillis(nanos), changes.get() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos));
+        } finally {
+            running.set(false);
+            service.stop();
+            delete(directory.getParentFile(), directory.getName());
+        }
+    }
+
+    /**
+     * Delete the benchmark directory and the other directories created next to it
+     *
+     * @param parent The parent of the benchmark directory
+     * @param prefix The name of the benchmark directory
+     */
+    private static void delete(final File parent, final String prefix) {
+        final File[] directories = parent.listFiles((d, name) -> name.startsWith(prefix));
+        for (final File directory : directories != null ? directories : new File[0]) {
+            final File[] children = directory.listFiles();
+            for (final File child : children != null ? children : new File[0]) {
+                child.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * The measurements of a single run
+     */
+    private static final class Result {
+
+        /**
+         * The time until all events were received, in milliseconds
+         */
+        private final long millis;
+
+        /**
+         * The number of listeners added and removed per second
+         */
+        private final long changesPerSecond;
+
+        /**
+         * Create a new result
+         *
+         * @param millis           The time until all events were received, in milliseconds
+         * @param changesPerSecond The number of listeners added and removed per second
+         */
+        private Result(final long millis, final long changesPerSecond) {
+            this.millis = millis;
+            this.changesPerSecond = changesPerSecond;
+        }
+
+    }
+
+}
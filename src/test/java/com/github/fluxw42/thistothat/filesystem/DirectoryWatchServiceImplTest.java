@@ -9,12 +9,22 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
@@ -72,6 +82,28 @@ public class DirectoryWatchServiceImplTest {
         assertFalse(service.isStarted());
     }
 
+    @Test(timeout = 10000)
+    public void testRestart() throws Exception {
+        final File directory = this.folder.newFolder("restart-test");
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+
+        service.start();
+        final File firstFile = new File(directory, "first-file");
+        assertTrue(firstFile.createNewFile());
+        verify(listener, timeout(5000)).updated(eq(firstFile), eq(EventType.CREATED));
+
+        service.stop();
+        assertTrue(new File(directory, "ignored-file").createNewFile());
+
+        service.start();
+        final File secondFile = new File(directory, "second-file");
+        assertTrue(secondFile.createNewFile());
+        verify(listener, timeout(5000)).updated(eq(secondFile), eq(EventType.CREATED));
+        verifyNoMoreInteractions(listener);
+        assertTrue(service.getDispatchLag(TimeUnit.NANOSECONDS) > 0);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testAddNullDirectory() throws Exception {
         service.addListener(null, mock(DirectoryWatchListener.class));
@@ -184,4 +216,217 @@ public class DirectoryWatchServiceImplTest {
 
     }
 
-}
\ No newline at end of file
+    @Test(timeout = 10000)
+    public void testRecursive() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("recursive-event-test");
+        final File existing = new File(directory, "existing");
+        assertTrue(existing.mkdir());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener, true);
+
+        final File existingFile = new File(existing, "test-file");
+        assertTrue(existingFile.createNewFile());
+        verify(listener, timeout(5000)).updated(eq(existingFile), eq(EventType.CREATED));
+
+        // The whole tree is created at once, before the watcher had the chance to register it
+        final File nested = new File(directory, "artist/album");
+        final File nestedFile = new File(nested, "track.wav");
+        assertTrue(nested.mkdirs());
+        assertTrue(nestedFile.createNewFile());
+        verify(listener, timeout(5000).atLeastOnce()).updated(eq(nestedFile), eq(EventType.CREATED));
+
+        // Sub directories created later on are watched as well
+        final File modifiedFile = new File(nested, "other.wav");
+        assertTrue(modifiedFile.createNewFile());
+        verify(listener, timeout(5000).atLeastOnce()).updated(eq(modifiedFile), eq(EventType.CREATED));
+
+        assertEquals(1, service.getWatchedDirectories().size());
+    }
+
+    @Test(timeout = 10000)
+    public void testNotRecursive() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("not-recursive-event-test");
+        final File subDirectory = new File(directory, "sub");
+        assertTrue(subDirectory.mkdir());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+
+        final File ignoredFile = new File(subDirectory, "ignored-file");
+        assertTrue(ignoredFile.createNewFile());
+        final File createdFile = new File(directory, "test-file");
+        assertTrue(createdFile.createNewFile());
+
+        verify(listener, timeout(5000)).updated(eq(createdFile), eq(EventType.CREATED));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test(timeout = 10000)
+    public void testRecursiveDeletedDirectory() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("recursive-delete-test");
+        final File subDirectory = new File(directory, "sub");
+        assertTrue(subDirectory.mkdir());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener, true);
+
+        assertTrue(subDirectory.delete());
+        verify(listener, timeout(5000)).updated(eq(subDirectory), eq(EventType.DELETED));
+
+        // Re-created directories are watched again
+        assertTrue(subDirectory.mkdir());
+        verify(listener, timeout(5000)).updated(eq(subDirectory), eq(EventType.CREATED));
+        Thread.sleep(200);
+
+        final File createdFile = new File(subDirectory, "test-file");
+        assertTrue(createdFile.createNewFile());
+        verify(listener, timeout(5000).atLeastOnce()).updated(eq(createdFile), eq(EventType.CREATED));
+    }
+
+    @Test(timeout = 10000)
+    public void testFilter() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("filter-test");
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        final DirectoryWatchListener otherListener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener, false, WatchFilter.extensions(Collections.singletonList("wav")).withTypes(EventType.CREATED));
+        service.addListener(directory, otherListener, false, WatchFilter.glob("*.part"));
+
+        final File partialFile = new File(directory, "test-file.part");
+        final File createdFile = new File(directory, "test-file.WAV");
+        assertTrue(new File(directory, ".DS_Store").createNewFile());
+        assertTrue(partialFile.createNewFile());
+        assertTrue(createdFile.createNewFile());
+
+        verify(listener, timeout(5000)).updated(eq(createdFile), eq(EventType.CREATED));
+        verify(otherListener, timeout(5000)).updated(eq(partialFile), eq(EventType.CREATED));
+
+        // Deleted events are not accepted by the filter of the first listener
+        assertTrue(createdFile.delete());
+        assertTrue(partialFile.delete());
+        verify(otherListener, timeout(5000)).updated(eq(partialFile), eq(EventType.DELETED));
+        verifyNoMoreInteractions(listener, otherListener);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoDispatchThreads() throws Exception {
+        new DirectoryWatchServiceImpl(0, TimeUnit.MILLISECONDS, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWindow() throws Exception {
+        new DirectoryWatchServiceImpl(-1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchListener() throws Exception {
+        final DirectoryWatchServiceImpl batchService = new DirectoryWatchServiceImpl(500, TimeUnit.MILLISECONDS);
+        batchService.start();
+        try {
+            final File directory = this.folder.newFolder("batch-event-test");
+            final BlockingQueue<List<DirectoryWatchEvent>> batches = new LinkedBlockingQueue<>();
+            batchService.addListener(directory, new DirectoryWatchBatchListener() {
+
+                @Override
+                public void updated(final List<DirectoryWatchEvent> events) {
+                    batches.add(events);
+                }
+
+                @Override
+                public void updated(final File file, final EventType type) {
+                    fail("Batch listeners should receive batches");
+                }
+
+            });
+
+            final File deletedFile = new File(directory, "deleted-file");
+            try (final OutputStream out = new FileOutputStream(deletedFile)) {
+                out.write(new byte[1]);
+            }
+            for (int i = 0; i < 20; i++) {
+                try (final OutputStream out = new FileOutputStream(new File(directory, "test-file-" + i))) {
+                    out.write(new byte[1]);
+                    out.flush();
+                    out.write(new byte[1]);
+                }
+            }
+            assertTrue(deletedFile.delete());
+
+            final List<DirectoryWatchEvent> events = new ArrayList<>();
+            while (events.size() < 20) {
+                events.addAll(batches.take());
+            }
+            // The batch is split across the dispatch lanes, so only the events of each file are ordered
+            assertEquals(20, events.size());
+            for (int i = 0; i < 20; i++) {
+                assertTrue(events.contains(new DirectoryWatchEvent(new File(directory, "test-file-" + i), EventType.CREATED)));
+            }
+            assertNull("The created and deleted file should cancel out", batches.poll(1, TimeUnit.SECONDS));
+        } finally {
+            batchService.stop();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testReconcile() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("reconcile-test");
+        final File modifiedFile = new File(directory, "modified-file");
+        final File deletedFile = new File(directory, "deleted-file");
+        final File unchangedFile = new File(directory, "unchanged-file");
+        assertTrue(modifiedFile.createNewFile());
+        assertTrue(deletedFile.createNewFile());
+        assertTrue(unchangedFile.createNewFile());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+
+        final File createdFile = new File(directory, "created-file");
+        assertTrue(createdFile.createNewFile());
+        try (final OutputStream out = new FileOutputStream(modifiedFile)) {
+            out.write(new byte[1]);
+        }
+        assertTrue(deletedFile.delete());
+
+        verify(listener, timeout(2000)).updated(eq(createdFile), eq(EventType.CREATED));
+        verify(listener, timeout(2000)).updated(eq(modifiedFile), eq(EventType.MODIFIED));
+        verify(listener, timeout(2000)).updated(eq(deletedFile), eq(EventType.DELETED));
+
+        // The events which were read are applied to the snapshot, so a rescan doesn't repeat them
+        assertEquals(3, service.getSnapshot(directory.toPath()).size());
+        assertTrue(service.reconcile(directory.toPath()).isEmpty());
+        assertEquals(3, service.getSnapshot(directory.toPath()).size());
+        assertEquals(0, service.getOverflowCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testSnapshotFollowsEvents() throws Exception {
+        service.start();
+
+        final File directory = this.folder.newFolder("snapshot-test");
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+        assertEquals(0, service.getSnapshot(directory.toPath()).size());
+
+        // The snapshot is updated before the events are handed over, without listing the directory
+        final File deliveredFile = new File(directory, "delivered-file");
+        assertTrue(deliveredFile.createNewFile());
+        verify(listener, timeout(2000)).updated(eq(deliveredFile), eq(EventType.CREATED));
+        assertEquals(1, service.getSnapshot(directory.toPath()).size());
+
+        assertTrue(deliveredFile.delete());
+        verify(listener, timeout(2000)).updated(eq(deliveredFile), eq(EventType.DELETED));
+        assertEquals(0, service.getSnapshot(directory.toPath()).size());
+        assertTrue(service.reconcile(directory.toPath()).isEmpty());
+    }
+
+}
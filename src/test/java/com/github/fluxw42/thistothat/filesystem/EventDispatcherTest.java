@@ -0,0 +1,106 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 1:55 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class EventDispatcherTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLanes() throws Exception {
+        new EventDispatcher("test", 0, 1, new AtomicLong(), new AtomicLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() throws Exception {
+        new EventDispatcher("test", 1, 0, new AtomicLong(), new AtomicLong());
+    }
+
+    @Test(timeout = 10000)
+    public void testOrderPerFile() throws Exception {
+        final EventDispatcher dispatcher = new EventDispatcher("test", 4, 16, new AtomicLong(), new AtomicLong());
+        final Map<File, List<EventType>> received = new ConcurrentHashMap<>();
+        final DirectoryWatchListener listener = (file, type) ->
+                received.computeIfAbsent(file, f -> Collections.synchronizedList(new ArrayList<>())).add(type);
+
+        final EventType[] types = {EventType.CREATED, EventType.MODIFIED, EventType.MODIFIED, EventType.DELETED};
+        for (final EventType type : types) {
+            final List<DirectoryWatchEvent> events = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                events.add(new DirectoryWatchEvent(new File("test-file-" + i), type));
+            }
+            dispatcher.dispatch(listener, events);
+        }
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(100, received.size());
+        for (final List<EventType> fileTypes : received.values()) {
+            assertEquals(4, fileTypes.size());
+            for (int i = 0; i < types.length; i++) {
+                assertEquals(types[i], fileTypes.get(i));
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testOverflow() throws Exception {
+        final AtomicLong overflows = new AtomicLong();
+        final EventDispatcher dispatcher = new EventDispatcher("test", 1, 1, overflows, new AtomicLong());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<File> received = Collections.synchronizedList(new ArrayList<>());
+        final DirectoryWatchListener listener = (file, type) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(file);
+        };
+
+        dispatcher.dispatch(listener, Collections.singletonList(new DirectoryWatchEvent(new File("first"), EventType.CREATED)));
+        blocked.await();
+        dispatcher.dispatch(listener, Collections.singletonList(new DirectoryWatchEvent(new File("second"), EventType.CREATED)));
+        assertEquals(0, overflows.get());
+
+        // The lane is full now, so the third batch waits until the listener caught up
+        final Thread thread = new Thread(() -> {
+            try {
+                dispatcher.dispatch(listener, Collections.singletonList(new DirectoryWatchEvent(new File("third"), EventType.CREATED)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        while (overflows.get() == 0) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        thread.join();
+
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, overflows.get());
+        assertEquals(3, received.size());
+        assertEquals(new File("third"), received.get(2));
+    }
+
+}
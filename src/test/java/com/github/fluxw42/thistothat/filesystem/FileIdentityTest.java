@@ -0,0 +1,69 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Date: 10/19/26 - 7:45 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FileIdentityTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEquals() throws Exception {
+        final FileIdentity identity = new FileIdentity(1, 2, 3, 4);
+        assertEquals(identity, new FileIdentity(1, 2, 3, 4));
+        assertEquals(identity.hashCode(), new FileIdentity(1, 2, 3, 4).hashCode());
+        assertNotEquals(identity, new FileIdentity(9, 2, 3, 4));
+        assertNotEquals(identity, new FileIdentity(1, 9, 3, 4));
+        assertNotEquals(identity, new FileIdentity(1, 2, 9, 4));
+        assertNotEquals(identity, new FileIdentity(1, 2, 3, 9));
+    }
+
+    @Test
+    public void testMissing() throws Exception {
+        assertNull(FileIdentity.of(new File(this.folder.getRoot(), "missing.wav")));
+    }
+
+    @Test
+    public void testRenameAndLink() throws Exception {
+        assumeTrue(FileIdentity.isSupported());
+
+        final File file = this.folder.newFile("first.wav");
+        Files.write(file.toPath(), "content".getBytes(StandardCharsets.US_ASCII));
+        final FileIdentity identity = FileIdentity.of(file);
+        assertNotNull(identity);
+        assertEquals(7, identity.getSize());
+        assertNotEquals(identity, FileIdentity.of(this.folder.newFile("other.wav")));
+
+        final File renamed = new File(this.folder.getRoot(), "renamed.wav");
+        Files.move(file.toPath(), renamed.toPath());
+        assertEquals(identity, FileIdentity.of(renamed));
+
+        final File link = new File(this.folder.getRoot(), "link.wav");
+        Files.createLink(link.toPath(), renamed.toPath());
+        assertEquals(identity, FileIdentity.of(link));
+
+        Files.write(renamed.toPath(), "changed content".getBytes(StandardCharsets.US_ASCII));
+        assertNotEquals(identity, FileIdentity.of(renamed));
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/19/26 - 5:40 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FormatCompletenessCheckTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The check under test
+     */
+    private final FormatCompletenessCheck check = new FormatCompletenessCheck();
+
+    @Test
+    public void testUnknown() throws Exception {
+        assertEquals(FormatCompletenessCheck.State.UNKNOWN, getState(new byte[0]));
+        assertEquals(FormatCompletenessCheck.State.UNKNOWN, getState("ID3 and some more".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(FormatCompletenessCheck.State.UNKNOWN, this.check.getState(new File(this.folder.getRoot(), "missing.wav")));
+    }
+
+    @Test
+    public void testRiff() throws Exception {
+        final byte[] wav = wav(1001);
+        assertEquals(FormatCompletenessCheck.State.COMPLETE, getState(wav));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(Arrays.copyOf(wav, wav.length - 1)));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(Arrays.copyOf(wav, 8)));
+
+        // Header not updated yet by the writer
+        final ByteBuffer placeholder = ByteBuffer.wrap(wav.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        placeholder.putInt(4, 0);
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(placeholder.array()));
+        placeholder.putInt(4, -1);
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(placeholder.array()));
+    }
+
+    @Test
+    public void testOgg() throws Exception {
+        final byte[] first = oggPage(0x02, 30);
+        final byte[] last = oggPage(0x04, 600);
+        final byte[] ogg = concat(first, last);
+        assertEquals(FormatCompletenessCheck.State.COMPLETE, getState(ogg));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(Arrays.copyOf(ogg, ogg.length - 1)));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(concat(first, oggPage(0x00, 600))));
+    }
+
+    @Test
+    public void testAsf() throws Exception {
+        final byte[] asf = asf(5000, 0);
+        assertEquals(FormatCompletenessCheck.State.COMPLETE, getState(asf));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(Arrays.copyOf(asf, 4999)));
+        assertEquals(FormatCompletenessCheck.State.INCOMPLETE, getState(Arrays.copyOf(asf, 100)));
+        assertEquals(FormatCompletenessCheck.State.UNKNOWN, getState(asf(5000, 1)));
+    }
+
+    /**
+     * Write the given content to a file, and check it
+     *
+     * @param content The content of the file
+     * @return The state of the file
+     * @throws Exception When the file could not be written
+     */
+    private FormatCompletenessCheck.State getState(final byte[] content) throws Exception {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), content);
+        return this.check.getState(file);
+    }
+
+    /**
+     * Create a WAV file with an odd sized data chunk, followed by an info list
+     *
+     * @param dataSize The size of the data chunk
+     * @return The content of the file
+     */
+    private static byte[] wav(final int dataSize) {
+        final int padding = dataSize & 1;
+        final ByteBuffer buffer = ByteBuffer.allocate(12 + 24 + 8 + dataSize + padding + 12).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(ascii("RIFF")).putInt(buffer.capacity() - 8).put(ascii("WAVE"));
+        buffer.put(ascii("fmt ")).putInt(16).putShort((short) 1).putShort((short) 1).putInt(8000).putInt(8000).putShort((short) 1).putShort((short) 8);
+        buffer.put(ascii("data")).putInt(dataSize).put(new byte[dataSize + padding]);
+        buffer.put(ascii("LIST")).putInt(4).put(ascii("INFO"));
+        return buffer.array();
+    }
+
+    /**
+     * Create an Ogg page
+     *
+     * @param flags The header type flags
+     * @param size  The size of the payload
+     * @return The page
+     */
+    private static byte[] oggPage(final int flags, final int size) {
+        final int segments = size / 255 + 1;
+        final ByteBuffer buffer = ByteBuffer.allocate(27 + segments + size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(ascii("OggS")).put((byte) 0).put((byte) flags).putLong(0).putInt(1).putInt(0).putInt(0).put((byte) segments);
+        for (int i = 0; i < segments - 1; i++) {
+            buffer.put((byte) 255);
+        }
+        buffer.put((byte) (size % 255));
+        return buffer.array();
+    }
+
+    /**
+     * Create an ASF file with a header object holding a file properties object
+     *
+     * @param size  The size of the file
+     * @param flags The flags of the file properties object
+     * @return The content of the file
+     */
+    private static byte[] asf(final int size, final int flags) {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{0x30, 0x26, (byte) 0xB2, 0x75, (byte) 0x8E, 0x66, (byte) 0xCF, 0x11,
+                (byte) 0xA6, (byte) 0xD9, 0x00, (byte) 0xAA, 0x00, 0x62, (byte) 0xCE, 0x6C});
+        buffer.putLong(30 + 24 + 104).putInt(2).put((byte) 1).put((byte) 2);
+
+        // Some other object first
+        buffer.put(new byte[16]).putLong(24);
+
+        buffer.put(new byte[]{(byte) 0xA1, (byte) 0xDC, (byte) 0xAB, (byte) 0x8C, 0x47, (byte) 0xA9, (byte) 0xCF, 0x11,
+                (byte) 0x8E, (byte) 0xE4, 0x00, (byte) 0xC0, 0x0C, 0x20, 0x53, 0x65});
+        buffer.putLong(104).put(new byte[16]).putLong(size).put(new byte[40]).putInt(flags);
+        return buffer.array();
+    }
+
+    /**
+     * Concatenate the given parts
+     *
+     * @param parts The parts
+     * @return The concatenation
+     */
+    private static byte[] concat(final byte[]... parts) {
+        final ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(parts).mapToInt(part -> part.length).sum());
+        Arrays.stream(parts).forEach(buffer::put);
+        return buffer.array();
+    }
+
+    /**
+     * Get the bytes of a four character code
+     *
+     * @param code The code
+     * @return The bytes
+     */
+    private static byte[] ascii(final String code) {
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
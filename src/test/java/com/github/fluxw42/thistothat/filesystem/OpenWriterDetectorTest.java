@@ -0,0 +1,122 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Date: 10/19/26 - 3:50 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class OpenWriterDetectorTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRefreshInterval() throws Exception {
+        new OpenWriterDetector(this.folder.getRoot().toPath(), -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        final OpenWriterDetector detector = new OpenWriterDetector(this.folder.newFolder().toPath(), 0, TimeUnit.MILLISECONDS);
+        assertFalse(detector.isSupported());
+    }
+
+    @Test
+    public void testFakeProc() throws Exception {
+        final Path proc = this.folder.newFolder("proc").toPath();
+        final File written = this.folder.newFile("written.wav");
+        final File read = this.folder.newFile("read.wav");
+        final File closed = this.folder.newFile("closed.wav");
+
+        addDescriptor(proc, "42", "3", written, "0100001");
+        addDescriptor(proc, "42", "4", read, "0100000");
+        addDescriptor(proc, "43", "5", read, "0100000");
+        Files.createDirectories(proc.resolve("self").resolve("fd"));
+
+        final OpenWriterDetector detector = new OpenWriterDetector(proc, 0, TimeUnit.MILLISECONDS);
+        assertEquals(OpenWriterDetector.State.OPEN, detector.getState(written));
+        assertEquals(OpenWriterDetector.State.CLOSED, detector.getState(read));
+        assertEquals(OpenWriterDetector.State.CLOSED, detector.getState(closed));
+
+        // Descriptors opened for reading and writing count as writers as well
+        addDescriptor(proc, "43", "6", closed, "0100002");
+        assertEquals(OpenWriterDetector.State.OPEN, detector.getState(closed));
+    }
+
+    @Test
+    public void testDisabledWhenIncomplete() throws Exception {
+        final Path proc = this.folder.getRoot().toPath().resolve("proc");
+        final File written = this.folder.newFile("written.wav");
+
+        final OpenWriterDetector detector = new OpenWriterDetector(proc, 0, TimeUnit.MILLISECONDS);
+        assertTrue(detector.isEnabled());
+        assertEquals(OpenWriterDetector.State.UNKNOWN, detector.getState(written));
+        assertFalse(detector.isEnabled());
+
+        // Processes which can be seen later on don't enable the detector again
+        addDescriptor(proc, "42", "3", written, "0100001");
+        assertEquals(OpenWriterDetector.State.UNKNOWN, detector.getState(written));
+    }
+
+    @Test
+    public void testProc() throws Exception {
+        final OpenWriterDetector detector = new OpenWriterDetector();
+        assumeTrue(detector.isSupported());
+
+        final File file = this.folder.newFile("test.wav");
+        try (final OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[16]);
+            final OpenWriterDetector.State state = detector.getState(file);
+            assumeTrue("Not all processes can be inspected", detector.isEnabled());
+            assertEquals(OpenWriterDetector.State.OPEN, state);
+        }
+
+        Thread.sleep(100); // Wait for the next refresh
+        try (final InputStream in = new FileInputStream(file)) {
+            assertEquals(16, in.skip(16));
+            assertNotEquals("Readers are not writers", OpenWriterDetector.State.OPEN, detector.getState(file));
+        }
+    }
+
+    /**
+     * Add a file descriptor to a fake <tt>/proc</tt> file system
+     *
+     * @param proc   The root of the fake file system
+     * @param pid    The id of the process
+     * @param number The number of the file descriptor
+     * @param target The open file
+     * @param flags  The open flags, in octal
+     */
+    private static void addDescriptor(final Path proc, final String pid, final String number, final File target,
+                                      final String flags) throws Exception {
+        final Path fd = Files.createDirectories(proc.resolve(pid).resolve("fd"));
+        final Path fdInfo = Files.createDirectories(proc.resolve(pid).resolve("fdinfo"));
+        Files.createSymbolicLink(fd.resolve(number), target.toPath().toRealPath());
+        Files.write(fdInfo.resolve(number), Arrays.asList("pos:\t0", "flags:\t" + flags, "mnt_id:\t25"), StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Date: 10/18/26 - 10:52 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class PollingDirectoryWatchServiceTest {
+
+    private PollingDirectoryWatchService service = null;
+
+    /**
+     * The temporary watched folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        // Long enough to poll manually during the tests
+        this.service = new PollingDirectoryWatchService(1, TimeUnit.HOURS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.service.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() throws Exception {
+        new PollingDirectoryWatchService(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testStartStop() throws Exception {
+        assertFalse(service.isStarted());
+        service.start();
+        assertTrue(service.isStarted());
+        service.stop();
+        assertFalse(service.isStarted());
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        final File directory = this.folder.newFolder("poll-test");
+        final File modifiedFile = new File(directory, "modified-file");
+        final File deletedFile = new File(directory, "deleted-file");
+        assertTrue(modifiedFile.createNewFile());
+        assertTrue(deletedFile.createNewFile());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+        service.start();
+
+        service.poll();
+        verifyZeroInteractions(listener);
+
+        final File createdFile = new File(directory, "created-file");
+        assertTrue(createdFile.createNewFile());
+        try (final OutputStream out = new FileOutputStream(modifiedFile)) {
+            out.write(new byte[1]);
+        }
+        assertTrue(deletedFile.delete());
+
+        service.poll();
+        verify(listener).updated(eq(createdFile), eq(EventType.CREATED));
+        verify(listener).updated(eq(modifiedFile), eq(EventType.MODIFIED));
+        verify(listener).updated(eq(deletedFile), eq(EventType.DELETED));
+
+        service.poll();
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testRecursive() throws Exception {
+        final File directory = this.folder.newFolder("recursive-poll-test");
+        final File subDirectory = new File(directory, "sub");
+        assertTrue(subDirectory.mkdir());
+
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.start();
+        service.addListener(directory, listener, true);
+
+        final File createdFile = new File(subDirectory, "created-file");
+        assertTrue(createdFile.createNewFile());
+
+        // The files in new directories are reported as well
+        final File newDirectory = new File(directory, "new");
+        assertTrue(newDirectory.mkdir());
+        final File newFile = new File(newDirectory, "new-file");
+        assertTrue(newFile.createNewFile());
+
+        service.poll();
+        verify(listener).updated(eq(createdFile), eq(EventType.CREATED));
+        verify(listener).updated(eq(newDirectory), eq(EventType.CREATED));
+        verify(listener).updated(eq(newFile), eq(EventType.CREATED));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testRemoveListener() throws Exception {
+        final File directory = this.folder.newFolder("remove-poll-test");
+        final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+        service.addListener(directory, listener);
+        service.start();
+        assertEquals(1, service.getWatchedDirectories().size());
+
+        service.removeListener(listener);
+        assertTrue(service.getWatchedDirectories().isEmpty());
+
+        assertTrue(new File(directory, "created-file").createNewFile());
+        service.poll();
+        verifyZeroInteractions(listener);
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduledPoll() throws Exception {
+        final PollingDirectoryWatchService pollingService = new PollingDirectoryWatchService(50, TimeUnit.MILLISECONDS);
+        pollingService.start();
+        try {
+            final File directory = this.folder.newFolder("scheduled-poll-test");
+            final DirectoryWatchListener listener = mock(DirectoryWatchListener.class);
+            pollingService.addListener(directory, listener);
+
+            final File createdFile = new File(directory, "created-file");
+            assertTrue(createdFile.createNewFile());
+            verify(listener, timeout(5000)).updated(eq(createdFile), eq(EventType.CREATED));
+        } finally {
+            pollingService.stop();
+        }
+    }
+
+}
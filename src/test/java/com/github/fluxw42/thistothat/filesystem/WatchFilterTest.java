@@ -0,0 +1,57 @@
+package com.github.fluxw42.thistothat.filesystem;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 2:45 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class WatchFilterTest {
+
+    @Test
+    public void testAll() throws Exception {
+        for (final EventType type : EventType.values()) {
+            assertTrue(WatchFilter.ALL.accepts(Paths.get(".DS_Store"), type));
+        }
+    }
+
+    @Test
+    public void testExtensions() throws Exception {
+        final WatchFilter filter = WatchFilter.extensions(Arrays.asList("wav", "flac"));
+        assertTrue(filter.accepts(Paths.get("test.wav"), EventType.CREATED));
+        assertTrue(filter.accepts(Paths.get("TEST.FLAC"), EventType.MODIFIED));
+        assertFalse(filter.accepts(Paths.get("test.wav.part"), EventType.CREATED));
+        assertFalse(filter.accepts(Paths.get("wav"), EventType.CREATED));
+        assertFalse(filter.accepts(Paths.get(".DS_Store"), EventType.CREATED));
+    }
+
+    @Test
+    public void testGlob() throws Exception {
+        final WatchFilter filter = WatchFilter.glob("track-*.{wav,flac}");
+        assertTrue(filter.accepts(Paths.get("track-01.wav"), EventType.CREATED));
+        assertFalse(filter.accepts(Paths.get("other-01.wav"), EventType.CREATED));
+    }
+
+    @Test
+    public void testTypes() throws Exception {
+        final Path name = Paths.get("test.wav");
+        final WatchFilter filter = WatchFilter.extensions(Arrays.asList("wav")).withTypes(EventType.CREATED, EventType.DELETED);
+        assertTrue(filter.accepts(name, EventType.CREATED));
+        assertFalse(filter.accepts(name, EventType.MODIFIED));
+        assertTrue(filter.accepts(name, EventType.DELETED));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoTypes() throws Exception {
+        WatchFilter.ALL.withTypes();
+    }
+
+}
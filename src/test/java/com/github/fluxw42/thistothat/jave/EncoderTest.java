@@ -0,0 +1,24 @@
+package com.github.fluxw42.thistothat.jave;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/19/26 - 9:10 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class EncoderTest {
+
+    @Test
+    public void testParseProgressTime() throws Exception {
+        assertEquals(83400, Encoder.parseProgressTime("83.4"));
+        assertEquals(83400, Encoder.parseProgressTime("00:01:23.40"));
+        assertEquals(3723450, Encoder.parseProgressTime("01:02:03.45"));
+        assertEquals(-1, Encoder.parseProgressTime("N/A"));
+        assertEquals(-1, Encoder.parseProgressTime("-577014:32:22.77"));
+        assertEquals(-1, Encoder.parseProgressTime("1:2:3:4"));
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/18/26 - 3:10 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class AdaptiveConcurrencyControllerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() throws Exception {
+        new AdaptiveConcurrencyController(new ConcurrencyLimiter(2), 4, 2, () -> 0, () -> 0);
+    }
+
+    @Test
+    public void testIncreaseWhileSaturated() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        final AtomicInteger busy = new AtomicInteger(2);
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(limiter, 1, 3, () -> 10, busy::get);
+
+        controller.adjust(2.0, 0.0, 10);
+        assertEquals(3, limiter.getLimit());
+
+        busy.set(3);
+        controller.adjust(4.0, 0.0, 10);
+        assertEquals("The ceiling should never be exceeded", 3, limiter.getLimit());
+    }
+
+    @Test
+    public void testNoIncreaseWithoutBacklog() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(limiter, 1, 8, () -> 0, () -> 2);
+
+        controller.adjust(2.0, 0.0, 0);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testNoIncreaseWithIdleWorkers() throws Exception {
+        // Idle workers hold all permits while they wait for a task, but only one is converting
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(limiter, 1, 8, () -> 10, () -> 1);
+        limiter.acquire();
+        limiter.acquire();
+
+        controller.adjust(2.0, 0.0, 10);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecreaseWithoutGain() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        final AtomicInteger busy = new AtomicInteger(2);
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(limiter, 1, 8, () -> 10, busy::get);
+
+        controller.adjust(2.0, 0.0, 10);
+        assertEquals(3, limiter.getLimit());
+
+        busy.set(3);
+        controller.adjust(2.01, 0.0, 10);
+        assertEquals("The extra conversion didn't increase the throughput", 2, limiter.getLimit());
+
+        controller.adjust(2.0, 0.0, 10);
+        assertEquals("No increase is allowed during the cooldown", 2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecreaseWhenOverloaded() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(8);
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(limiter, 2, 8, () -> 10, () -> 8);
+
+        final double overload = Runtime.getRuntime().availableProcessors() + 1;
+        controller.adjust(2.0, overload, 10);
+        assertEquals(6, limiter.getLimit());
+
+        controller.adjust(2.0, overload, 10);
+        controller.adjust(2.0, overload, 10);
+        controller.adjust(2.0, overload, 10);
+        assertEquals("The floor should never be exceeded", 2, limiter.getLimit());
+    }
+
+}
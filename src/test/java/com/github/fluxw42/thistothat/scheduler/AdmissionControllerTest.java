@@ -0,0 +1,115 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 5:48 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class AdmissionControllerTest {
+
+    /**
+     * The temporary folder containing the spill file used during these tests
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWatermarks() throws Exception {
+        new AdmissionController(10, 10, this.folder.newFile(), () -> 0);
+    }
+
+    @Test
+    public void testSpillAndReadmit() throws Exception {
+        final AtomicInteger pending = new AtomicInteger();
+        final File spillFile = new File(this.folder.getRoot(), "work/spill.dat");
+        final AdmissionController admission = new AdmissionController(4, 2, spillFile, pending::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(admission.admit(new File("file-" + i)));
+            pending.incrementAndGet();
+        }
+        assertFalse(admission.isSpilling());
+
+        for (int i = 4; i < 9; i++) {
+            assertFalse(admission.admit(new File("file-" + i)));
+        }
+        assertFalse("Consecutive events for the same file should be spilled once", admission.admit(new File("file-8")));
+        assertTrue(admission.isSpilling());
+        assertEquals(5, admission.getSpilledCount());
+
+        assertTrue("Too soon to re-admit", admission.readmit().isEmpty());
+
+        pending.set(2);
+        List<File> files = admission.readmit();
+        assertEquals(2, files.size());
+        assertEquals(new File("file-4"), files.get(0));
+        assertEquals(new File("file-5"), files.get(1));
+        assertFalse("Still spilling until drained", admission.admit(new File("file-9")));
+
+        files = admission.readmit();
+        assertEquals(2, files.size());
+        assertEquals(new File("file-6"), files.get(0));
+        assertEquals(new File("file-7"), files.get(1));
+
+        files = admission.readmit();
+        assertEquals(2, files.size());
+        assertEquals(new File("file-8"), files.get(0));
+        assertEquals(new File("file-9"), files.get(1));
+
+        assertFalse(admission.isSpilling());
+        assertTrue(admission.readmit().isEmpty());
+        assertTrue(admission.admit(new File("file-10")));
+        assertEquals(0, spillFile.length());
+        admission.close();
+    }
+
+    @Test
+    public void testReadmitAfterRestart() throws Exception {
+        final File spillFile = this.folder.newFile();
+        final AdmissionController admission = new AdmissionController(1, 0, spillFile, () -> 1);
+        assertFalse(admission.admit(new File("file-0")));
+        admission.close();
+
+        final AdmissionController restarted = new AdmissionController(1, 0, spillFile, () -> 0);
+        assertTrue(restarted.isSpilling());
+        final List<File> files = restarted.readmit();
+        assertEquals(1, files.size());
+        assertEquals(new File("file-0"), files.get(0));
+        assertFalse(restarted.isSpilling());
+    }
+
+    @Test
+    public void testPartialReadmitAfterRestart() throws Exception {
+        final File spillFile = new File(this.folder.getRoot(), "spill.dat");
+        final AdmissionController admission = new AdmissionController(1, 0, spillFile, () -> 1);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(admission.admit(new File("file-" + i)));
+        }
+        admission.close();
+        final AdmissionController readmitting = new AdmissionController(1, 0, spillFile, () -> 0);
+        assertEquals(Collections.singletonList(new File("file-0")), readmitting.readmit());
+        readmitting.close();
+
+        // Only the files which were not re-admitted yet come back
+        final AdmissionController restarted = new AdmissionController(1, 0, spillFile, () -> 0);
+        assertTrue(restarted.isSpilling());
+        assertEquals(Collections.singletonList(new File("file-1")), restarted.readmit());
+        assertEquals(Collections.singletonList(new File("file-2")), restarted.readmit());
+        assertFalse(restarted.isSpilling());
+        assertFalse(new File(spillFile.getPath() + ".offset").exists());
+    }
+
+}
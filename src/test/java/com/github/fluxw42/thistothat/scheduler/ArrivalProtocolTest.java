@@ -0,0 +1,86 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 4:40 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ArrivalProtocolTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDisabled() throws Exception {
+        final ArrivalProtocol protocol = new ArrivalProtocol(Collections.emptyList(), null, 1, TimeUnit.SECONDS);
+        assertFalse(protocol.isEnabled());
+        assertTrue(protocol.getSuffixes().isEmpty());
+        assertNull(protocol.getTarget(new File("foo.wav.part")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptySuffix() throws Exception {
+        new ArrivalProtocol(Collections.singletonList("."), null, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testGetTarget() throws Exception {
+        final ArrivalProtocol protocol = new ArrivalProtocol(Arrays.asList("part", ".tmp"), "done", 1, TimeUnit.SECONDS);
+        assertTrue(protocol.isEnabled());
+        assertEquals(Arrays.asList("part", "tmp", "done"), protocol.getSuffixes());
+        assertEquals(new File("dir", "foo.wav"), protocol.getTarget(new File("dir", "foo.wav.part")));
+        assertEquals(new File("dir", "foo.wav"), protocol.getTarget(new File("dir", "foo.wav.TMP")));
+        assertEquals(new File("dir", "foo.wav"), protocol.getTarget(new File("dir", "foo.wav.done")));
+        assertNull(protocol.getTarget(new File("dir", "foo.wav")));
+        assertNull(protocol.getTarget(new File("dir", ".part")));
+        assertTrue(protocol.isMarker(new File("dir", "foo.wav.done")));
+        assertFalse(protocol.isMarker(new File("dir", "foo.wav.part")));
+    }
+
+    @Test
+    public void testRename() throws Exception {
+        final ArrivalProtocol protocol = new ArrivalProtocol(Collections.singletonList("part"), null, 1, TimeUnit.SECONDS);
+        final File file = new File("foo.wav");
+        assertFalse(protocol.isArrived(file));
+
+        protocol.deleted(new File("foo.wav.part"));
+        assertTrue(protocol.isArrived(file));
+        assertFalse("A rename is only used once", protocol.isArrived(file));
+    }
+
+    @Test
+    public void testRenameWindow() throws Exception {
+        final ArrivalProtocol protocol = new ArrivalProtocol(Collections.singletonList("part"), null, 50, TimeUnit.MILLISECONDS);
+        protocol.deleted(new File("foo.wav.part"));
+        Thread.sleep(100);
+        assertFalse(protocol.isArrived(new File("foo.wav")));
+    }
+
+    @Test
+    public void testMarker() throws Exception {
+        final ArrivalProtocol protocol = new ArrivalProtocol(Collections.emptyList(), ".done", 1, TimeUnit.SECONDS);
+        final File file = this.folder.newFile("foo.wav");
+        assertFalse(protocol.isArrived(file));
+
+        assertTrue(new File(file.getPath() + ".done").createNewFile());
+        assertTrue(protocol.isArrived(file));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 8:44 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class CheckpointTest {
+
+    /**
+     * The temporary folder containing the checkpoint used during these tests
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoCheckpoint() throws Exception {
+        final Checkpoint checkpoint = new Checkpoint(new File(this.folder.getRoot(), "checkpoint.dat"));
+        assertTrue(checkpoint.load().isEmpty());
+        checkpoint.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final File file = new File(this.folder.getRoot(), "work/checkpoint.dat");
+        final Checkpoint checkpoint = new Checkpoint(file);
+        final List<File> files = Arrays.asList(new File("in/a.wav"), new File("in/radio/b.ogg"), new File("in/c d.wma"));
+        checkpoint.save(files);
+        assertTrue(file.isFile());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        assertEquals(files, new Checkpoint(file).load());
+        assertEquals("Loading should keep the checkpoint", files, checkpoint.load());
+
+        checkpoint.save(Collections.singletonList(new File("in/e.wav")));
+        assertEquals(Collections.singletonList(new File("in/e.wav")), checkpoint.load());
+
+        checkpoint.delete();
+        assertFalse(file.exists());
+        assertTrue(checkpoint.load().isEmpty());
+    }
+
+}
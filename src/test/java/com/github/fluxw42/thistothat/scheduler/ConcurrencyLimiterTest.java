@@ -0,0 +1,75 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 3:02 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() throws Exception {
+        new ConcurrencyLimiter(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetInvalidLimit() throws Exception {
+        new ConcurrencyLimiter(1).setLimit(0);
+    }
+
+    @Test(timeout = 5000)
+    public void testAcquireRelease() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        limiter.acquire();
+        limiter.acquire();
+        assertEquals(2, limiter.getActive());
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        limiter.release();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(2, limiter.getActive());
+    }
+
+    @Test(timeout = 5000)
+    public void testRaiseLimit() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        limiter.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        limiter.setLimit(2);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(2, limiter.getLimit());
+    }
+
+}
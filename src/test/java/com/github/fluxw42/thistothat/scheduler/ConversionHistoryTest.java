@@ -0,0 +1,89 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.filesystem.FileIdentity;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 7:55 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ConversionHistoryTest {
+
+    /**
+     * The temporary folder containing the history used during these tests
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoHistory() throws Exception {
+        final ConversionHistory history = new ConversionHistory(new File(this.folder.getRoot(), "history.dat"));
+        history.load();
+        assertEquals(0, history.size());
+        assertNull(history.get(new FileIdentity(1, 2, 3, 4)));
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        final ConversionHistory history = new ConversionHistory(new File(this.folder.getRoot(), "history.dat"));
+        final FileIdentity identity = new FileIdentity(1, 2, 3, 4);
+        final File destination = this.folder.newFile("b.wav.mp3");
+        history.record(identity, new File("in/a.wav"), new File("out/a.wav.mp3"));
+        history.record(identity, new File("in/b.wav"), destination);
+        assertEquals(1, history.size());
+
+        final ConversionHistory.Entry entry = history.get(new FileIdentity(1, 2, 3, 4));
+        assertNotNull(entry);
+        assertEquals(new File("in/b.wav"), entry.getSource());
+        assertEquals(destination, entry.getDestination());
+    }
+
+    @Test
+    public void testRemovedDestination() throws Exception {
+        final ConversionHistory history = new ConversionHistory(new File(this.folder.getRoot(), "history.dat"));
+        final FileIdentity identity = new FileIdentity(1, 2, 3, 4);
+        final File destination = this.folder.newFile("a.wav.mp3");
+        history.record(identity, new File("in/a.wav"), destination);
+        history.save();
+        assertFalse(history.isChanged());
+
+        assertTrue(destination.delete());
+        assertNull(history.get(identity));
+        assertEquals("Conversions without output should be dropped", 0, history.size());
+        assertTrue(history.isChanged());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final File file = new File(this.folder.getRoot(), "work/history.dat");
+        final File kept = this.folder.newFile("kept.wav.mp3");
+        final File removed = new File(this.folder.getRoot(), "removed.wav.mp3");
+
+        final ConversionHistory history = new ConversionHistory(file);
+        history.record(new FileIdentity(1, 2, 3, 4), new File("in/kept.wav"), kept);
+        history.record(new FileIdentity(5, 6, 7, 8), new File("in/removed.wav"), removed);
+        assertTrue(history.isChanged());
+        history.save();
+        assertFalse(history.isChanged());
+        assertTrue(file.isFile());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        final ConversionHistory loaded = new ConversionHistory(file);
+        loaded.load();
+        assertEquals("Conversions without output should be dropped", 1, loaded.size());
+        assertEquals(new File("in/kept.wav"), loaded.get(new FileIdentity(1, 2, 3, 4)).getSource());
+        assertEquals(kept, loaded.get(new FileIdentity(1, 2, 3, 4)).getDestination());
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 1:52 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class DebounceSchedulerTest {
+
+    private final BlockingQueue<ConversionTask> expired = new LinkedBlockingQueue<>();
+
+    private DebounceScheduler scheduler = null;
+
+    @Before
+    public void setUp() throws Exception {
+        this.scheduler = new DebounceScheduler(this.expired::add, 5, TimeUnit.MILLISECONDS, 16);
+        this.scheduler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.scheduler.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTick() throws Exception {
+        new DebounceScheduler(t -> {
+        }, 0, TimeUnit.MILLISECONDS, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWheelSize() throws Exception {
+        new DebounceScheduler(t -> {
+        }, 5, TimeUnit.MILLISECONDS, 0);
+    }
+
+    @Test(timeout = 5000)
+    public void testExpire() throws Exception {
+        final File file = new File("test-file");
+        assertTrue(this.scheduler.schedule(file, 100, TimeUnit.MILLISECONDS));
+        assertTrue(this.scheduler.isPending(file));
+        assertEquals(1, this.scheduler.size());
+
+        final ConversionTask task = this.expired.take();
+        assertEquals(file, task.getFile());
+        assertTrue(task.isExpired());
+        assertFalse(this.scheduler.isPending(file));
+        assertEquals(0, this.scheduler.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testCancel() throws Exception {
+        final File file = new File("test-file");
+        assertFalse(this.scheduler.cancel(file));
+        assertTrue(this.scheduler.schedule(file, 100, TimeUnit.MILLISECONDS));
+        assertTrue(this.scheduler.cancel(file));
+        assertFalse(this.scheduler.isPending(file));
+        assertEquals(0, this.scheduler.size());
+        assertNull(this.expired.poll(300, TimeUnit.MILLISECONDS));
+
+        // A new task for the same file is not affected by the entry of the cancelled one
+        assertTrue(this.scheduler.schedule(file, 100, TimeUnit.MILLISECONDS));
+        assertEquals(file, this.expired.take().getFile());
+    }
+
+    @Test(timeout = 5000)
+    public void testRelease() throws Exception {
+        final File file = new File("test-file");
+        assertFalse(this.scheduler.release(file));
+        assertTrue(this.scheduler.schedule(file, 10, TimeUnit.SECONDS));
+        assertTrue(this.scheduler.release(file));
+        assertFalse(this.scheduler.isPending(file));
+        assertEquals(file, this.expired.poll().getFile());
+        assertFalse(this.scheduler.release(file));
+    }
+
+    @Test(timeout = 5000)
+    public void testPostponePending() throws Exception {
+        final File file = new File("test-file");
+        assertFalse(this.scheduler.postpone(file, 10, TimeUnit.MILLISECONDS));
+        assertFalse(this.scheduler.isPending(file));
+
+        assertTrue(this.scheduler.schedule(file, 10, TimeUnit.SECONDS));
+        assertTrue(this.scheduler.postpone(file, 50, TimeUnit.MILLISECONDS));
+        assertEquals(file, this.expired.take().getFile());
+    }
+
+    @Test(timeout = 5000)
+    public void testDrain() throws Exception {
+        this.scheduler.stop();
+        for (int i = 0; i < 10; i++) {
+            this.scheduler.schedule(new File("test-file-" + i), 50, TimeUnit.MILLISECONDS);
+        }
+
+        final List<File> files = this.scheduler.drain();
+        assertEquals(10, files.size());
+        assertTrue(files.contains(new File("test-file-7")));
+        assertEquals(0, this.scheduler.size());
+        assertTrue(this.scheduler.drain().isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testStopWaitsForHandOver() throws Exception {
+        this.scheduler.stop();
+
+        final CountDownLatch handling = new CountDownLatch(1);
+        final AtomicBoolean handled = new AtomicBoolean();
+        this.scheduler = new DebounceScheduler(t -> {
+            handling.countDown();
+            final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            while (System.nanoTime() - end < 0) {
+                LockSupport.parkNanos(end - System.nanoTime()); // Not stopped by the interrupt
+            }
+            handled.set(true);
+        }, 5, TimeUnit.MILLISECONDS, 16);
+        this.scheduler.start();
+
+        this.scheduler.schedule(new File("test-file"), 0, TimeUnit.MILLISECONDS);
+        handling.await();
+        this.scheduler.stop();
+        assertTrue(handled.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testRearm() throws Exception {
+        final File file = new File("test-file");
+        assertTrue(this.scheduler.schedule(file, 300, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(100);
+            assertFalse(this.scheduler.schedule(file, 300, TimeUnit.MILLISECONDS));
+        }
+
+        assertNull(this.expired.poll(150, TimeUnit.MILLISECONDS));
+        assertNotNull(this.expired.poll(1, TimeUnit.SECONDS));
+        assertNull(this.expired.poll(400, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void testDelayBeyondWheelRevolution() throws Exception {
+        // 16 buckets of 5ms only cover 80ms, so this task needs several revolutions
+        final File file = new File("test-file");
+        this.scheduler.schedule(file, 300, TimeUnit.MILLISECONDS);
+
+        assertNull(this.expired.poll(200, TimeUnit.MILLISECONDS));
+        assertNotNull(this.expired.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void testPostpone() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        final DebounceScheduler postponing = new DebounceScheduler(this.expired::add, f -> checks.incrementAndGet() < 3 ? 100 : 0,
+                5, TimeUnit.MILLISECONDS, 16);
+        postponing.start();
+        try {
+            final File file = new File("test-file");
+            assertTrue(postponing.schedule(file, 50, TimeUnit.MILLISECONDS));
+            assertNull(this.expired.poll(200, TimeUnit.MILLISECONDS));
+            assertTrue(postponing.isPending(file));
+            assertEquals(file, this.expired.take().getFile());
+            assertEquals(3, checks.get());
+        } finally {
+            postponing.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testManyFiles() throws Exception {
+        final int count = 10000;
+        for (int i = 0; i < count; i++) {
+            this.scheduler.schedule(new File("test-file-" + i), 1000 + i % 200, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < count; i++) {
+            this.scheduler.schedule(new File("test-file-" + i), 50, TimeUnit.MILLISECONDS);
+        }
+
+        for (int i = 0; i < count; i++) {
+            assertNotNull(this.expired.take());
+        }
+        assertNull(this.expired.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, this.scheduler.size());
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/18/26 - 4:58 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class EarliestDeadlineFirstTaskSchedulerTest {
+
+    @Test(timeout = 5000)
+    public void testEarliestDeadlineFirst() throws Exception {
+        final long now = System.nanoTime();
+        final TaskScheduler scheduler = new EarliestDeadlineFirstTaskScheduler();
+        scheduler.offer(task("bulk-1", null));
+        scheduler.offer(task("radio-late", now + TimeUnit.MINUTES.toNanos(2)));
+        scheduler.offer(task("bulk-2", null));
+        scheduler.offer(task("radio-early", now + TimeUnit.MINUTES.toNanos(1)));
+        scheduler.offer(task("radio-overdue", now - TimeUnit.MINUTES.toNanos(1)));
+        assertEquals(5, scheduler.size());
+
+        assertEquals(new File("radio-overdue"), scheduler.take().getFile());
+        assertEquals(new File("radio-early"), scheduler.take().getFile());
+        assertEquals(new File("radio-late"), scheduler.take().getFile());
+        assertEquals(new File("bulk-1"), scheduler.take().getFile());
+        assertEquals(new File("bulk-2"), scheduler.take().getFile());
+        assertEquals(0, scheduler.size());
+    }
+
+    private static ConversionTask task(final String name, final Long dueTime) {
+        final ConversionTask task = new ConversionTask(new File(name), 0, TimeUnit.MILLISECONDS);
+        if (dueTime != null) {
+            task.setDueTime(dueTime);
+        }
+        return task;
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+import com.github.fluxw42.thistothat.conf.WatchRoot;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 6:52 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class FairShareTaskSchedulerTest {
+
+    private static final WatchRoot RADIO = new WatchRoot("radio", new File("in/radio"), 3, 0);
+
+    private static final WatchRoot ARCHIVE = new WatchRoot("archive", new File("in/archive"), 1, 0);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoRoots() throws Exception {
+        new FairShareTaskScheduler(Collections.emptyList(), FifoTaskScheduler::new);
+    }
+
+    @Test
+    public void testIsDurationRequired() throws Exception {
+        final List<WatchRoot> roots = Arrays.asList(RADIO, ARCHIVE);
+        assertFalse(new FairShareTaskScheduler(roots, FifoTaskScheduler::new).isDurationRequired());
+        assertTrue(new FairShareTaskScheduler(roots, () -> new ShortestJobFirstTaskScheduler(0)).isDurationRequired());
+    }
+
+    @Test(timeout = 5000)
+    public void testWeightedShare() throws Exception {
+        final TaskScheduler scheduler = new FairShareTaskScheduler(Arrays.asList(RADIO, ARCHIVE), FifoTaskScheduler::new);
+        for (int i = 0; i < 8; i++) {
+            scheduler.offer(task("in/archive/" + i + ".wav"));
+        }
+        for (int i = 0; i < 6; i++) {
+            scheduler.offer(task("in/radio/" + i + ".wav"));
+        }
+        assertEquals(14, scheduler.size());
+
+        final List<String> roots = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            roots.add(scheduler.take().getFile().getParentFile().getName());
+        }
+
+        // Three radio files for each archive file, regardless of the order of arrival
+        assertEquals(Arrays.asList("radio", "radio", "radio", "archive", "radio", "radio", "radio", "archive"), roots);
+
+        // Once the radio root is idle, the archive gets all the workers
+        for (int i = 2; i < 8; i++) {
+            assertEquals(new File("in/archive/" + i + ".wav"), scheduler.take().getFile());
+        }
+        assertEquals(0, scheduler.size());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testUnknownRoot() throws Exception {
+        final TaskScheduler scheduler = new FairShareTaskScheduler(Arrays.asList(RADIO, ARCHIVE), FifoTaskScheduler::new);
+        assertTrue(scheduler.offer(task("elsewhere/test.wav")));
+        assertEquals(1, scheduler.size());
+        assertEquals(new File("elsewhere/test.wav"), scheduler.poll().getFile());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        final TaskScheduler scheduler = new FairShareTaskScheduler(Arrays.asList(RADIO, ARCHIVE), FifoTaskScheduler::new);
+        scheduler.offer(task("in/radio/test.wav"));
+        scheduler.offer(task("in/archive/test.wav"));
+        assertEquals(2, scheduler.size());
+
+        assertTrue(scheduler.remove(new File("in/radio/test.wav")));
+        assertFalse(scheduler.remove(new File("in/radio/test.wav")));
+        assertEquals(1, scheduler.size());
+        assertEquals(new File("in/archive/test.wav"), scheduler.poll().getFile());
+        assertNull(scheduler.poll());
+    }
+
+    private static ConversionTask task(final String name) {
+        return new ConversionTask(new File(name), 0, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/18/26 - 4:25 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class SchedulingPolicyTest {
+
+    @Test
+    public void testFromName() throws Exception {
+        assertEquals(SchedulingPolicy.FIFO, SchedulingPolicy.fromName(null));
+        assertEquals(SchedulingPolicy.FIFO, SchedulingPolicy.fromName("unknown"));
+        assertEquals(SchedulingPolicy.FIFO, SchedulingPolicy.fromName("fifo"));
+        assertEquals(SchedulingPolicy.SHORTEST_JOB_FIRST, SchedulingPolicy.fromName("sjf"));
+        assertEquals(SchedulingPolicy.SHORTEST_JOB_FIRST, SchedulingPolicy.fromName(" SJF "));
+        assertEquals(SchedulingPolicy.EARLIEST_DEADLINE_FIRST, SchedulingPolicy.fromName("edf"));
+    }
+
+}
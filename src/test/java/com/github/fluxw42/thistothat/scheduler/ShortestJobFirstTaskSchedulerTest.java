@@ -0,0 +1,78 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import com.github.fluxw42.thistothat.ConversionTask;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/18/26 - 4:14 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ShortestJobFirstTaskSchedulerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeAging() throws Exception {
+        new ShortestJobFirstTaskScheduler(-1);
+    }
+
+    @Test
+    public void testIsDurationRequired() throws Exception {
+        assertTrue(new ShortestJobFirstTaskScheduler(0).isDurationRequired());
+    }
+
+    @Test(timeout = 5000)
+    public void testShortestFirst() throws Exception {
+        final TaskScheduler scheduler = new ShortestJobFirstTaskScheduler(0);
+        scheduler.offer(task("long", TimeUnit.HOURS.toMillis(6)));
+        scheduler.offer(task("short", TimeUnit.MINUTES.toMillis(3)));
+        scheduler.offer(task("unknown", -1));
+        scheduler.offer(task("medium", TimeUnit.MINUTES.toMillis(30)));
+        scheduler.offer(task("short-too", TimeUnit.MINUTES.toMillis(3)));
+        assertEquals(5, scheduler.size());
+
+        assertEquals(new File("unknown"), scheduler.take().getFile());
+        assertEquals(new File("short"), scheduler.take().getFile());
+        assertEquals(new File("short-too"), scheduler.take().getFile());
+        assertEquals(new File("medium"), scheduler.take().getFile());
+        assertEquals(new File("long"), scheduler.take().getFile());
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testAging() throws Exception {
+        // Each millisecond waiting is worth an hour of media, so the order of arrival wins
+        final TaskScheduler scheduler = new ShortestJobFirstTaskScheduler(TimeUnit.HOURS.toMillis(1));
+        scheduler.offer(task("long", TimeUnit.HOURS.toMillis(6)));
+        Thread.sleep(50);
+        scheduler.offer(task("short", TimeUnit.MINUTES.toMillis(3)));
+
+        assertEquals(new File("long"), scheduler.take().getFile());
+        assertEquals(new File("short"), scheduler.take().getFile());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        final TaskScheduler scheduler = new ShortestJobFirstTaskScheduler(0);
+        scheduler.offer(task("long", TimeUnit.HOURS.toMillis(6)));
+        scheduler.offer(task("short", TimeUnit.MINUTES.toMillis(3)));
+
+        assertTrue(scheduler.remove(new File("short")));
+        assertFalse(scheduler.remove(new File("short")));
+        assertEquals(1, scheduler.size());
+        assertEquals(new File("long"), scheduler.poll().getFile());
+    }
+
+    private static ConversionTask task(final String name, final long duration) {
+        final ConversionTask task = new ConversionTask(new File(name), 0, TimeUnit.MILLISECONDS);
+        task.setDuration(duration);
+        return task;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 10/19/26 - 1:05 AM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class StabilityDetectorTest {
+
+    /**
+     * The temporary folder used during these test
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuietTimes() throws Exception {
+        new StabilityDetector(200, 100, 300, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testInitialQuietTime() throws Exception {
+        final StabilityDetector detector = new StabilityDetector(100, 200, 300, TimeUnit.MILLISECONDS);
+        assertEquals(200, detector.getQuietTime(this.folder.newFile()));
+    }
+
+    @Test
+    public void testBoundedDirectories() throws Exception {
+        final StabilityDetector detector = new StabilityDetector(100, 200, 300, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 2 * StabilityDetector.MAX_DIRECTORIES; i++) {
+            detector.getQuietTime(new File(new File(this.folder.getRoot(), "directory-" + i), "file"));
+        }
+        assertEquals(StabilityDetector.MAX_DIRECTORIES, detector.getDirectoryCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testStable() throws Exception {
+        final StabilityDetector detector = new StabilityDetector(0, 200, 1000, TimeUnit.MILLISECONDS);
+        final File file = this.folder.newFile();
+        detector.touched(file);
+
+        final long delay = detector.check(file);
+        assertTrue("Expected a postponement, but was [" + delay + "]", delay > 0 && delay <= 200);
+        Thread.sleep(250);
+        assertEquals(0, detector.check(file));
+
+        detector.forget(file);
+        assertEquals(0, detector.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testChangeWithoutEvent() throws Exception {
+        final StabilityDetector detector = new StabilityDetector(0, 200, 1000, TimeUnit.MILLISECONDS);
+        final File file = this.folder.newFile();
+        detector.touched(file);
+        assertTrue(detector.check(file) > 0);
+
+        Thread.sleep(250);
+        try (final OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[16]);
+        }
+        assertTrue("The size changed, so the file shouldn't be stable yet", detector.check(file) > 0);
+    }
+
+    @Test(timeout = 5000)
+    public void testLearnQuietTime() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final StabilityDetector detector = new StabilityDetector(0, 1000, 5000, TimeUnit.MILLISECONDS, clock::get);
+        final File directory = this.folder.newFolder();
+        for (int i = 0; i < 20; i++) {
+            final File file = new File(directory, "file-" + i);
+            assertTrue(file.createNewFile());
+            detector.touched(file);
+            detector.touched(file);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(detector.getQuietTime(file) + 1));
+            assertEquals(0, detector.check(file));
+            detector.forget(file);
+        }
+
+        // Files written in a single burst make the quiet time shrink, but only in their directory
+        final long quietTime = detector.getQuietTime(new File(directory, "next"));
+        assertTrue("Expected a shorter quiet time, but was [" + quietTime + "]", quietTime < 500);
+        assertEquals(1000, detector.getQuietTime(this.folder.newFile()));
+    }
+
+}
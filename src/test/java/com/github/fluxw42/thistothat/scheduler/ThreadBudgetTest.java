@@ -0,0 +1,75 @@
+package com.github.fluxw42.thistothat.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 10/18/26 - 8:02 PM
+ *
+ * @author Jeroen Meulemeester
+ */
+public class ThreadBudgetTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBudget() throws Exception {
+        new ThreadBudget(0, () -> 1);
+    }
+
+    @Test
+    public void testSingleConversion() throws Exception {
+        final ThreadBudget budget = new ThreadBudget(8, () -> 1);
+        assertEquals(8, budget.acquire());
+        assertEquals(8, budget.getAllocated());
+        budget.release(8);
+        assertEquals(0, budget.getAllocated());
+    }
+
+    @Test
+    public void testShareWithBacklog() throws Exception {
+        final ThreadBudget budget = new ThreadBudget(8, () -> 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(2, budget.acquire());
+        }
+        assertEquals(8, budget.getAllocated());
+
+        // Exhausted, but each conversion gets at least one thread
+        assertEquals(1, budget.acquire());
+        assertEquals(9, budget.getAllocated());
+    }
+
+    @Test
+    public void testIdleWorkers() throws Exception {
+        // Each idle worker holds a permit while waiting for a task
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(8);
+        for (int i = 0; i < 8; i++) {
+            limiter.acquire();
+        }
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger queued = new AtomicInteger();
+        final ThreadBudget budget = new ThreadBudget(8, () -> Math.min(limiter.getLimit(), running.get() + queued.get()));
+
+        // A lone conversion gets all threads, even though all permits are taken
+        running.set(1);
+        assertEquals(8, budget.acquire());
+    }
+
+    @Test
+    public void testRebalance() throws Exception {
+        final AtomicInteger expected = new AtomicInteger(1);
+        final ThreadBudget budget = new ThreadBudget(8, expected::get);
+        final int first = budget.acquire();
+        assertEquals(8, first);
+
+        // A second conversion starts while the first one holds the whole budget
+        expected.set(2);
+        assertEquals(1, budget.acquire());
+
+        // Once the first one is finished, the next conversion gets its fair share again
+        budget.release(first);
+        assertEquals(4, budget.acquire());
+    }
+
+}